@@ -1,11 +1,14 @@
 package library;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import javax.swing.JPanel;
 
 import library.daos.MemberDAO;
+import library.entities.LoanRenderer;
 import library.interfaces.EBorrowState;
 import library.interfaces.IBorrowUI;
 import library.interfaces.IBorrowUIListener;
@@ -17,6 +20,7 @@ import library.interfaces.entities.EMemberState;
 import library.interfaces.entities.IBook;
 import library.interfaces.entities.ILoan;
 import library.interfaces.entities.IMember;
+import library.interfaces.entities.IMemberSummary;
 import library.interfaces.hardware.ICardReader;
 import library.interfaces.hardware.ICardReaderListener;
 import library.interfaces.hardware.IDisplay;
@@ -40,7 +44,14 @@ public class BorrowUC_CTL
   private ILoanDAO loanDAO;
 
   private List<IBook> bookList;
+  // Ids of the books in bookList, so a repeat scan is found without walking
+  // the list, even when the DAO returns a new IBook instance for it
+  private Set<Integer> scannedBookIds = new HashSet<Integer>();
   private List<ILoan> loanList;
+  // The first renderedLoanCount loans of loanList rendered for display,
+  // appended to as loans are created rather than rendered again each scan
+  private StringBuilder pendingLoanText = new StringBuilder();
+  private int renderedLoanCount = 0;
   private IMember borrower;
 
   private JPanel previous;
@@ -92,7 +103,9 @@ public void initialise()
   setState(EBorrowState.INITIALIZED);
   ui.setState(EBorrowState.INITIALIZED);
   bookList = new ArrayList<IBook>();
+  scannedBookIds.clear();
   loanList = new ArrayList<ILoan>();
+  clearPendingLoanText();
 }
 
 
@@ -113,21 +126,23 @@ public void initialise()
           "method when state is: " + state);
     }
 
-    // Check whether borrowerId exists in the list of members
-    if (memberDAO.getMemberByID(borrowerId) == null)
+    // Fetch everything displayed below in a single lookup, which is also
+    // the check that borrowerId exists in the list of members
+    IMemberSummary summary = memberDAO.getMemberSummary(borrowerId);
+    if (summary == null)
     {
       ui.displayErrorMessage("Member: " + borrowerId +" not found");
       return;
     }
-    borrower = memberDAO.getMemberByID(borrowerId);
+    borrower = summary.getMember();
     
     // Retrieve the list of current loans for the current borrower
-    List<ILoan> existingLoans = borrower.getLoans();
+    List<ILoan> existingLoans = summary.getLoans();
     
     // Initialize scanCount to the number of loans already existing
-    scanCount = existingLoans.size();
+    scanCount = summary.getLoanCount();
 
-    if (!borrower.isRestricted())
+    if (!summary.isRestricted())
     {
       setState(EBorrowState.SCANNING_BOOKS);
       ui.setState(EBorrowState.SCANNING_BOOKS);
@@ -137,21 +152,21 @@ public void initialise()
       scanner.setEnabled(true);
 
       ui.displayMemberDetails(borrowerId, 
-                              borrower.getFirstName() + " " +
-                              borrower.getLastName(),
-                              borrower.getContactPhone());
+                              summary.getFirstName() + " " +
+                              summary.getLastName(),
+                              summary.getContactPhone());
       
       // Display the details of any outstanding loans
-      if (existingLoans.size() > 0)
+      if (summary.getLoanCount() > 0)
       {
         String listOfLoans = buildLoanListDisplay(existingLoans);
         ui.displayExistingLoan(listOfLoans);
       }
 
       // Display any outstanding fines
-      if (borrower.hasFinesPayable())
+      if (summary.hasFinesPayable())
       {
-        ui.displayOutstandingFineMessage(borrower.getTotalFines());
+        ui.displayOutstandingFineMessage(summary.getTotalFines());
       }
       ui.displayScannedBookDetails("");
       ui.displayPendingLoan("");
@@ -166,33 +181,33 @@ public void initialise()
       scanner.setEnabled(false);
 
       ui.displayMemberDetails(borrowerId,
-                              borrower.getFirstName() + " " +
-                              borrower.getLastName(),
-                              borrower.getContactPhone());
+                              summary.getFirstName() + " " +
+                              summary.getLastName(),
+                              summary.getContactPhone());
 
       // Display any outstanding loans
       // Display the details of any outstanding loans
-      if (existingLoans.size() > 0)
+      if (summary.getLoanCount() > 0)
       {
         String listOfLoans = buildLoanListDisplay(existingLoans);
         ui.displayExistingLoan(listOfLoans);
       }
 
       // Display any outstanding fines
-      if (borrower.hasFinesPayable())
+      if (summary.hasFinesPayable())
       {
-        ui.displayOutstandingFineMessage(borrower.getTotalFines());
+        ui.displayOutstandingFineMessage(summary.getTotalFines());
       }
       
-      if (borrower.hasOverDueLoans())
+      if (summary.hasOverDueLoans())
       {
         ui.displayOverDueMessage();
       }
-      if(borrower.hasReachedFineLimit()) 
+      if(summary.hasReachedFineLimit()) 
       {
-        ui.displayOverFineLimitMessage(borrower.getTotalFines());
+        ui.displayOverFineLimitMessage(summary.getTotalFines());
       }
-      if(borrower.hasReachedLoanLimit()) 
+      if(summary.hasReachedLoanLimit()) 
       {
         ui.displayAtLoanLimitMessage();
       }
@@ -231,8 +246,8 @@ public void initialise()
 			return;
 		}
 		
-		// If the book has already been scanned
-		if(bookList.contains(book)) {
+		// If the book has already been scanned (add is false for a known id)
+		if(!scannedBookIds.add(book.getID())) {
 			ui.displayErrorMessage("Book already scanned");
 			return;
 		}
@@ -248,12 +263,19 @@ public void initialise()
 		
 		// Get bookDetails directly from book
 		String bookDetails = book.toString(); 
-		// Get loanDetails using buildLoanListDisplay helper
-		String loanDetails = buildLoanListDisplay(loanList);
+		// Render only the new loan onto the pending loan text, so that a
+		// session of n scans renders n loans rather than n(n+1)/2
+		int newLoanStart = pendingLoanText.length();
+		renderPendingLoans();
 		
-		// Display book and loan details
+		// Display book details, and the first loan or just the new one
 		ui.displayScannedBookDetails(bookDetails);
-		ui.displayPendingLoan(loanDetails);
+		if(newLoanStart == 0) {
+		  ui.displayPendingLoan(pendingLoanText.toString());
+		}
+		else {
+		  ui.appendPendingLoan(pendingLoanText.substring(newLoanStart));
+		}
 		
 		// Check if scan count is at or exceeds LOAN_LIMIT (5)
 		if(scanCount >= IMember.LOAN_LIMIT) {
@@ -262,7 +284,7 @@ public void initialise()
 			setState(EBorrowState.CONFIRMING_LOANS); 
 			
 			// Display confirming loan details
-			ui.displayConfirmingLoan(loanDetails);
+			ui.displayConfirmingLoan(pendingLoanText.toString());
 			
 			// Ensure input is disabled
 			reader.setEnabled(false);
@@ -280,7 +302,9 @@ public void initialise()
 	public void cancelled() {
 	  // Clear all borrow details for this session
 	  bookList.clear();
+	  scannedBookIds.clear();
 	  loanList.clear();
+	  clearPendingLoanText();
 	  borrower = null;
     scanCount = 0;
 	  
@@ -325,11 +349,9 @@ public void initialise()
 		scanner.setEnabled(false);
 		
 
-    // Get loanDetails using buildLoanListDisplay helper
-    String loanDetails = buildLoanListDisplay(loanList);
-    
-    // Display confirming loan details
-    ui.displayConfirmingLoan(loanDetails);
+    // Display confirming loan details, mostly rendered as loans were scanned
+    renderPendingLoans();
+    ui.displayConfirmingLoan(pendingLoanText.toString());
 	}
 
 
@@ -358,7 +380,7 @@ public void initialise()
         loanDAO.commitLoan(loan);
       }
 
-      // print loans details
+      // print loans details (rendered again, as committing set their ids)
       String loanDetails = buildLoanListDisplay(loanList);
       printer.print(loanDetails);
     }
@@ -373,7 +395,9 @@ public void initialise()
 
     // clear lists of scanned books & loans and borrower
     bookList.clear();
+    scannedBookIds.clear();
     loanList.clear();
+    clearPendingLoanText();
     borrower = null;
     scanCount = 0;
 
@@ -420,7 +444,9 @@ public void initialise()
 
     // clear lists of scanned books and loans (but not borrower or scanCount)
     bookList.clear();
+    scannedBookIds.clear();
     loanList.clear();
+    clearPendingLoanText();
 
     // set hardware ready for next borrower
     reader.setEnabled(false);
@@ -429,12 +455,33 @@ public void initialise()
 
 
 
-  private String buildLoanListDisplay(List<ILoan> loans) {
-    StringBuilder bld = new StringBuilder();
-    for (ILoan ln : loans) {
-      if (bld.length() > 0) bld.append("\n\n");
-      bld.append(ln.toString());
+  // Appends the loans added to loanList since the last call to the pending
+  // loan text
+  private void renderPendingLoans() {
+    if (renderedLoanCount > loanList.size()) {
+      clearPendingLoanText();
+    }
+    for (int i = renderedLoanCount; i < loanList.size(); i++) {
+      if (i > 0) {
+        pendingLoanText.append(LoanRenderer.LOAN_SEPARATOR);
+      }
+      LoanRenderer.appendTo(pendingLoanText, loanList.get(i));
     }
+    renderedLoanCount = loanList.size();
+  }
+
+
+
+  private void clearPendingLoanText() {
+    pendingLoanText.setLength(0);
+    renderedLoanCount = 0;
+  }
+
+
+
+  private String buildLoanListDisplay(List<ILoan> loans) {
+    StringBuilder bld = new StringBuilder(loans.size() * 160);
+    LoanRenderer.appendAllTo(bld, loans);
     return bld.toString();
   }
 
@@ -133,6 +133,13 @@ public class BorrowUC_UI extends JPanel implements IBorrowUI {
 	}
 
 	
+	@Override
+	public void appendPendingLoan(String loanDetails) {
+		IBorrowUI ui = panels.get(state);
+		ui.appendPendingLoan(loanDetails);		
+	}
+
+	
 	@Override
 	public void displayConfirmingLoan(String loanDetails) {
 		IBorrowUI ui = panels.get(state);
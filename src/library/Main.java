@@ -27,6 +27,7 @@ import library.daos.MemberDAO;
 import library.daos.BookHelper;
 import library.daos.LoanHelper;
 import library.daos.MemberHelper;
+import library.daos.StringPool;
 
 import library.panels.MainPanel;
 
@@ -60,11 +61,14 @@ public class Main
     printer = new Printer();
     display = new Display();
 
-    bookHelper = new BookHelper();
+    // One pool shared by the helper and the DAO, so each author and title
+    // is held once
+    StringPool stringPool = new StringPool();
+    bookHelper = new BookHelper(stringPool);
     loanHelper = new LoanHelper();
     memberHelper = new MemberHelper();
 
-    bookDAO = new BookDAO(bookHelper);
+    bookDAO = new BookDAO(bookHelper, stringPool);
     loanDAO = new LoanDAO(loanHelper);
     memberDAO = new MemberDAO(memberHelper);
 
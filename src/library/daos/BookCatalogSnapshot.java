@@ -0,0 +1,356 @@
+package library.daos;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import library.interfaces.daos.IBookDAO;
+import library.interfaces.daos.IBookHelper;
+import library.interfaces.entities.EBookState;
+import library.interfaces.entities.IBook;
+
+/**
+ * BookCatalogSnapshot class
+ *
+ * A read-only binary copy of a book catalog, opened through a
+ * MappedByteBuffer so that opening it costs the same whatever the size of
+ * the catalog. Books are only decoded when they are read.
+ *
+ * File layout (all ints big-endian):
+ *   header:  magic, version, maxId, count
+ *   offsets: one int per id from 1 to maxId, giving the file offset of that
+ *            book's entry, or -1 if there is no book with that id
+ *   entries: the book's EBookState ordinal as one byte, then author, title
+ *            and call number, each as a byte length followed by that many
+ *            bytes of UTF-8
+ *
+ * Books are read back in the state they were written in, except that a
+ * book ON_LOAN is read back AVAILABLE: loans are not in the snapshot, and
+ * are restored by the loan DAO borrowing the book again. Version 1
+ * snapshots, written before states were stored, are read with every book
+ * AVAILABLE.
+ *
+ * open() checks the header and readBook() checks each offset and length it
+ * reads against the file, so a damaged snapshot gives an IOException naming
+ * the file rather than a bad read past the end of an entry.
+ *
+ */
+public class BookCatalogSnapshot
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int MAGIC = 0x424F4F4B; // "BOOK"
+  private static final int VERSION = 2;
+  private static final int VERSION_WITHOUT_STATES = 1;
+  private static final EBookState[] STATES = EBookState.values();
+  private static final int HEADER_SIZE = 16;
+  private static final int NO_ENTRY = -1;
+  private static final int WRITE_BUFFER_SIZE = 1 << 16;
+
+  private final Path file_;
+  private final int version_;
+  private final MappedByteBuffer buffer_;
+  private final int maxId_;
+  private final int count_;
+
+
+
+  // ==========================================================================
+  // Constructor
+  // ==========================================================================
+
+
+
+  private BookCatalogSnapshot(Path file, int version, MappedByteBuffer buffer,
+                              int maxId, int count)
+  {
+    file_ = file;
+    version_ = version;
+    buffer_ = buffer;
+    maxId_ = maxId;
+    count_ = count;
+  }
+
+
+
+  // ==========================================================================
+  // Open and Write Methods
+  // ==========================================================================
+
+
+
+  public static BookCatalogSnapshot open(Path file) throws IOException
+  {
+    if(file == null) {
+      throw new IllegalArgumentException("BookCatalogSnapshot: open: value "
+                                         + "for 'file' cannot be null");
+    }
+
+    try(FileChannel channel = FileChannel.open(file,
+                                               StandardOpenOption.READ)) {
+      long size = channel.size();
+      if(size > Integer.MAX_VALUE) {
+        throw new IOException("BookCatalogSnapshot: open: snapshot " + file
+                              + " is too large to map (" + size + " bytes)");
+      }
+      if(size < HEADER_SIZE) {
+        throw new IOException("BookCatalogSnapshot: open: " + file + " is "
+                              + "not a book catalog snapshot");
+      }
+
+      // The mapping stays valid after the channel is closed
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                                            size);
+      int version = buffer.getInt(4);
+      if(buffer.getInt(0) != MAGIC
+         || (version != VERSION && version != VERSION_WITHOUT_STATES)) {
+        throw new IOException("BookCatalogSnapshot: open: " + file + " is "
+                              + "not a book catalog snapshot");
+      }
+
+      int maxId = buffer.getInt(8);
+      int count = buffer.getInt(12);
+      if(maxId < 0 || HEADER_SIZE + 4L * maxId > size) {
+        throw new IOException("BookCatalogSnapshot: open: snapshot " + file
+                              + " is truncated (maxId " + maxId + ")");
+      }
+      if(count < 0 || count > maxId) {
+        throw new IOException("BookCatalogSnapshot: open: snapshot " + file
+                              + " is corrupt (count " + count + " for maxId "
+                              + maxId + ")");
+      }
+      return new BookCatalogSnapshot(file, version, buffer, maxId, count);
+    }
+  }
+
+
+
+  public static void write(IBookDAO dao, Path file) throws IOException
+  {
+    if(dao == null) {
+      throw new IllegalArgumentException("BookCatalogSnapshot: write: value "
+                                         + "for 'dao' cannot be null");
+    }
+
+    if(file == null) {
+      throw new IllegalArgumentException("BookCatalogSnapshot: write: value "
+                                         + "for 'file' cannot be null");
+    }
+
+    List<IBook> books = dao.listBooks();
+    int maxId = 0;
+    for(IBook book: books) {
+      maxId = Math.max(maxId, book.getID());
+    }
+
+    int[] offsets = new int[maxId + 1];
+    Arrays.fill(offsets, NO_ENTRY);
+
+    try(FileChannel channel = FileChannel.open(file,
+                                     StandardOpenOption.CREATE,
+                                     StandardOpenOption.WRITE,
+                                     StandardOpenOption.TRUNCATE_EXISTING)) {
+      // Entries are streamed after the space reserved for the header and
+      // offsets, which are written last once the offsets are known
+      long position = HEADER_SIZE + 4L * maxId;
+      channel.position(position);
+      ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+
+      for(IBook book: books) {
+        if(position > Integer.MAX_VALUE) {
+          throw new IOException("BookCatalogSnapshot: write: catalog is too "
+                                + "large for one snapshot");
+        }
+        offsets[book.getID()] = (int) position;
+        position += putState(channel, out, book.getState());
+        position += putString(channel, out, book.getAuthor());
+        position += putString(channel, out, book.getTitle());
+        position += putString(channel, out, book.getCallNumber());
+      }
+      flush(channel, out);
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + 4 * maxId);
+      header.putInt(MAGIC).putInt(VERSION).putInt(maxId).putInt(books.size());
+      for(int id = 1; id <= maxId; id++) {
+        header.putInt(offsets[id]);
+      }
+      header.flip();
+      writeFully(channel, header, 0);
+      channel.force(true);
+    }
+  }
+
+
+
+  // ==========================================================================
+  // Retrieval Methods
+  // ==========================================================================
+
+
+
+  public int getMaxId()
+  {
+    return maxId_;
+  }
+
+
+
+  public int size()
+  {
+    return count_;
+  }
+
+
+
+  public boolean contains(int id)
+  {
+    return offsetOf(id) != NO_ENTRY;
+  }
+
+
+
+  // Decodes the book with the given id, in its stored state, or returns null
+  // if the snapshot has no book with that id. Each call makes a new book.
+  // Throws IOException if the entry's offset, state or one of its lengths
+  // does not fit in the file.
+  public IBook readBook(int id, IBookHelper helper) throws IOException
+  {
+    int offset = offsetOf(id);
+    if(offset == NO_ENTRY) {
+      return null;
+    }
+    if(offset < HEADER_SIZE + 4L * maxId_ || offset >= buffer_.limit()) {
+      throw new IOException("BookCatalogSnapshot: readBook: snapshot "
+                            + file_ + " is corrupt (book " + id
+                            + " has offset " + offset + ")");
+    }
+
+    // A duplicate has its own position, so concurrent reads don't interfere
+    ByteBuffer entry = buffer_.duplicate();
+    entry.position(offset);
+    EBookState state = EBookState.AVAILABLE;
+    if(version_ != VERSION_WITHOUT_STATES) {
+      state = getState(entry, id);
+    }
+    String author = getString(entry, id);
+    String title = getString(entry, id);
+    String callNumber = getString(entry, id);
+    if(state == EBookState.AVAILABLE || state == EBookState.ON_LOAN) {
+      return helper.makeBook(author, title, callNumber, id);
+    }
+    return helper.makeBook(author, title, callNumber, id, state);
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  private int offsetOf(int id)
+  {
+    if(id <= 0 || id > maxId_) {
+      return NO_ENTRY;
+    }
+    return buffer_.getInt(HEADER_SIZE + 4 * (id - 1));
+  }
+
+
+
+  private EBookState getState(ByteBuffer entry, int id) throws IOException
+  {
+    int ordinal = entry.hasRemaining() ? entry.get() : -1;
+    if(ordinal < 0 || ordinal >= STATES.length) {
+      throw new IOException("BookCatalogSnapshot: readBook: snapshot "
+                            + file_ + " is corrupt (book " + id
+                            + " has an unknown state)");
+    }
+    return STATES[ordinal];
+  }
+
+
+
+  private String getString(ByteBuffer entry, int id) throws IOException
+  {
+    int length = (entry.remaining() < 4) ? -1 : entry.getInt();
+    if(length < 0 || length > entry.remaining()) {
+      throw new IOException("BookCatalogSnapshot: readBook: snapshot "
+                            + file_ + " is corrupt (book " + id
+                            + " runs past the end of the file)");
+    }
+
+    byte[] bytes = new byte[length];
+    entry.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+
+
+  // Returns the number of bytes the state takes in the snapshot
+  private static int putState(FileChannel channel, ByteBuffer out,
+                              EBookState state) throws IOException
+  {
+    if(!out.hasRemaining()) {
+      flush(channel, out);
+    }
+    out.put((byte) state.ordinal());
+    return 1;
+  }
+
+
+
+  // Returns the number of bytes the string takes in the snapshot
+  private static int putString(FileChannel channel, ByteBuffer out,
+                               String value) throws IOException
+  {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if(out.remaining() < 4 + bytes.length) {
+      flush(channel, out);
+    }
+    if(out.remaining() < 4 + bytes.length) {
+      // Longer than the whole buffer, so write it straight through
+      ByteBuffer large = ByteBuffer.allocate(4 + bytes.length);
+      large.putInt(bytes.length).put(bytes).flip();
+      writeFully(channel, large, channel.position());
+      channel.position(channel.position() + large.limit());
+    }
+    else {
+      out.putInt(bytes.length).put(bytes);
+    }
+    return 4 + bytes.length;
+  }
+
+
+
+  private static void flush(FileChannel channel, ByteBuffer out)
+      throws IOException
+  {
+    out.flip();
+    int length = out.limit();
+    writeFully(channel, out, channel.position());
+    channel.position(channel.position() + length);
+    out.clear();
+  }
+
+
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer,
+                                 long position) throws IOException
+  {
+    while(buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+}
@@ -1,18 +1,30 @@
 package library.daos;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.BitSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import library.interfaces.daos.IBookDAO;
 import library.interfaces.daos.IBookHelper;
+import library.interfaces.entities.EBookState;
 import library.interfaces.entities.IBook;
 
 /**
  * BookDAO class
  * @author Josh Kent
  *
+ * Safe to share between concurrent borrow sessions: ids come from an atomic
+ * counter and the table and indexes are concurrent, so no read takes a lock.
+ *
  */
 public class BookDAO implements IBookDAO
 {
@@ -22,10 +34,40 @@ public class BookDAO implements IBookDAO
   
   
   
-  private int nextId_;
-  private Map<Integer, IBook> bookMap_;
+  private AtomicInteger nextId_;
+  private EntityTable<IBook> bookTable_;
   private IBookHelper helper_;
   
+  // Authors and titles are pooled before they reach the helper and the 
+  // indexes, so each distinct value is held once however many copies share 
+  // it, and index lookups with a pooled string match on reference
+  private StringPool stringPool_;
+  
+  // Book ids by author, by title, and by title within each author
+  private BookIdIndex<String> authorIndex_;
+  private BookIdIndex<String> titleIndex_;
+  private ConcurrentMap<String, BookIdIndex<String>> authorTitleIndex_;
+  
+  // Words of every title and author, for searchBooks
+  private BookSearchIndex searchIndex_;
+  
+  // Trigrams of each distinct author and title, for the fuzzy finds
+  private TrigramIndex authorTrigrams_;
+  private TrigramIndex titleTrigrams_;
+  
+  // Book ids in shelf order
+  private CallNumberIndex callNumberIndex_;
+  
+  // Book ids by state. Every book in bookTable_ reports its state changes 
+  // here, including books decoded from a snapshot.
+  private BookStateIndex stateIndex_;
+  
+  // Books in a catalog snapshot are decoded into bookTable_ on first use. 
+  // The indexes only cover the snapshot once it has been fully loaded, 
+  // which happens the first time a method needs every book.
+  private BookCatalogSnapshot snapshot_;
+  private volatile boolean snapshotLoaded_;
+  
   
   
   // ==========================================================================
@@ -35,13 +77,48 @@ public class BookDAO implements IBookDAO
   
   
   public BookDAO(IBookHelper helper) {
+    this(helper, new StringPool());
+  }
+  
+  
+  
+  // Pass the same pool given to a BookHelper so the two share one copy of 
+  // each string
+  public BookDAO(IBookHelper helper, StringPool stringPool) {
     if(helper == null) {
       throw new IllegalArgumentException("BookDAO: constructor: value for "
                                          + "'helper' cannot be null");
     }
+    if(stringPool == null) {
+      throw new IllegalArgumentException("BookDAO: constructor: value for "
+                                         + "'stringPool' cannot be null");
+    }
     helper_ = helper;
-    nextId_ = 1;
-    bookMap_ = new HashMap<Integer, IBook>();
+    stringPool_ = stringPool;
+    nextId_ = new AtomicInteger(1);
+    bookTable_ = new EntityTable<IBook>();
+    authorIndex_ = new BookIdIndex<String>();
+    titleIndex_ = new BookIdIndex<String>();
+    authorTitleIndex_ = new ConcurrentHashMap<String, BookIdIndex<String>>();
+    searchIndex_ = new BookSearchIndex();
+    authorTrigrams_ = new TrigramIndex();
+    titleTrigrams_ = new TrigramIndex();
+    callNumberIndex_ = new CallNumberIndex();
+    stateIndex_ = new BookStateIndex();
+  }
+  
+  
+  
+  public BookDAO(IBookHelper helper, Path snapshot) throws IOException {
+    this(helper);
+    if(snapshot == null) {
+      throw new IllegalArgumentException("BookDAO: constructor: value for "
+                                         + "'snapshot' cannot be null");
+    }
+    // Only the header is read here, so opening costs the same for any size
+    // of catalog
+    snapshot_ = BookCatalogSnapshot.open(snapshot);
+    nextId_.set(snapshot_.getMaxId() + 1);
   }
   
   
@@ -71,9 +148,16 @@ public class BookDAO implements IBookDAO
                                          + "empty");
     }
     
-    IBook newBook = helper_.makeBook(author, title, callNumber, getNextId());
-    bookMap_.put(newBook.getID(), newBook);
-    updateNextId();
+    // Keeps the indexes in id order when books are added after a snapshot
+    loadSnapshot();
+    
+    IBook newBook = helper_.makeBook(stringPool_.intern(author), 
+                                     stringPool_.intern(title), callNumber, 
+                                     getNextId());
+    // The book must be in the table before its id is visible in any index
+    bookTable_.put(newBook.getID(), newBook);
+    trackState(newBook);
+    indexBook(newBook);
     return newBook;
   }
 
@@ -93,9 +177,14 @@ public class BookDAO implements IBookDAO
                                          + "'bookID' must be a positive integer"
                                          + " (>= 0)");
     }
-    // get method of HashMap returns the value associated with the given key
-    // or null if there is no value associated with the given key (by default)
-    return bookMap_.get(bookID);
+    // get method of EntityTable returns the book stored against the given id
+    // or null if there is no book stored against the given id
+    IBook book = bookTable_.get(bookID);
+    
+    if(book == null && snapshot_ != null) {
+      book = readFromSnapshot(bookID);
+    }
+    return book;
   }
 
 
@@ -103,7 +192,51 @@ public class BookDAO implements IBookDAO
   @Override
   public List<IBook> listBooks()
   {
-    return new ArrayList<IBook>(bookMap_.values());
+    loadSnapshot();
+    return bookTable_.values();
+  }
+
+
+
+  // Keyset paging: pass 0 for the first page, then the id of the last book
+  // of each page. Unlike listBooks this does not load a whole snapshot, 
+  // only the books in the page are decoded
+  @Override
+  public List<IBook> listBooks(int afterID, int limit)
+  {
+    if(afterID < 0 || limit < 0) {
+      throw new IllegalArgumentException("BookDAO: listBooks: values for "
+                                         + "'afterID' and 'limit' cannot be "
+                                         + "negative");
+    }
+    
+    if(snapshot_ == null) {
+      return bookTable_.page(afterID, limit);
+    }
+    
+    List<IBook> books = new ArrayList<IBook>();
+    int nextId = nextId_.get();
+    for(int id = afterID + 1; id < nextId && books.size() < limit; id++) {
+      IBook book = getBookByID(id);
+      if(book != null) {
+        books.add(book);
+      }
+    }
+    return books;
+  }
+
+
+
+  @Override
+  public Stream<IBook> streamBooks()
+  {
+    if(snapshot_ == null) {
+      return bookTable_.stream();
+    }
+    // Books are decoded from the snapshot as the stream reaches them
+    return IntStream.range(1, nextId_.get())
+                    .mapToObj(this::getBookByID)
+                    .filter(Objects::nonNull);
   }
 
 
@@ -117,14 +250,8 @@ public class BookDAO implements IBookDAO
                                          + "empty");
     }
     
-    ArrayList<IBook> booksByAuthor = new ArrayList<>();
-    
-    for(IBook book: bookMap_.values()) {
-      if(book.getAuthor().equals(author)) {
-        booksByAuthor.add(book);
-      }
-    }
-    return booksByAuthor;
+    loadSnapshot();
+    return getBooksByIds(authorIndex_.get(author));
   }
 
 
@@ -137,14 +264,8 @@ public class BookDAO implements IBookDAO
                                          + "'title' cannot be null or empty");
     }
     
-    ArrayList<IBook> booksByTitle = new ArrayList<>();
-    
-    for(IBook book: bookMap_.values()) {
-      if(book.getTitle().equals(title)) {
-        booksByTitle.add(book);
-      }
-    }
-    return booksByTitle;
+    loadSnapshot();
+    return getBooksByIds(titleIndex_.get(title));
   }
 
 
@@ -164,34 +285,299 @@ public class BookDAO implements IBookDAO
                                          + "or empty");
     }
     
-    ArrayList<IBook> booksByTitleAndAuthor = new ArrayList<>();
+    loadSnapshot();
+    BookIdIndex<String> titlesByAuthor = authorTitleIndex_.get(author);
     
-    for(IBook book: bookMap_.values()) {
-      if(book.getAuthor().equals(author) && book.getTitle().equals(title)) {
-        booksByTitleAndAuthor.add(book);
+    if(titlesByAuthor == null) {
+      return new ArrayList<IBook>();
+    }
+    return getBooksByIds(titlesByAuthor.get(title));
+  }
+  
+  
+  
+  // Books by the authors most like the given one (e.g. a misspelling), 
+  // grouped by author, most similar first. threshold is from 0 (exclusive) 
+  // to 1; TrigramIndex.DEFAULT_THRESHOLD suits most misspellings.
+  @Override
+  public List<IBook> findBooksByAuthorFuzzy(String author, double threshold)
+  {
+    if(isStringNullOrEmpty(author)) {
+      throw new IllegalArgumentException("BookDAO: findBooksByAuthorFuzzy: "
+                                         + "value for 'author' cannot be null "
+                                         + "or empty");
+    }
+    
+    loadSnapshot();
+    List<IBook> books = new ArrayList<IBook>();
+    
+    for(String similar: authorTrigrams_.findSimilar(author, threshold)) {
+      books.addAll(getBooksByIds(authorIndex_.get(similar)));
+    }
+    return books;
+  }
+  
+  
+  
+  @Override
+  public List<IBook> findBooksByTitleFuzzy(String title, double threshold)
+  {
+    if(isStringNullOrEmpty(title)) {
+      throw new IllegalArgumentException("BookDAO: findBooksByTitleFuzzy: "
+                                         + "value for 'title' cannot be null "
+                                         + "or empty");
+    }
+    
+    loadSnapshot();
+    List<IBook> books = new ArrayList<IBook>();
+    
+    for(String similar: titleTrigrams_.findSimilar(title, threshold)) {
+      books.addAll(getBooksByIds(titleIndex_.get(similar)));
+    }
+    return books;
+  }
+  
+  
+  
+  @Override
+  public int countBooksByState(EBookState state)
+  {
+    if(state == null) {
+      throw new IllegalArgumentException("BookDAO: countBooksByState: value "
+                                         + "for 'state' cannot be null");
+    }
+    
+    loadSnapshot();
+    return stateIndex_.count(state);
+  }
+  
+  
+  
+  // Books in any of the given states, in id order
+  @Override
+  public List<IBook> listBooksByState(EBookState... states)
+  {
+    if(states == null || states.length == 0) {
+      throw new IllegalArgumentException("BookDAO: listBooksByState: value "
+                                         + "for 'states' cannot be null or "
+                                         + "empty");
+    }
+    
+    loadSnapshot();
+    return getBooksByIds(stateIndex_.ids(states));
+  }
+  
+  
+  
+  // Books by author in any of the given states, in id order: the author's 
+  // ids that are set in the states' bitmaps
+  @Override
+  public List<IBook> findBooksByAuthorAndState(String author, 
+                                               EBookState... states)
+  {
+    if(isStringNullOrEmpty(author)) {
+      throw new IllegalArgumentException("BookDAO: findBooksByAuthorAndState: "
+                                         + "value for 'author' cannot be null "
+                                         + "or empty");
+    }
+    
+    if(states == null || states.length == 0) {
+      throw new IllegalArgumentException("BookDAO: findBooksByAuthorAndState: "
+                                         + "value for 'states' cannot be null "
+                                         + "or empty");
+    }
+    
+    loadSnapshot();
+    return getBooksByIds(authorIndex_.get(author, stateIndex_.ids(states)));
+  }
+  
+  
+  
+  // Books shelved from 'from' to 'to' inclusive, in shelf order (see 
+  // CallNumberIndex for how call numbers are compared)
+  @Override
+  public List<IBook> findBooksByCallNumberRange(String from, String to)
+  {
+    if(isStringNullOrEmpty(from)) {
+      throw new IllegalArgumentException("BookDAO: findBooksByCallNumberRange: "
+                                         + "value for 'from' cannot be null or "
+                                         + "empty");
+    }
+    
+    if(isStringNullOrEmpty(to)) {
+      throw new IllegalArgumentException("BookDAO: findBooksByCallNumberRange: "
+                                         + "value for 'to' cannot be null or "
+                                         + "empty");
+    }
+    
+    loadSnapshot();
+    return getBooksByIds(callNumberIndex_.range(from, to));
+  }
+  
+  
+  
+  // Up to count books shelved either side of where callNumber would be 
+  // shelved, in shelf order
+  @Override
+  public List<IBook> findBooksNearCallNumber(String callNumber, int count)
+  {
+    if(isStringNullOrEmpty(callNumber)) {
+      throw new IllegalArgumentException("BookDAO: findBooksNearCallNumber: "
+                                         + "value for 'callNumber' cannot be "
+                                         + "null or empty");
+    }
+    
+    if(count < 0) {
+      throw new IllegalArgumentException("BookDAO: findBooksNearCallNumber: "
+                                         + "value for 'count' cannot be "
+                                         + "negative");
+    }
+    
+    loadSnapshot();
+    return getBooksByIds(callNumberIndex_.nearest(callNumber, count));
+  }
+  
+  
+  
+  // Words of the title and author, any order, best match first. A word 
+  // ending in '*' matches words starting with it, e.g. "expect* dickens"
+  @Override
+  public List<IBook> searchBooks(String query, int limit)
+  {
+    if(isStringNullOrEmpty(query)) {
+      throw new IllegalArgumentException("BookDAO: searchBooks: value for "
+                                         + "'query' cannot be null or empty");
+    }
+    
+    if(limit < 0) {
+      throw new IllegalArgumentException("BookDAO: searchBooks: value for "
+                                         + "'limit' cannot be negative");
+    }
+    
+    loadSnapshot();
+    return getBooksByIds(searchIndex_.search(query, limit));
+  }
+  
+  
+  
+  // ==========================================================================
+  // Snapshot Methods
+  // ==========================================================================
+  
+  
+  
+  private IBook readFromSnapshot(int bookID)
+  {
+    IBook book;
+    try {
+      book = snapshot_.readBook(bookID, helper_);
+    }
+    catch(IOException e) {
+      throw new UncheckedIOException("BookDAO: readFromSnapshot: could not "
+                                     + "read book " + bookID, e);
+    }
+    
+    if(book == null) {
+      return null;
+    }
+    // Another thread may have decoded the same book; both get the first one
+    book = bookTable_.putIfAbsent(bookID, book);
+    trackState(book);
+    return book;
+  }
+  
+  
+  
+  private void loadSnapshot()
+  {
+    if(snapshot_ == null || snapshotLoaded_) {
+      return;
+    }
+    
+    synchronized(this) {
+      if(snapshotLoaded_) {
+        return;
+      }
+      for(int id = 1; id <= snapshot_.getMaxId(); id++) {
+        IBook book = bookTable_.get(id);
+        if(book == null) {
+          book = readFromSnapshot(id);
+        }
+        if(book != null) {
+          indexBook(book);
+        }
       }
+      snapshotLoaded_ = true;
     }
-    return booksByTitleAndAuthor;
   }
   
   
   
   // ==========================================================================
-  // Helper Methods
+  // Index Methods
   // ==========================================================================
   
   
   
-  private int getNextId()
+  private void indexBook(IBook book)
   {
-    return nextId_;
+    int id = book.getID();
+    
+    authorIndex_.add(book.getAuthor(), id);
+    titleIndex_.add(book.getTitle(), id);
+    authorTitleIndex_.computeIfAbsent(book.getAuthor(), 
+                                      key -> new BookIdIndex<String>())
+                     .add(book.getTitle(), id);
+    
+    searchIndex_.add(id, book.getAuthor(), book.getTitle());
+    authorTrigrams_.add(book.getAuthor());
+    titleTrigrams_.add(book.getTitle());
+    callNumberIndex_.add(id, book.getCallNumber());
   }
   
   
   
-  private void updateNextId() 
+  private void trackState(IBook book)
+  {
+    book.setStateListener(stateIndex_);
+    stateIndex_.bookStateChanged(book);
+  }
+  
+  
+  
+  private List<IBook> getBooksByIds(BitSet ids)
+  {
+    List<IBook> books = new ArrayList<IBook>(ids.cardinality());
+    
+    for(int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+      books.add(bookTable_.get(id));
+    }
+    return books;
+  }
+  
+  
+  
+  private List<IBook> getBooksByIds(int[] ids)
+  {
+    List<IBook> books = new ArrayList<IBook>(ids.length);
+    
+    for(int id: ids) {
+      books.add(bookTable_.get(id));
+    }
+    return books;
+  }
+  
+  
+  
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+  
+  
+  
+  private int getNextId()
   {
-    nextId_++;
+    return nextId_.getAndIncrement();
   }
   
   
@@ -2,20 +2,77 @@ package library.daos;
 
 import library.entities.Book;
 import library.interfaces.daos.IBookHelper;
+import library.interfaces.entities.EBookState;
 import library.interfaces.entities.IBook;
 
 /**
  * BookHelper class
  * @author Josh Kent
  *
+ * Authors and titles are pooled before the book is made, so books sharing an
+ * author or title share one String. Call numbers are unique to each copy and
+ * are not pooled.
+ *
  */
 public class BookHelper implements IBookHelper
 {
-
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+  
+  
+  
+  private StringPool stringPool_;
+  
+  
+  
+  // ==========================================================================
+  // Constructor
+  // ==========================================================================
+  
+  
+  
+  public BookHelper()
+  {
+    this(new StringPool());
+  }
+  
+  
+  
+  public BookHelper(StringPool stringPool)
+  {
+    if(stringPool == null) {
+      throw new IllegalArgumentException("BookHelper: constructor: value for "
+                                         + "'stringPool' cannot be null");
+    }
+    stringPool_ = stringPool;
+  }
+  
+  
+  
+  // ==========================================================================
+  // Creation Methods
+  // ==========================================================================
+  
+  
+  
   @Override
   public IBook makeBook(String author, String title, String callNumber, int id)
   {
-    return new Book(author, title, callNumber, id);
+    return new Book(stringPool_.intern(author), stringPool_.intern(title), 
+                    callNumber, id);
+  }
+  
+  
+  
+  // Makes a book already in the given state, e.g. one restored from a
+  // catalog snapshot
+  @Override
+  public IBook makeBook(String author, String title, String callNumber, int id,
+                        EBookState state)
+  {
+    return new Book(stringPool_.intern(author), stringPool_.intern(title), 
+                    callNumber, id, state);
   }
 
 }
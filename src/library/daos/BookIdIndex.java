@@ -0,0 +1,97 @@
+package library.daos;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * BookIdIndex class
+ *
+ * Book ids by key (an author, a title, an author's code), in id order, so
+ * the DAOs' find methods cost O(result size) rather than a walk over every
+ * book. Each key's ids are one Postings list.
+ *
+ * Adding locks only the key's list, and reading takes no lock.
+ *
+ */
+final class BookIdIndex<K>
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int[] NO_IDS = new int[0];
+
+  private final ConcurrentMap<K, Postings> postings_;
+
+
+
+  // ==========================================================================
+  // Constructor
+  // ==========================================================================
+
+
+
+  BookIdIndex()
+  {
+    postings_ = new ConcurrentHashMap<K, Postings>();
+  }
+
+
+
+  // ==========================================================================
+  // Methods
+  // ==========================================================================
+
+
+
+  void add(K key, int id)
+  {
+    // computeIfAbsent is atomic, so two threads adding the first book for a
+    // key cannot each create a list and lose the other's id
+    Postings postings = postings_.computeIfAbsent(key, k -> new Postings());
+    synchronized(postings) {
+      postings.add(id);
+    }
+  }
+
+
+
+  // The key's ids, or none if no book has been added with it
+  int[] get(K key)
+  {
+    Postings postings = postings_.get(key);
+    if(postings == null) {
+      return NO_IDS;
+    }
+    // Size is read before the array; see Postings
+    int size = postings.size();
+    return Arrays.copyOf(postings.entries(), size);
+  }
+
+
+
+  // The key's ids that are also set in among, e.g. the ids of books in
+  // some states
+  int[] get(K key, BitSet among)
+  {
+    Postings postings = postings_.get(key);
+    if(postings == null) {
+      return NO_IDS;
+    }
+    int size = postings.size();
+    int[] entries = postings.entries();
+    int[] ids = new int[size];
+    int count = 0;
+
+    for(int i = 0; i < size; i++) {
+      if(among.get(entries[i])) {
+        ids[count++] = entries[i];
+      }
+    }
+    return Arrays.copyOf(ids, count);
+  }
+}
@@ -0,0 +1,525 @@
+package library.daos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * BookSearchIndex class
+ *
+ * A full-text inverted index over book titles and authors. Titles and
+ * authors are split into lower case words (runs of letters and digits), and
+ * each word keeps a posting list of the ids of the books it appears in.
+ *
+ * search() returns the ids of books containing every word of the query,
+ * best match first. A query word ending in '*' matches any word starting
+ * with it. Matches are ranked by the rarity of the matched words (a word in
+ * few books counts for more), with a title match counting for more than an
+ * author match and an exact word for more than a prefix.
+ *
+ * Each posting is one int: the book id shifted left two bits, with the low
+ * bits saying whether the word is in the title, the author or both. Posting
+ * lists are kept in id order so that queries can intersect them with a
+ * merge rather than a map. Words are looked up in a hash map, and are also
+ * held in a sorted map so that the words with a prefix are a range of it.
+ *
+ * Adding is synchronized; searching takes no lock.
+ *
+ */
+public class BookSearchIndex
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int IN_TITLE = 1;
+  private static final int IN_AUTHOR = 2;
+  private static final int FIELD_BITS = 2;
+  private static final int MAX_ID = Integer.MAX_VALUE >>> FIELD_BITS;
+
+  private static final float TITLE_WEIGHT = 2.0f;
+  private static final float AUTHOR_WEIGHT = 1.0f;
+  private static final float PREFIX_WEIGHT = 0.5f;
+
+  // A prefix union over more than one posting per this many ids is marked
+  // in an array rather than sorted
+  private static final int DENSE_UNION_RATIO = 16;
+
+  private final ConcurrentHashMap<String, Postings> postings_;
+  private final ConcurrentSkipListMap<String, Postings> sortedPostings_;
+  private volatile int bookCount_;
+  private volatile int maxId_;
+
+
+
+  // ==========================================================================
+  // Constructor
+  // ==========================================================================
+
+
+
+  public BookSearchIndex()
+  {
+    postings_ = new ConcurrentHashMap<String, Postings>();
+    sortedPostings_ = new ConcurrentSkipListMap<String, Postings>();
+    bookCount_ = 0;
+    maxId_ = 0;
+  }
+
+
+
+  // ==========================================================================
+  // Index Methods
+  // ==========================================================================
+
+
+
+  public synchronized void add(int id, String author, String title)
+  {
+    if(id <= 0 || id > MAX_ID) {
+      throw new IllegalArgumentException("BookSearchIndex: add: value for "
+                                         + "'id' must be between 1 and "
+                                         + MAX_ID);
+    }
+
+    // Each word is posted once per book, with the fields it appears in
+    Map<String, Integer> words = new LinkedHashMap<String, Integer>();
+    for(String word: tokenize(title)) {
+      words.merge(word, IN_TITLE, (a, b) -> a | b);
+    }
+    for(String word: tokenize(author)) {
+      words.merge(word, IN_AUTHOR, (a, b) -> a | b);
+    }
+
+    for(Map.Entry<String, Integer> word: words.entrySet()) {
+      Postings postings = postings_.get(word.getKey());
+      if(postings == null) {
+        postings = new Postings();
+        postings_.put(word.getKey(), postings);
+        sortedPostings_.put(word.getKey(), postings);
+      }
+      postings.add((id << FIELD_BITS) | word.getValue());
+    }
+    maxId_ = Math.max(maxId_, id);
+    bookCount_++;
+  }
+
+
+
+  public int size()
+  {
+    return bookCount_;
+  }
+
+
+
+  // ==========================================================================
+  // Search Methods
+  // ==========================================================================
+
+
+
+  // Returns up to limit ids of the books matching every word of query, best
+  // match first, with ties in id order
+  public int[] search(String query, int limit)
+  {
+    if(query == null) {
+      throw new IllegalArgumentException("BookSearchIndex: search: value for "
+                                         + "'query' cannot be null");
+    }
+    if(limit < 0) {
+      throw new IllegalArgumentException("BookSearchIndex: search: value for "
+                                         + "'limit' cannot be negative");
+    }
+
+    List<Matches> terms = new ArrayList<Matches>();
+    for(String term: parseQuery(query)) {
+      Matches matches = matchTerm(term);
+      if(matches.size == 0) {
+        return new int[0];
+      }
+      terms.add(matches);
+    }
+    if(terms.isEmpty() || limit == 0) {
+      return new int[0];
+    }
+
+    // Intersect from the rarest term, so the candidates only shrink
+    terms.sort((a, b) -> Integer.compare(a.size, b.size));
+    Matches result = terms.get(0);
+    for(int i = 1; i < terms.size() && result.size > 0; i++) {
+      result = intersect(result, terms.get(i));
+    }
+    return topIds(result, limit);
+  }
+
+
+
+  // ==========================================================================
+  // Query Methods
+  // ==========================================================================
+
+
+
+  // Query words in order, without repeats. A trailing '*' is kept to mark a
+  // prefix; a '*' alone is dropped.
+  private static List<String> parseQuery(String query)
+  {
+    List<String> terms = new ArrayList<String>();
+    String lower = query.toLowerCase(Locale.ROOT);
+    int start = -1;
+
+    for(int i = 0; i <= lower.length(); i++) {
+      char c = i < lower.length() ? lower.charAt(i) : ' ';
+      if(Character.isLetterOrDigit(c)) {
+        if(start < 0) {
+          start = i;
+        }
+      }
+      else if(start >= 0) {
+        String term = lower.substring(start, i);
+        if(c == '*') {
+          term = term + '*';
+        }
+        if(!terms.contains(term)) {
+          terms.add(term);
+        }
+        start = -1;
+      }
+    }
+    return terms;
+  }
+
+
+
+  private Matches matchTerm(String term)
+  {
+    if(!term.endsWith("*")) {
+      Postings postings = postings_.get(term);
+      if(postings == null) {
+        return new Matches(0);
+      }
+      return fromPostings(postings, 1.0f);
+    }
+
+    // Every word starting with the prefix: the range [prefix, prefix + max)
+    String prefix = term.substring(0, term.length() - 1);
+    NavigableMap<String, Postings> words =
+        sortedPostings_.subMap(prefix, true, prefix + Character.MAX_VALUE,
+                               false);
+    if(words.isEmpty()) {
+      return new Matches(0);
+    }
+    if(words.firstKey().equals(words.lastKey())) {
+      float weight = words.firstKey().equals(prefix) ? 1.0f : PREFIX_WEIGHT;
+      return fromPostings(words.firstEntry().getValue(), weight);
+    }
+
+    // Union of the words' postings, keeping each book's best score. Small
+    // unions are sorted; large ones are marked in an array by id, which
+    // costs one pass over the postings rather than a sort.
+    List<Matches> parts = new ArrayList<Matches>();
+    int count = 0;
+    for(Map.Entry<String, Postings> word: words.entrySet()) {
+      float weight = word.getKey().equals(prefix) ? 1.0f : PREFIX_WEIGHT;
+      Matches part = fromPostings(word.getValue(), weight);
+      parts.add(part);
+      count += part.size;
+    }
+    if(count > maxId_ / DENSE_UNION_RATIO) {
+      return denseUnion(parts, count);
+    }
+    return sortedUnion(parts, count);
+  }
+
+
+
+  // Packs (id, score) pairs into longs, id in the high half, sorts them and
+  // merges repeats
+  private static Matches sortedUnion(List<Matches> parts, int count)
+  {
+    long[] pairs = new long[count];
+    int next = 0;
+    for(Matches part: parts) {
+      for(int i = 0; i < part.size; i++) {
+        pairs[next++] = ((long) part.ids[i] << 32)
+                        | Float.floatToIntBits(part.scores[i]);
+      }
+    }
+    Arrays.sort(pairs);
+
+    Matches matches = new Matches(count);
+    for(int i = 0; i < count; i++) {
+      int id = (int) (pairs[i] >>> 32);
+      float score = Float.intBitsToFloat((int) pairs[i]);
+      if(matches.size > 0 && matches.ids[matches.size - 1] == id) {
+        float best = matches.scores[matches.size - 1];
+        matches.scores[matches.size - 1] = Math.max(best, score);
+      }
+      else {
+        matches.ids[matches.size] = id;
+        matches.scores[matches.size] = score;
+        matches.size++;
+      }
+    }
+    return matches;
+  }
+
+
+
+  private static Matches denseUnion(List<Matches> parts, int count)
+  {
+    int maxId = 0;
+    for(Matches part: parts) {
+      if(part.size > 0) {
+        maxId = Math.max(maxId, part.ids[part.size - 1]);
+      }
+    }
+    // Scores are positive, so zero marks an id with no match
+    float[] scores = new float[maxId + 1];
+    for(Matches part: parts) {
+      for(int i = 0; i < part.size; i++) {
+        int id = part.ids[i];
+        scores[id] = Math.max(scores[id], part.scores[i]);
+      }
+    }
+
+    Matches matches = new Matches(count);
+    for(int id = 1; id <= maxId; id++) {
+      if(scores[id] > 0) {
+        matches.ids[matches.size] = id;
+        matches.scores[matches.size] = scores[id];
+        matches.size++;
+      }
+    }
+    return matches;
+  }
+
+
+
+  private Matches fromPostings(Postings postings, float weight)
+  {
+    int size = postings.size();
+    int[] entries = postings.entries();
+    float idf = idf(size);
+    Matches matches = new Matches(size);
+
+    for(int i = 0; i < size; i++) {
+      matches.ids[i] = entries[i] >>> FIELD_BITS;
+      matches.scores[i] = idf * weight * fieldWeight(entries[i]);
+    }
+    matches.size = size;
+    return matches;
+  }
+
+
+
+  // Ids in both, with their scores summed. Steps through the smaller list
+  // and gallops through the larger, so a rare term against a common one
+  // costs little more than the rare term's length.
+  private static Matches intersect(Matches small, Matches large)
+  {
+    Matches result = new Matches(small.size);
+    int from = 0;
+
+    for(int i = 0; i < small.size && from < large.size; i++) {
+      int id = small.ids[i];
+      from = gallop(large.ids, from, large.size, id);
+      if(from < large.size && large.ids[from] == id) {
+        result.ids[result.size] = id;
+        result.scores[result.size] = small.scores[i] + large.scores[from];
+        result.size++;
+        from++;
+      }
+    }
+    return result;
+  }
+
+
+
+  // The first index from 'from' whose id is >= id
+  private static int gallop(int[] ids, int from, int size, int id)
+  {
+    int step = 1;
+    int high = from;
+    while(high < size && ids[high] < id) {
+      from = high + 1;
+      high += step;
+      step <<= 1;
+    }
+    int index = Arrays.binarySearch(ids, from, Math.min(high + 1, size), id);
+    return index >= 0 ? index : -index - 1;
+  }
+
+
+
+  // Selects the limit best scores with a bounded min-heap of positions
+  private static int[] topIds(Matches matches, int limit)
+  {
+    int k = Math.min(limit, matches.size);
+    int[] heap = new int[k];
+    int heapSize = 0;
+
+    for(int i = 0; i < matches.size; i++) {
+      if(heapSize < k) {
+        heap[heapSize] = i;
+        siftUp(heap, heapSize++, matches);
+      }
+      else if(better(matches, i, heap[0])) {
+        heap[0] = i;
+        siftDown(heap, heapSize, matches);
+      }
+    }
+
+    int[] ids = new int[heapSize];
+    for(int i = heapSize - 1; i >= 0; i--) {
+      ids[i] = matches.ids[heap[0]];
+      heap[0] = heap[i];
+      siftDown(heap, i, matches);
+    }
+    return ids;
+  }
+
+
+
+  // Higher score first, then lower id
+  private static boolean better(Matches matches, int a, int b)
+  {
+    if(matches.scores[a] != matches.scores[b]) {
+      return matches.scores[a] > matches.scores[b];
+    }
+    return matches.ids[a] < matches.ids[b];
+  }
+
+
+
+  private static void siftUp(int[] heap, int index, Matches matches)
+  {
+    while(index > 0) {
+      int parent = (index - 1) / 2;
+      if(!better(matches, heap[parent], heap[index])) {
+        return;
+      }
+      swap(heap, parent, index);
+      index = parent;
+    }
+  }
+
+
+
+  private static void siftDown(int[] heap, int size, Matches matches)
+  {
+    int index = 0;
+    while(true) {
+      int worst = index;
+      int left = 2 * index + 1;
+      int right = left + 1;
+      if(left < size && better(matches, heap[worst], heap[left])) {
+        worst = left;
+      }
+      if(right < size && better(matches, heap[worst], heap[right])) {
+        worst = right;
+      }
+      if(worst == index) {
+        return;
+      }
+      swap(heap, index, worst);
+      index = worst;
+    }
+  }
+
+
+
+  private static void swap(int[] heap, int a, int b)
+  {
+    int temp = heap[a];
+    heap[a] = heap[b];
+    heap[b] = temp;
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  // Lower case runs of letters and digits
+  static List<String> tokenize(String text)
+  {
+    List<String> words = new ArrayList<String>();
+    if(text == null) {
+      return words;
+    }
+
+    String lower = text.toLowerCase(Locale.ROOT);
+    int start = -1;
+    for(int i = 0; i <= lower.length(); i++) {
+      if(i < lower.length() && Character.isLetterOrDigit(lower.charAt(i))) {
+        if(start < 0) {
+          start = i;
+        }
+      }
+      else if(start >= 0) {
+        words.add(lower.substring(start, i));
+        start = -1;
+      }
+    }
+    return words;
+  }
+
+
+
+  private float idf(int documentFrequency)
+  {
+    return (float) Math.log(1.0 + (double) bookCount_ / documentFrequency);
+  }
+
+
+
+  private static float fieldWeight(int entry)
+  {
+    float weight = 0;
+    if((entry & IN_TITLE) != 0) {
+      weight += TITLE_WEIGHT;
+    }
+    if((entry & IN_AUTHOR) != 0) {
+      weight += AUTHOR_WEIGHT;
+    }
+    return weight;
+  }
+
+
+
+  // ==========================================================================
+  // Posting Lists
+  // ==========================================================================
+
+
+
+  // Ids matching one query term, in id order, with their scores
+  private static final class Matches
+  {
+    private final int[] ids;
+    private final float[] scores;
+    private int size;
+
+
+
+    private Matches(int capacity)
+    {
+      ids = new int[capacity];
+      scores = new float[capacity];
+      size = 0;
+    }
+  }
+}
@@ -0,0 +1,189 @@
+package library.daos;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import library.interfaces.entities.EBookState;
+import library.interfaces.entities.IBook;
+import library.interfaces.entities.IBookStateListener;
+
+/**
+ * BookStateIndex class
+ *
+ * A bitmap of book ids for each EBookState, with a count per state, so that
+ * "how many books are ON_LOAN" is O(1) and the books in a state are found
+ * without asking every book for its state. ids() returns a BitSet, so
+ * filters combine with and() and or(): ids(AVAILABLE) and-ed with a bitmap
+ * of one author's books gives that author's available books.
+ *
+ * Books report their changes through IBookStateListener. The index does
+ * not trust the order reports arrive in from different threads: on every
+ * report it reads the book's current state, so the last report handled
+ * always leaves the book in its latest state.
+ *
+ * Updates are serialised on the index and change one bit in each of at
+ * most two bitmaps in place, so an update costs the same whatever the
+ * number of books (bar the occasional grow). Readers never take the lock:
+ * counts are kept in an AtomicIntegerArray and the bitmaps are words in an
+ * AtomicLongArray per state, so every change is visible as soon as it is
+ * made. ids() returns a copy, read word by word; an id moved while it is
+ * read may appear under both of its states or neither.
+ *
+ */
+public class BookStateIndex implements IBookStateListener
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final EBookState[] STATES = EBookState.values();
+  private static final byte NO_STATE = -1;
+
+  private final AtomicIntegerArray counts_;
+
+  // The bitmap words of each state, by state ordinal. Written only while
+  // the index is locked; replaced as a whole, with every word copied, when
+  // the bitmaps grow
+  private volatile AtomicLongArray[] words_;
+
+  // The state each id is indexed under, by id, so a change clears one bit
+  private byte[] states_;
+
+
+
+  // ==========================================================================
+  // Constructor
+  // ==========================================================================
+
+
+
+  public BookStateIndex()
+  {
+    AtomicLongArray[] words = new AtomicLongArray[STATES.length];
+    for(int i = 0; i < STATES.length; i++) {
+      words[i] = new AtomicLongArray(1);
+    }
+    words_ = words;
+    counts_ = new AtomicIntegerArray(STATES.length);
+    states_ = new byte[16];
+    Arrays.fill(states_, NO_STATE);
+  }
+
+
+
+  // ==========================================================================
+  // Update Methods
+  // ==========================================================================
+
+
+
+  // Indexes book under its current state, read while holding the lock
+  @Override
+  public synchronized void bookStateChanged(IBook book)
+  {
+    update(book.getID(), book.getState());
+  }
+
+
+
+  // Indexes id under state, or under no state if state is null
+  public synchronized void update(int id, EBookState state)
+  {
+    if(id <= 0) {
+      throw new IllegalArgumentException("BookStateIndex: update: value for "
+                                         + "'id' must be a positive integer");
+    }
+    if(id >= states_.length) {
+      int length = states_.length;
+      int capacity = Math.max(id + 1, length + (length >> 1));
+      states_ = Arrays.copyOf(states_, capacity);
+      Arrays.fill(states_, length, states_.length, NO_STATE);
+    }
+
+    byte old = states_[id];
+    byte now = state == null ? NO_STATE : (byte) state.ordinal();
+    if(old == now) {
+      return;
+    }
+
+    AtomicLongArray[] words = words_;
+    int word = id >>> 6;
+    long bit = 1L << id;
+    if(word >= words[0].length()) {
+      words = grow(words, word + 1);
+    }
+    if(old != NO_STATE) {
+      words[old].set(word, words[old].get(word) & ~bit);
+      counts_.decrementAndGet(old);
+    }
+    if(now != NO_STATE) {
+      words[now].set(word, words[now].get(word) | bit);
+      counts_.incrementAndGet(now);
+    }
+    states_[id] = now;
+  }
+
+
+
+  // Must be called holding the index's lock. Copies every state's words
+  // into arrays of at least the given length and publishes them.
+  private AtomicLongArray[] grow(AtomicLongArray[] words, int length)
+  {
+    int capacity = Math.max(length, words[0].length() * 2);
+    AtomicLongArray[] grown = new AtomicLongArray[words.length];
+    for(int state = 0; state < words.length; state++) {
+      grown[state] = new AtomicLongArray(capacity);
+      for(int i = 0; i < words[state].length(); i++) {
+        grown[state].set(i, words[state].get(i));
+      }
+    }
+    words_ = grown;
+    return grown;
+  }
+
+
+
+  // ==========================================================================
+  // Query Methods
+  // ==========================================================================
+
+
+
+  public int count(EBookState state)
+  {
+    if(state == null) {
+      throw new IllegalArgumentException("BookStateIndex: count: value for "
+                                         + "'state' cannot be null");
+    }
+    return counts_.get(state.ordinal());
+  }
+
+
+
+  // The ids of the books in any of the given states
+  public BitSet ids(EBookState... states)
+  {
+    if(states == null || states.length == 0) {
+      throw new IllegalArgumentException("BookStateIndex: ids: value for "
+                                         + "'states' cannot be null or empty");
+    }
+
+    AtomicLongArray[] words = words_;
+    long[] union = new long[words[0].length()];
+    for(EBookState state: states) {
+      if(state == null) {
+        throw new IllegalArgumentException("BookStateIndex: ids: value for "
+                                           + "'states' cannot contain null");
+      }
+      AtomicLongArray stateWords = words[state.ordinal()];
+      for(int i = 0; i < union.length; i++) {
+        union[i] |= stateWords.get(i);
+      }
+    }
+    return BitSet.valueOf(union);
+  }
+}
@@ -0,0 +1,569 @@
+package library.daos;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import library.interfaces.daos.IBookDAO;
+import library.interfaces.daos.IMemberDAO;
+
+/**
+ * Loads books or members into a DAO from a CSV or TSV file, for bringing a
+ * whole branch's catalog or membership in at once.
+ *
+ * The file is read by the calling thread and cut into chunks of rows, which
+ * are parsed and checked on a pool of threads. The rows of each parsed
+ * chunk are then added to the DAO one addBook or addMember call at a time,
+ * in file order, so ids are allocated in the same order as the rows appear.
+ * A bounded number of chunks is in flight at once, so memory use does not
+ * grow with the size of the file.
+ *
+ * Rows are checked with the same rules as addBook and addMember (every
+ * field must be present and not empty), before they reach the DAO, so a
+ * rejected row does not use up an id. A row the DAO itself refuses, with
+ * any RuntimeException, is also rejected rather than ending the import.
+ * Every rejected row is reported with the number of the line it starts on.
+ *
+ * Files ending in .tsv are tab separated; any other file is comma
+ * separated. Fields may be enclosed in double quotes, with a doubled quote
+ * standing for a quote inside the field. A quoted field may run over line
+ * ends, up to MAX_LINES_PER_ROW lines; the line ends are kept in the field
+ * as '\n'. A quote still open after that many lines, or at the end of the
+ * file, rejects the line it was opened on, and the lines after it are read
+ * as rows of their own. An optional first line naming the columns is
+ * skipped, as are blank lines. The columns are, in order:
+ *   - books: author, title, callNumber
+ *   - members: firstName, lastName, contactPhone, emailAddress
+ */
+public class BulkImporter
+{
+  //===========================================================================
+  // Variables
+  //===========================================================================
+
+  public static final int DEFAULT_CHUNK_SIZE = 10000;
+  public static final int MAX_LINES_PER_ROW = 100;
+
+  private static final String[] BOOK_COLUMNS =
+    { "author", "title", "callNumber" };
+  private static final String[] MEMBER_COLUMNS =
+    { "firstName", "lastName", "contactPhone", "emailAddress" };
+
+  private final int threads_;
+  private final int chunkSize_;
+
+  //===========================================================================
+  // Constructors
+  //===========================================================================
+
+  /**
+   * Creates a BulkImporter that parses on one thread per available processor,
+   * in chunks of DEFAULT_CHUNK_SIZE rows.
+   */
+  public BulkImporter()
+  {
+    this(Runtime.getRuntime().availableProcessors(), DEFAULT_CHUNK_SIZE);
+  }
+
+
+
+  /**
+   * Creates a BulkImporter with the given number of parsing threads and
+   * rows per chunk.
+   * @param threads int The number of threads to parse on.
+   * @param chunkSize int The number of rows parsed as one task.
+   * @throws IllegalArgumentException if threads or chunkSize is less than 1.
+   */
+  public BulkImporter(int threads, int chunkSize)
+    throws IllegalArgumentException
+  {
+    if (threads < 1 || chunkSize < 1) {
+      throw new IllegalArgumentException("Cannot create a BulkImporter with " +
+                                         "fewer than 1 thread or row per " +
+                                         "chunk.");
+    }
+    threads_ = threads;
+    chunkSize_ = chunkSize;
+  }
+
+  //===========================================================================
+  // Import methods
+  //===========================================================================
+
+  /**
+   * Adds a book to bookDAO for every valid row of file.
+   * @param file Path A CSV or TSV file of author, title and call number.
+   * @param bookDAO IBookDAO The DAO to add the books to.
+   * @return ImportReport The number of books added and the rejected rows.
+   * @throws IllegalArgumentException if file or bookDAO is null.
+   * @throws IOException if file cannot be read.
+   */
+  public ImportReport importBooks(Path file, IBookDAO bookDAO)
+    throws IllegalArgumentException, IOException
+  {
+    if (bookDAO == null) {
+      throw new IllegalArgumentException("Cannot import books into a null " +
+                                         "BookDAO.");
+    }
+    return importRows(file, BOOK_COLUMNS,
+                      fields -> bookDAO.addBook(fields[0], fields[1],
+                                                fields[2]));
+  }
+
+
+
+  /**
+   * Adds a member to memberDAO for every valid row of file.
+   * @param file Path A CSV or TSV file of first name, last name, contact
+   * phone and email address.
+   * @param memberDAO IMemberDAO The DAO to add the members to.
+   * @return ImportReport The number of members added and the rejected rows.
+   * @throws IllegalArgumentException if file or memberDAO is null.
+   * @throws IOException if file cannot be read.
+   */
+  public ImportReport importMembers(Path file, IMemberDAO memberDAO)
+    throws IllegalArgumentException, IOException
+  {
+    if (memberDAO == null) {
+      throw new IllegalArgumentException("Cannot import members into a null " +
+                                         "MemberDAO.");
+    }
+    return importRows(file, MEMBER_COLUMNS,
+                      fields -> memberDAO.addMember(fields[0], fields[1],
+                                                    fields[2], fields[3]));
+  }
+
+  //===========================================================================
+  // Pipeline
+  //===========================================================================
+
+  private ImportReport importRows(Path file, String[] columns,
+                                  Consumer<String[]> insert)
+    throws IOException
+  {
+    if (file == null) {
+      throw new IllegalArgumentException("Cannot import from a null file.");
+    }
+    char delimiter = file.toString().toLowerCase().endsWith(".tsv") ? '\t'
+                                                                     : ',';
+    ImportReport report = new ImportReport();
+    ExecutorService parsers = Executors.newFixedThreadPool(threads_);
+    Deque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+
+    try (BufferedReader reader = Files.newBufferedReader(
+                                   file, StandardCharsets.UTF_8)) {
+      RowReader rowReader = new RowReader(reader, delimiter);
+      List<String> rows = new ArrayList<>(chunkSize_);
+      int[] lineNumbers = new int[chunkSize_];
+      String row;
+      while ((row = rowReader.readRow()) != null) {
+        int lineNumber = rowReader.getLineNumber();
+        if (lineNumber == 1 && isHeader(row, delimiter, columns)) {
+          continue;
+        }
+        lineNumbers[rows.size()] = lineNumber;
+        rows.add(row);
+        if (rows.size() == chunkSize_) {
+          inFlight.add(parsers.submit(new ParseTask(rows, lineNumbers,
+                                                    delimiter, columns)));
+          rows = new ArrayList<>(chunkSize_);
+          lineNumbers = new int[chunkSize_];
+          // Keep every thread busy while the oldest chunk is inserted, but
+          // no more than that in memory
+          if (inFlight.size() > 2 * threads_) {
+            insertChunk(inFlight.remove(), insert, report);
+          }
+        }
+      }
+      if (!rows.isEmpty()) {
+        inFlight.add(parsers.submit(new ParseTask(rows, lineNumbers,
+                                                  delimiter, columns)));
+      }
+      while (!inFlight.isEmpty()) {
+        insertChunk(inFlight.remove(), insert, report);
+      }
+    }
+    finally {
+      parsers.shutdownNow();
+    }
+    return report;
+  }
+
+
+
+  // Adds the rows of a parsed chunk to the DAO, recording the rejected rows
+  // in line order
+  private void insertChunk(Future<ParsedChunk> future,
+                           Consumer<String[]> insert, ImportReport report)
+    throws IOException
+  {
+    ParsedChunk chunk = waitFor(future);
+    List<ImportReport.RejectedRow> rejected = new ArrayList<>();
+    int imported = 0;
+
+    for (int i = 0; i < chunk.rows.length; i++) {
+      String reason = chunk.reasons[i];
+      if (reason == null && chunk.rows[i] != null) {
+        try {
+          insert.accept(chunk.rows[i]);
+          imported++;
+        }
+        catch (RuntimeException exception) {
+          // Whatever the DAO refuses a row with, only that row is rejected
+          reason = (exception.getMessage() != null) ? exception.getMessage()
+                                                    : exception.toString();
+        }
+      }
+      if (reason != null) {
+        rejected.add(new ImportReport.RejectedRow(chunk.lineNumbers[i],
+                                                  chunk.lines.get(i),
+                                                  reason));
+      }
+    }
+    report.addImported(imported);
+    report.addRejected(rejected);
+  }
+
+
+
+  private ParsedChunk waitFor(Future<ParsedChunk> future)
+    throws IOException
+  {
+    try {
+      return future.get();
+    }
+    catch (InterruptedException exception) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted during import.");
+    }
+    catch (ExecutionException exception) {
+      Throwable cause = exception.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException)cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  //===========================================================================
+  // Parsing
+  //===========================================================================
+
+  private static boolean isHeader(String line, char delimiter,
+                                  String[] columns)
+  {
+    try {
+      String[] fields = parseLine(line, delimiter, columns.length);
+      for (int i = 0; i < columns.length; i++) {
+        if (!fields[i].trim().equalsIgnoreCase(columns[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+    catch (IllegalArgumentException exception) {
+      return false;
+    }
+  }
+
+
+
+  /**
+   * Splits a line into exactly fieldCount fields, removing the quotes from
+   * quoted fields.
+   * @param line String The line to split.
+   * @param delimiter char The field separator.
+   * @param fieldCount int The number of fields the line must have.
+   * @return String[] The fields.
+   * @throws IllegalArgumentException if the line does not have fieldCount
+   * fields or a quoted field is not closed.
+   */
+  static String[] parseLine(String line, char delimiter, int fieldCount)
+    throws IllegalArgumentException
+  {
+    String[] fields = new String[fieldCount];
+    int count = 0;
+    int position = 0;
+    int length = line.length();
+    StringBuilder quoted = null;
+
+    while (true) {
+      String field;
+      if (position < length && line.charAt(position) == '"') {
+        if (quoted == null) {
+          quoted = new StringBuilder();
+        }
+        quoted.setLength(0);
+        position++;
+        while (true) {
+          int quote = line.indexOf('"', position);
+          if (quote < 0) {
+            throw new IllegalArgumentException("Quoted field " + (count + 1) +
+                                               " is not closed.");
+          }
+          quoted.append(line, position, quote);
+          position = quote + 1;
+          if (position < length && line.charAt(position) == '"') {
+            quoted.append('"');
+            position++;
+          }
+          else {
+            break;
+          }
+        }
+        if (position < length && line.charAt(position) != delimiter) {
+          throw new IllegalArgumentException("Unexpected text after quoted " +
+                                             "field " + (count + 1) + ".");
+        }
+        field = quoted.toString();
+      }
+      else {
+        int end = line.indexOf(delimiter, position);
+        if (end < 0) {
+          end = length;
+        }
+        field = line.substring(position, end);
+        position = end;
+      }
+
+      if (count == fieldCount) {
+        throw new IllegalArgumentException("Expected " + fieldCount +
+                                           " fields but found more.");
+      }
+      fields[count++] = field;
+      if (position >= length) {
+        break;
+      }
+      position++; // past the delimiter
+      if (position == length) {
+        // A trailing delimiter ends with an empty field
+        if (count == fieldCount) {
+          throw new IllegalArgumentException("Expected " + fieldCount +
+                                             " fields but found more.");
+        }
+        fields[count++] = "";
+        break;
+      }
+    }
+
+    if (count != fieldCount) {
+      throw new IllegalArgumentException("Expected " + fieldCount +
+                                         " fields but found " + count + ".");
+    }
+    return fields;
+  }
+
+  //===========================================================================
+  // Row reader
+  //===========================================================================
+
+  // Reads the file a row at a time: one line, or more while a quoted field
+  // is open, joined with '\n'. When a quote is left open, the row's first
+  // line is returned alone, for parseLine to reject, and the lines read
+  // after it are read again.
+  private static class RowReader
+  {
+    private final BufferedReader reader_;
+    private final char delimiter_;
+    private final Deque<String> readAgain_;
+    private int nextLineNumber_;
+    private int lineNumber_;
+
+
+
+    private RowReader(BufferedReader reader, char delimiter)
+    {
+      reader_ = reader;
+      delimiter_ = delimiter;
+      readAgain_ = new ArrayDeque<>();
+      nextLineNumber_ = 1;
+      lineNumber_ = 0;
+    }
+
+
+
+    // The number of the line the last row read starts on
+    private int getLineNumber()
+    {
+      return lineNumber_;
+    }
+
+
+
+    private String readRow()
+      throws IOException
+    {
+      int firstLineNumber = nextLineNumber_;
+      String first = readLine();
+      if (first == null) {
+        return null;
+      }
+      lineNumber_ = firstLineNumber;
+      if (!endsInQuotes(first, false)) {
+        return first;
+      }
+
+      List<String> lines = new ArrayList<>();
+      lines.add(first);
+      boolean inQuotes = true;
+      while (inQuotes && lines.size() < MAX_LINES_PER_ROW) {
+        String line = readLine();
+        if (line == null) {
+          break;
+        }
+        lines.add(line);
+        inQuotes = endsInQuotes(line, true);
+      }
+      if (!inQuotes) {
+        return String.join("\n", lines);
+      }
+
+      for (int i = lines.size() - 1; i > 0; i--) {
+        readAgain_.push(lines.get(i));
+      }
+      nextLineNumber_ = firstLineNumber + 1;
+      return first;
+    }
+
+
+
+    private String readLine()
+      throws IOException
+    {
+      String line = readAgain_.isEmpty() ? reader_.readLine()
+                                         : readAgain_.pop();
+      if (line != null) {
+        nextLineNumber_++;
+      }
+      return line;
+    }
+
+
+
+    // Follows the quoting rules of parseLine over one line, starting inside
+    // a quoted field if inQuotes, and returns whether the line ends inside one
+    private boolean endsInQuotes(String line, boolean inQuotes)
+    {
+      boolean fieldStart = !inQuotes;
+      for (int i = 0; i < line.length(); i++) {
+        char c = line.charAt(i);
+        if (inQuotes) {
+          if (c == '"') {
+            if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+              i++;
+            }
+            else {
+              inQuotes = false;
+            }
+          }
+        }
+        else if (c == delimiter_) {
+          fieldStart = true;
+        }
+        else {
+          inQuotes = fieldStart && c == '"';
+          fieldStart = false;
+        }
+      }
+      return inQuotes;
+    }
+  }
+
+  //===========================================================================
+  // Parse task
+  //===========================================================================
+
+  // The rows of a chunk, by position in the chunk. A row is either parsed
+  // (rows[i] set), rejected (reasons[i] set) or blank (neither set).
+  private static class ParsedChunk
+  {
+    private final List<String> lines;
+    private final int[] lineNumbers;
+    private final String[][] rows;
+    private final String[] reasons;
+
+
+
+    private ParsedChunk(List<String> lines, int[] lineNumbers)
+    {
+      this.lines = lines;
+      this.lineNumbers = lineNumbers;
+      rows = new String[lines.size()][];
+      reasons = new String[lines.size()];
+    }
+  }
+
+
+
+  private static class ParseTask
+    implements Callable<ParsedChunk>
+  {
+    private final List<String> lines_;
+    private final int[] lineNumbers_;
+    private final char delimiter_;
+    private final String[] columns_;
+
+
+
+    private ParseTask(List<String> lines, int[] lineNumbers, char delimiter,
+                      String[] columns)
+    {
+      lines_ = lines;
+      lineNumbers_ = lineNumbers;
+      delimiter_ = delimiter;
+      columns_ = columns;
+    }
+
+
+
+    @Override
+    public ParsedChunk call()
+    {
+      ParsedChunk chunk = new ParsedChunk(lines_, lineNumbers_);
+
+      for (int i = 0; i < lines_.size(); i++) {
+        String line = lines_.get(i);
+        if (line.trim().isEmpty()) {
+          continue;
+        }
+        try {
+          String[] fields = parseLine(line, delimiter_, columns_.length);
+          chunk.reasons[i] = checkFields(fields);
+          if (chunk.reasons[i] == null) {
+            chunk.rows[i] = fields;
+          }
+        }
+        catch (IllegalArgumentException exception) {
+          chunk.reasons[i] = exception.getMessage();
+        }
+      }
+      return chunk;
+    }
+
+
+
+    // The rules of addBook and addMember: every field present and not empty
+    private String checkFields(String[] fields)
+    {
+      for (int i = 0; i < fields.length; i++) {
+        if (fields[i].isEmpty()) {
+          return "Value for '" + columns_[i] + "' cannot be empty.";
+        }
+      }
+      return null;
+    }
+  }
+}
@@ -0,0 +1,260 @@
+package library.daos;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * CallNumberIndex class
+ *
+ * Book ids in shelf order, for shelf reading, pull lists and finding what
+ * is shelved near a book. Books are ordered by their normalized call number
+ * and then by id, in a sorted concurrent set, so a range or the neighbours
+ * of a position cost O(log n + k) for k books.
+ *
+ * Call numbers are normalized so that they sort as they are shelved rather
+ * than as plain strings:
+ *   - letters are upper cased and runs of spaces become one space
+ *   - a run of digits is compared as a whole number ("82" before "813"),
+ *     unless it follows a '.', when it is compared digit by digit as a
+ *     decimal fraction (".023" before ".5" before ".54")
+ *
+ * Adding and reading take no lock.
+ *
+ */
+public class CallNumberIndex
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private final ConcurrentSkipListSet<Entry> entries_;
+
+
+
+  // ==========================================================================
+  // Constructor
+  // ==========================================================================
+
+
+
+  public CallNumberIndex()
+  {
+    entries_ = new ConcurrentSkipListSet<Entry>();
+  }
+
+
+
+  // ==========================================================================
+  // Index Methods
+  // ==========================================================================
+
+
+
+  public void add(int id, String callNumber)
+  {
+    if(callNumber == null) {
+      throw new IllegalArgumentException("CallNumberIndex: add: value for "
+                                         + "'callNumber' cannot be null");
+    }
+    entries_.add(new Entry(normalize(callNumber), id));
+  }
+
+
+
+  public int size()
+  {
+    return entries_.size();
+  }
+
+
+
+  // ==========================================================================
+  // Query Methods
+  // ==========================================================================
+
+
+
+  // Ids of the books shelved from 'from' to 'to', both included, in shelf
+  // order. Empty if 'from' is shelved after 'to'.
+  public int[] range(String from, String to)
+  {
+    if(from == null || to == null) {
+      throw new IllegalArgumentException("CallNumberIndex: range: values for "
+                                         + "'from' and 'to' cannot be null");
+    }
+
+    Entry first = new Entry(normalize(from), Integer.MIN_VALUE);
+    Entry last = new Entry(normalize(to), Integer.MAX_VALUE);
+    if(first.compareTo(last) > 0) {
+      return new int[0];
+    }
+    return toIds(entries_.subSet(first, true, last, true).iterator(),
+                 Integer.MAX_VALUE);
+  }
+
+
+
+  // Ids of up to count books shelved before where callNumber would be
+  // shelved, and up to count from there on (including any books with that
+  // call number), in shelf order
+  public int[] nearest(String callNumber, int count)
+  {
+    if(callNumber == null) {
+      throw new IllegalArgumentException("CallNumberIndex: nearest: value for "
+                                         + "'callNumber' cannot be null");
+    }
+    if(count < 0) {
+      throw new IllegalArgumentException("CallNumberIndex: nearest: value for "
+                                         + "'count' cannot be negative");
+    }
+
+    Entry position = new Entry(normalize(callNumber), Integer.MIN_VALUE);
+    int[] before = toIds(entries_.headSet(position, false)
+                                 .descendingIterator(), count);
+    int[] after = toIds(entries_.tailSet(position, true).iterator(), count);
+
+    int[] ids = new int[before.length + after.length];
+    for(int i = 0; i < before.length; i++) {
+      ids[i] = before[before.length - 1 - i];
+    }
+    System.arraycopy(after, 0, ids, before.length, after.length);
+    return ids;
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  public static String normalize(String callNumber)
+  {
+    String upper = callNumber.trim().toUpperCase(Locale.ROOT);
+    StringBuilder key = new StringBuilder(upper.length() + 8);
+    int length = upper.length();
+    int i = 0;
+
+    while(i < length) {
+      char c = upper.charAt(i);
+      if(Character.isWhitespace(c)) {
+        while(i < length && Character.isWhitespace(upper.charAt(i))) {
+          i++;
+        }
+        key.append(' ');
+      }
+      else if(isDigit(c)) {
+        int start = i;
+        while(i < length && isDigit(upper.charAt(i))) {
+          i++;
+        }
+        boolean fraction = start > 0 && upper.charAt(start - 1) == '.';
+        if(fraction) {
+          key.append(upper, start, i);
+        }
+        else {
+          appendWholeNumber(key, upper, start, i);
+        }
+      }
+      else {
+        key.append(c);
+        i++;
+      }
+    }
+    return key.toString();
+  }
+
+
+
+  // Leading zeros dropped, then the number of digits as two digits, so a
+  // longer number sorts after a shorter one
+  private static void appendWholeNumber(StringBuilder key, String digits,
+                                        int start, int end)
+  {
+    while(start < end - 1 && digits.charAt(start) == '0') {
+      start++;
+    }
+    int length = end - start;
+    key.append((char) ('0' + length / 10 % 10))
+       .append((char) ('0' + length % 10))
+       .append(digits, start, end);
+  }
+
+
+
+  private static int[] toIds(Iterator<Entry> entries, int limit)
+  {
+    int[] ids = new int[16];
+    int count = 0;
+    while(count < limit && entries.hasNext()) {
+      if(count == ids.length) {
+        ids = Arrays.copyOf(ids, count * 2);
+      }
+      ids[count++] = entries.next().id;
+    }
+    return Arrays.copyOf(ids, count);
+  }
+
+
+
+  // Only ASCII digits, so that other scripts' digits keep their own order
+  private static boolean isDigit(char c)
+  {
+    return c >= '0' && c <= '9';
+  }
+
+
+
+  // ==========================================================================
+  // Entries
+  // ==========================================================================
+
+
+
+  private static final class Entry implements Comparable<Entry>
+  {
+    private final String key;
+    private final int id;
+
+
+
+    private Entry(String key, int id)
+    {
+      this.key = key;
+      this.id = id;
+    }
+
+
+
+    @Override
+    public int compareTo(Entry other)
+    {
+      int byKey = key.compareTo(other.key);
+      if(byKey != 0) {
+        return byKey;
+      }
+      return Integer.compare(id, other.id);
+    }
+
+
+
+    @Override
+    public boolean equals(Object other)
+    {
+      return other instanceof Entry && compareTo((Entry) other) == 0;
+    }
+
+
+
+    @Override
+    public int hashCode()
+    {
+      return key.hashCode() * 31 + id;
+    }
+  }
+}
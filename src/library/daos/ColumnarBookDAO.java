@@ -0,0 +1,919 @@
+package library.daos;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import library.interfaces.daos.IBookDAO;
+import library.interfaces.entities.EBookState;
+import library.interfaces.entities.IBook;
+import library.interfaces.entities.IBookStateListener;
+import library.interfaces.entities.ILoan;
+
+/**
+ * ColumnarBookDAO class
+ *
+ * An IBookDAO for very large catalogs that keeps no Book objects. Each book
+ * is a row across parallel arrays, indexed by id (ids are handed out
+ * densely from 1, so the id is the row and needs no column of its own):
+ *   - authorCodes/titleCodes: codes into a table of distinct strings, so
+ *     every copy of a title shares one String
+ *   - callNumberOffsets: offsets into one UTF-8 byte array of call numbers
+ *   - states: the EBookState ordinal, a byte per book packed four to an
+ *     int of an AtomicIntegerArray
+ * Loans are only held for books on loan, in a map by id.
+ *
+ * getBookByID and the find methods hand out small views over a row; a view
+ * holds only the DAO and the id, and two views of the same book are equal.
+ * The find methods scan the code columns, comparing ints rather than
+ * strings.
+ *
+ * Writes (addBook and state changes through a view) are synchronized on the
+ * DAO. Reads take no lock: the states column is atomic, so a state change
+ * is visible to readers as soon as it is stored.
+ *
+ */
+public class ColumnarBookDAO implements IBookDAO
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int DEFAULT_CAPACITY = 16;
+  private static final int NOT_FOUND = -1;
+  private static final EBookState[] STATES = EBookState.values();
+
+  // Replaced as a whole when the columns grow, so a reader always sees a
+  // consistent set of arrays
+  private volatile Columns columns_;
+  private volatile int size_;
+
+  // Distinct authors and titles by code. Only appended to, under the DAO's
+  // lock; a grown array is published before any row that uses it.
+  private volatile String[] strings_;
+  private int stringCount_;
+  private Map<String, Integer> stringCodes_;
+  private Map<Integer, ILoan> loans_;
+
+  // Listeners set through a view, by id; views themselves hold no state
+  private Map<Integer, IBookStateListener> listeners_;
+
+  // Book ids by state, updated under the DAO's lock with the states column
+  private BookStateIndex stateIndex_;
+
+  // Book ids by author code, for findBooksByAuthorAndState
+  private BookIdIndex<Integer> authorIds_;
+
+  // Words of every title and author, for searchBooks
+  private BookSearchIndex searchIndex_;
+
+  // Trigrams of each distinct author and title, for the fuzzy finds
+  private TrigramIndex authorTrigrams_;
+  private TrigramIndex titleTrigrams_;
+
+  // Book ids in shelf order
+  private CallNumberIndex callNumberIndex_;
+
+
+
+  // ==========================================================================
+  // Constructor
+  // ==========================================================================
+
+
+
+  public ColumnarBookDAO()
+  {
+    columns_ = new Columns(DEFAULT_CAPACITY, DEFAULT_CAPACITY * 8);
+    size_ = 0;
+    strings_ = new String[DEFAULT_CAPACITY];
+    stringCount_ = 0;
+    stringCodes_ = new ConcurrentHashMap<String, Integer>();
+    loans_ = new ConcurrentHashMap<Integer, ILoan>();
+    listeners_ = new ConcurrentHashMap<Integer, IBookStateListener>();
+    stateIndex_ = new BookStateIndex();
+    authorIds_ = new BookIdIndex<Integer>();
+    searchIndex_ = new BookSearchIndex();
+    authorTrigrams_ = new TrigramIndex();
+    titleTrigrams_ = new TrigramIndex();
+    callNumberIndex_ = new CallNumberIndex();
+  }
+
+
+
+  // ==========================================================================
+  // Insertion Methods
+  // ==========================================================================
+
+
+
+  @Override
+  public synchronized IBook addBook(String author, String title,
+                                    String callNumber)
+  {
+    if(isStringNullOrEmpty(author)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: addBook: value for "
+                                         + "'author' cannot be null or empty");
+    }
+
+    if(isStringNullOrEmpty(title)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: addBook: value for "
+                                         + "'title' cannot be null or empty");
+    }
+
+    if(isStringNullOrEmpty(callNumber)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: addBook: value for "
+                                         + "'callNumber' cannot be null or "
+                                         + "empty");
+    }
+
+    int id = size_ + 1;
+    byte[] callNumberBytes = callNumber.getBytes(StandardCharsets.UTF_8);
+    Columns columns = ensureCapacity(id, callNumberBytes.length);
+
+    int offset = columns.callNumberOffsets[id - 1];
+    System.arraycopy(callNumberBytes, 0, columns.callNumbers, offset,
+                     callNumberBytes.length);
+    columns.callNumberOffsets[id] = offset + callNumberBytes.length;
+    int authorCode = codeFor(author);
+    columns.authorCodes[id] = authorCode;
+    columns.titleCodes[id] = codeFor(title);
+    columns.setState(id, EBookState.AVAILABLE);
+
+    // Publishes the row to readers, and then to searches
+    size_ = id;
+    authorIds_.add(authorCode, id);
+    searchIndex_.add(id, author, title);
+    authorTrigrams_.add(author);
+    titleTrigrams_.add(title);
+    callNumberIndex_.add(id, callNumber);
+    stateIndex_.update(id, EBookState.AVAILABLE);
+    return new BookView(this, id);
+  }
+
+
+
+  // ==========================================================================
+  // Retrieval Methods
+  // ==========================================================================
+
+
+
+  @Override
+  public IBook getBookByID(int bookID)
+  {
+    if(bookID <= 0) {
+      throw new IllegalArgumentException("ColumnarBookDAO: getBookByID: value "
+                                         + "for 'bookID' must be a positive "
+                                         + "integer (>= 0)");
+    }
+    if(bookID > size_) {
+      return null;
+    }
+    return new BookView(this, bookID);
+  }
+
+
+
+  @Override
+  public List<IBook> listBooks()
+  {
+    int size = size_;
+    List<IBook> books = new ArrayList<IBook>(size);
+
+    for(int id = 1; id <= size; id++) {
+      books.add(new BookView(this, id));
+    }
+    return books;
+  }
+
+
+
+  // Keyset paging: pass 0 for the first page, then the id of the last book
+  // of each page
+  @Override
+  public List<IBook> listBooks(int afterID, int limit)
+  {
+    if(afterID < 0 || limit < 0) {
+      throw new IllegalArgumentException("ColumnarBookDAO: listBooks: values "
+                                         + "for 'afterID' and 'limit' cannot "
+                                         + "be negative");
+    }
+
+    int last = (int) Math.min((long) afterID + limit, size_);
+    List<IBook> books = new ArrayList<IBook>(Math.max(last - afterID, 0));
+
+    for(int id = afterID + 1; id <= last; id++) {
+      books.add(new BookView(this, id));
+    }
+    return books;
+  }
+
+
+
+  @Override
+  public Stream<IBook> streamBooks()
+  {
+    return IntStream.rangeClosed(1, size_)
+                    .mapToObj(id -> (IBook) new BookView(this, id));
+  }
+
+
+
+  @Override
+  public List<IBook> findBooksByAuthor(String author)
+  {
+    if(isStringNullOrEmpty(author)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: findBooksByAuthor: "
+                                         + "value for 'author' cannot be null "
+                                         + "or empty");
+    }
+
+    return scan(codeOf(author), NOT_FOUND);
+  }
+
+
+
+  @Override
+  public List<IBook> findBooksByTitle(String title)
+  {
+    if(isStringNullOrEmpty(title)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: findBooksByTitle: "
+                                         + "value for 'title' cannot be null "
+                                         + "or empty");
+    }
+
+    return scan(NOT_FOUND, codeOf(title));
+  }
+
+
+
+  @Override
+  public List<IBook> findBooksByAuthorTitle(String author, String title)
+  {
+    if(isStringNullOrEmpty(author)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: "
+                                         + "findBooksByAuthorTitle: value for "
+                                         + "'author' cannot be null or empty");
+    }
+
+    if(isStringNullOrEmpty(title)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: "
+                                         + "findBooksByAuthorTitle: value for "
+                                         + "'title' cannot be null or empty");
+    }
+
+    int authorCode = codeOf(author);
+    int titleCode = codeOf(title);
+
+    if(authorCode == NOT_FOUND || titleCode == NOT_FOUND) {
+      return new ArrayList<IBook>();
+    }
+    return scan(authorCode, titleCode);
+  }
+
+
+
+  // Books by the authors most like the given one (e.g. a misspelling),
+  // grouped by author, most similar first. threshold is from 0 (exclusive)
+  // to 1; TrigramIndex.DEFAULT_THRESHOLD suits most misspellings.
+  @Override
+  public List<IBook> findBooksByAuthorFuzzy(String author, double threshold)
+  {
+    if(isStringNullOrEmpty(author)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: "
+                                         + "findBooksByAuthorFuzzy: value for "
+                                         + "'author' cannot be null or empty");
+    }
+
+    List<String> authors = authorTrigrams_.findSimilar(author, threshold);
+    return scanRanked(authors, columns_.authorCodes);
+  }
+
+
+
+  @Override
+  public List<IBook> findBooksByTitleFuzzy(String title, double threshold)
+  {
+    if(isStringNullOrEmpty(title)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: "
+                                         + "findBooksByTitleFuzzy: value for "
+                                         + "'title' cannot be null or empty");
+    }
+
+    List<String> titles = titleTrigrams_.findSimilar(title, threshold);
+    return scanRanked(titles, columns_.titleCodes);
+  }
+
+
+
+  @Override
+  public int countBooksByState(EBookState state)
+  {
+    if(state == null) {
+      throw new IllegalArgumentException("ColumnarBookDAO: countBooksByState: "
+                                         + "value for 'state' cannot be null");
+    }
+    return stateIndex_.count(state);
+  }
+
+
+
+  // Books in any of the given states, in id order
+  @Override
+  public List<IBook> listBooksByState(EBookState... states)
+  {
+    if(states == null || states.length == 0) {
+      throw new IllegalArgumentException("ColumnarBookDAO: listBooksByState: "
+                                         + "value for 'states' cannot be null "
+                                         + "or empty");
+    }
+    return views(stateIndex_.ids(states));
+  }
+
+
+
+  // Books by author in any of the given states, in id order: the author's
+  // ids intersected with the states' bitmap, so only the author's books are
+  // visited
+  @Override
+  public List<IBook> findBooksByAuthorAndState(String author,
+                                               EBookState... states)
+  {
+    if(isStringNullOrEmpty(author)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: "
+                                         + "findBooksByAuthorAndState: value "
+                                         + "for 'author' cannot be null or "
+                                         + "empty");
+    }
+
+    if(states == null || states.length == 0) {
+      throw new IllegalArgumentException("ColumnarBookDAO: "
+                                         + "findBooksByAuthorAndState: value "
+                                         + "for 'states' cannot be null or "
+                                         + "empty");
+    }
+
+    return views(authorIds_.get(codeOf(author), stateIndex_.ids(states)));
+  }
+
+
+
+  // Books shelved from 'from' to 'to' inclusive, in shelf order (see
+  // CallNumberIndex for how call numbers are compared)
+  @Override
+  public List<IBook> findBooksByCallNumberRange(String from, String to)
+  {
+    if(isStringNullOrEmpty(from)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: "
+                                         + "findBooksByCallNumberRange: value "
+                                         + "for 'from' cannot be null or "
+                                         + "empty");
+    }
+
+    if(isStringNullOrEmpty(to)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: "
+                                         + "findBooksByCallNumberRange: value "
+                                         + "for 'to' cannot be null or empty");
+    }
+
+    return views(callNumberIndex_.range(from, to));
+  }
+
+
+
+  // Up to count books shelved either side of where callNumber would be
+  // shelved, in shelf order
+  @Override
+  public List<IBook> findBooksNearCallNumber(String callNumber, int count)
+  {
+    if(isStringNullOrEmpty(callNumber)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: "
+                                         + "findBooksNearCallNumber: value for "
+                                         + "'callNumber' cannot be null or "
+                                         + "empty");
+    }
+
+    if(count < 0) {
+      throw new IllegalArgumentException("ColumnarBookDAO: "
+                                         + "findBooksNearCallNumber: value for "
+                                         + "'count' cannot be negative");
+    }
+
+    return views(callNumberIndex_.nearest(callNumber, count));
+  }
+
+
+
+  // Words of the title and author, any order, best match first. A word
+  // ending in '*' matches words starting with it, e.g. "expect* dickens"
+  @Override
+  public List<IBook> searchBooks(String query, int limit)
+  {
+    if(isStringNullOrEmpty(query)) {
+      throw new IllegalArgumentException("ColumnarBookDAO: searchBooks: value "
+                                         + "for 'query' cannot be null or "
+                                         + "empty");
+    }
+
+    if(limit < 0) {
+      throw new IllegalArgumentException("ColumnarBookDAO: searchBooks: value "
+                                         + "for 'limit' cannot be negative");
+    }
+
+    return views(searchIndex_.search(query, limit));
+  }
+
+
+
+  // ==========================================================================
+  // Column Methods
+  // ==========================================================================
+
+
+
+  // Returns a view of every book whose author and/or title code matches. A
+  // code of NOT_FOUND matches any book for that column, unless both are
+  // NOT_FOUND, which means the string was never added and nothing matches.
+  private List<IBook> scan(int authorCode, int titleCode)
+  {
+    List<IBook> books = new ArrayList<IBook>();
+    if(authorCode == NOT_FOUND && titleCode == NOT_FOUND) {
+      return books;
+    }
+
+    int size = size_;
+    Columns columns = columns_;
+
+    if(titleCode == NOT_FOUND) {
+      int[] authorCodes = columns.authorCodes;
+      for(int id = 1; id <= size; id++) {
+        if(authorCodes[id] == authorCode) {
+          books.add(new BookView(this, id));
+        }
+      }
+    }
+    else if(authorCode == NOT_FOUND) {
+      int[] titleCodes = columns.titleCodes;
+      for(int id = 1; id <= size; id++) {
+        if(titleCodes[id] == titleCode) {
+          books.add(new BookView(this, id));
+        }
+      }
+    }
+    else {
+      int[] authorCodes = columns.authorCodes;
+      int[] titleCodes = columns.titleCodes;
+      for(int id = 1; id <= size; id++) {
+        if(authorCodes[id] == authorCode && titleCodes[id] == titleCode) {
+          books.add(new BookView(this, id));
+        }
+      }
+    }
+    return books;
+  }
+
+
+
+  // Returns a view of every book whose code in the given column is one of
+  // values, grouped by value in the order given. One pass over the column
+  // whatever the number of values.
+  private List<IBook> scanRanked(List<String> values, int[] codes)
+  {
+    List<IBook> books = new ArrayList<IBook>();
+    if(values.isEmpty()) {
+      return books;
+    }
+
+    // Each value's code and rank, packed code-high and sorted, so a row's
+    // code is looked up by binary search without boxing
+    long[] ranks = new long[values.size()];
+    List<List<IBook>> groups = new ArrayList<List<IBook>>();
+    for(String value: values) {
+      ranks[groups.size()] = ((long) codeOf(value) << 32) | groups.size();
+      groups.add(new ArrayList<IBook>());
+    }
+    Arrays.sort(ranks);
+    int[] sortedCodes = new int[ranks.length];
+    for(int i = 0; i < ranks.length; i++) {
+      sortedCodes[i] = (int) (ranks[i] >>> 32);
+    }
+
+    // The column was read after the values were found, so it holds every
+    // row using them. Rows added since may be in a grown copy, and are not
+    // scanned.
+    int size = Math.min(size_, codes.length - 1);
+    for(int id = 1; id <= size; id++) {
+      int found = Arrays.binarySearch(sortedCodes, codes[id]);
+      if(found >= 0) {
+        groups.get((int) ranks[found]).add(new BookView(this, id));
+      }
+    }
+
+    for(List<IBook> group: groups) {
+      books.addAll(group);
+    }
+    return books;
+  }
+
+
+
+  private List<IBook> views(BitSet ids)
+  {
+    List<IBook> books = new ArrayList<IBook>(ids.cardinality());
+
+    for(int id = ids.nextSetBit(0); id >= 0; id = ids.nextSetBit(id + 1)) {
+      books.add(new BookView(this, id));
+    }
+    return books;
+  }
+
+
+
+  private List<IBook> views(int[] ids)
+  {
+    List<IBook> books = new ArrayList<IBook>(ids.length);
+
+    for(int id: ids) {
+      books.add(new BookView(this, id));
+    }
+    return books;
+  }
+
+
+
+  private int codeFor(String value)
+  {
+    Integer code = stringCodes_.get(value);
+    if(code == null) {
+      code = stringCount_;
+      if(code == strings_.length) {
+        strings_ = Arrays.copyOf(strings_, code + (code >> 1));
+      }
+      strings_[code] = value;
+      stringCount_++;
+      stringCodes_.put(value, code);
+    }
+    return code;
+  }
+
+
+
+  private int codeOf(String value)
+  {
+    Integer code = stringCodes_.get(value);
+    if(code == null) {
+      return NOT_FOUND;
+    }
+    return code;
+  }
+
+
+
+  // Must be called holding the DAO's lock. Grows the columns if the given
+  // row or its call number does not fit.
+  private Columns ensureCapacity(int id, int callNumberLength)
+  {
+    Columns columns = columns_;
+    int rows = columns.authorCodes.length;
+    int bytesNeeded = columns.callNumberOffsets[id - 1] + callNumberLength;
+
+    if(id < rows && bytesNeeded <= columns.callNumbers.length) {
+      return columns;
+    }
+
+    int newRows = (id < rows) ? rows : rows + (rows >> 1);
+    int newBytes = columns.callNumbers.length;
+    while(newBytes < bytesNeeded) {
+      newBytes += newBytes >> 1;
+    }
+    columns_ = new Columns(columns, newRows, newBytes);
+    return columns_;
+  }
+
+
+
+  private String stringAt(int code)
+  {
+    return strings_[code];
+  }
+
+
+
+  // ==========================================================================
+  // Row Methods (used by BookView)
+  // ==========================================================================
+
+
+
+  private EBookState stateOf(int id)
+  {
+    return columns_.stateOf(id);
+  }
+
+
+
+  private synchronized void changeState(int id, EBookState expected1,
+                                        EBookState expected2,
+                                        EBookState expected3,
+                                        EBookState newState, String method)
+  {
+    EBookState state = stateOf(id);
+
+    if(state != expected1 && state != expected2 && state != expected3) {
+      throw new RuntimeException("Book: " + method + ": invalid state "
+                                 + "transition [" + state + " > "
+                                 + newState + "]");
+    }
+    columns_.setState(id, newState);
+    stateIndex_.update(id, newState);
+
+    IBookStateListener listener = listeners_.get(id);
+    if(listener != null) {
+      listener.bookStateChanged(new BookView(this, id));
+    }
+  }
+
+
+
+  private String callNumberOf(int id)
+  {
+    Columns columns = columns_;
+    int offset = columns.callNumberOffsets[id - 1];
+    int length = columns.callNumberOffsets[id] - offset;
+    return new String(columns.callNumbers, offset, length,
+                      StandardCharsets.UTF_8);
+  }
+
+
+
+  // ==========================================================================
+  // Validation Methods
+  // ==========================================================================
+
+
+
+  private boolean isStringNullOrEmpty(String input)
+  {
+    // Check null first to avoid NullPointerException
+    if(input == null) {
+      return true;
+    }
+    if(input.isEmpty()) {
+      return true;
+    }
+
+    return false;
+  }
+
+
+
+  // ==========================================================================
+  // Columns
+  // ==========================================================================
+
+
+
+  private static final class Columns
+  {
+    private final int[] authorCodes;
+    private final int[] titleCodes;
+    // Four states to an int, the state of id in byte (id & 3) of int id >> 2
+    private final AtomicIntegerArray states;
+    // The call number of book id runs from callNumberOffsets[id - 1] to
+    // callNumberOffsets[id]
+    private final int[] callNumberOffsets;
+    private final byte[] callNumbers;
+
+
+
+    private Columns(int rows, int bytes)
+    {
+      authorCodes = new int[rows];
+      titleCodes = new int[rows];
+      states = new AtomicIntegerArray((rows + 3) >> 2);
+      callNumberOffsets = new int[rows];
+      callNumbers = new byte[bytes];
+    }
+
+
+
+    private Columns(Columns old, int rows, int bytes)
+    {
+      authorCodes = Arrays.copyOf(old.authorCodes, rows);
+      titleCodes = Arrays.copyOf(old.titleCodes, rows);
+      states = new AtomicIntegerArray((rows + 3) >> 2);
+      for(int i = 0; i < old.states.length(); i++) {
+        states.set(i, old.states.get(i));
+      }
+      callNumberOffsets = Arrays.copyOf(old.callNumberOffsets, rows);
+      callNumbers = Arrays.copyOf(old.callNumbers, bytes);
+    }
+
+
+
+    private EBookState stateOf(int id)
+    {
+      return STATES[(states.get(id >> 2) >>> ((id & 3) << 3)) & 0xFF];
+    }
+
+
+
+    // Must be called holding the DAO's lock
+    private void setState(int id, EBookState state)
+    {
+      int shift = (id & 3) << 3;
+      int packed = states.get(id >> 2) & ~(0xFF << shift);
+      states.set(id >> 2, packed | (state.ordinal() << shift));
+    }
+  }
+
+
+
+  // ==========================================================================
+  // Book View
+  // ==========================================================================
+
+
+
+  // A book as seen through its row. Behaves as library.entities.Book does,
+  // with the same state transitions and messages.
+  private static final class BookView implements IBook
+  {
+    private final ColumnarBookDAO dao_;
+    private final int id_;
+
+
+
+    private BookView(ColumnarBookDAO dao, int id)
+    {
+      dao_ = dao;
+      id_ = id;
+    }
+
+
+
+    @Override
+    public void borrow(ILoan loan)
+    {
+      if(loan == null) {
+        throw new IllegalArgumentException("Book: borrow: value for 'loan "
+                                           + "cannot be null");
+      }
+      synchronized(dao_) {
+        dao_.changeState(id_, EBookState.AVAILABLE, null, null,
+                         EBookState.ON_LOAN, "borrow");
+        dao_.loans_.put(id_, loan);
+      }
+    }
+
+
+
+    @Override
+    public void returnBook(boolean damaged)
+    {
+      EBookState newState = damaged ? EBookState.DAMAGED : EBookState.AVAILABLE;
+
+      synchronized(dao_) {
+        dao_.changeState(id_, EBookState.ON_LOAN, EBookState.LOST, null,
+                         newState, "returnBook");
+        dao_.loans_.remove(id_);
+      }
+    }
+
+
+
+    @Override
+    public void lose()
+    {
+      dao_.changeState(id_, EBookState.ON_LOAN, null, null, EBookState.LOST,
+                       "lose");
+    }
+
+
+
+    @Override
+    public void repair()
+    {
+      dao_.changeState(id_, EBookState.DAMAGED, null, null,
+                       EBookState.AVAILABLE, "repair");
+    }
+
+
+
+    @Override
+    public void dispose()
+    {
+      dao_.changeState(id_, EBookState.AVAILABLE, EBookState.DAMAGED,
+                       EBookState.LOST, EBookState.DISPOSED, "dispose");
+    }
+
+
+
+    @Override
+    public ILoan getLoan()
+    {
+      if(getState() != EBookState.ON_LOAN) {
+        return null;
+      }
+      return dao_.loans_.get(id_);
+    }
+
+
+
+    @Override
+    public EBookState getState()
+    {
+      return dao_.stateOf(id_);
+    }
+
+
+
+    @Override
+    public String getAuthor()
+    {
+      return dao_.stringAt(dao_.columns_.authorCodes[id_]);
+    }
+
+
+
+    @Override
+    public String getTitle()
+    {
+      return dao_.stringAt(dao_.columns_.titleCodes[id_]);
+    }
+
+
+
+    @Override
+    public String getCallNumber()
+    {
+      return dao_.callNumberOf(id_);
+    }
+
+
+
+    @Override
+    public int getID()
+    {
+      return id_;
+    }
+
+
+
+    @Override
+    public void setStateListener(IBookStateListener listener)
+    {
+      if(listener == null) {
+        dao_.listeners_.remove(id_);
+      }
+      else {
+        dao_.listeners_.put(id_, listener);
+      }
+    }
+
+
+
+    @Override
+    public boolean equals(Object other)
+    {
+      if(!(other instanceof BookView)) {
+        return false;
+      }
+      BookView view = (BookView) other;
+      return view.dao_ == dao_ && view.id_ == id_;
+    }
+
+
+
+    @Override
+    public int hashCode()
+    {
+      return id_;
+    }
+
+
+
+    @Override
+    public String toString()
+    {
+      StringBuffer bookString = new StringBuffer();
+
+      bookString.append("ID: " + getID() + "\n");
+      bookString.append("Author: " + getAuthor() + "\n");
+      bookString.append("Title: " + getTitle() + "\n");
+      bookString.append("Call Number: " + getCallNumber());
+
+      return bookString.toString();
+    }
+  }
+}
@@ -0,0 +1,313 @@
+package library.daos;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Stores entities in a growable array indexed directly by their id. The DAOs
+ * hand out ids from a simple counter, so ids are dense and an array avoids
+ * the boxed Integer key and per-entry node of a HashMap. Lookups do not
+ * allocate and iteration is in id order.
+ *
+ * Ids need not be dense, though (e.g. members loaded from another system).
+ * The array only grows to cover an id while it would stay at least a
+ * quarter full; any other id is stored in a sorted map instead. The array
+ * never grows past the lowest id in the map, so every id in the map is
+ * above every id in the array, and iteration reads the array and then the
+ * map.
+ *
+ * The table is safe for use by multiple threads. Reads never block: get and
+ * iteration read the current array without locking, while put (and growing
+ * the array) is serialised on the table itself.
+ *
+ * @param <E> The type of entity stored.
+ */
+public class EntityTable<E>
+  implements Iterable<E>
+{
+  //===========================================================================
+  // Variables
+  //===========================================================================
+
+  private static final int DEFAULT_CAPACITY = 16;
+  // The largest array the JVM reliably allocates
+  private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+  private volatile AtomicReferenceArray<Object> entities_;
+  // Entities whose ids are too sparse for the array, all above its capacity
+  private final ConcurrentSkipListMap<Integer, Object> sparseEntities_ =
+    new ConcurrentSkipListMap<>();
+  private volatile int size_;
+
+  //===========================================================================
+  // Constructors
+  //===========================================================================
+
+  /**
+   * Creates a new, empty EntityTable.
+   */
+  public EntityTable()
+  {
+    entities_ = new AtomicReferenceArray<>(DEFAULT_CAPACITY);
+  }
+
+  //===========================================================================
+  // Primary methods
+  //===========================================================================
+
+  /**
+   * Returns the entity stored against id, or null if there is none.
+   * @param id int The id of the entity.
+   * @return E The entity with the given id, or null.
+   */
+  @SuppressWarnings("unchecked")
+  public E get(int id)
+  {
+    AtomicReferenceArray<Object> entities = entities_;
+    if (id <= 0) {
+      return null;
+    }
+    if (id >= entities.length()) {
+      return sparseEntities_.isEmpty() ? null : (E)sparseEntities_.get(id);
+    }
+    return (E)entities.get(id);
+  }
+
+
+
+  /**
+   * Stores entity against id, replacing any entity already stored there.
+   * @param id int The id of the entity.
+   * @param entity E The entity to store.
+   * @throws IllegalArgumentException if id is less than or equal to zero or
+   * entity is null.
+   */
+  public synchronized void put(int id, E entity)
+    throws IllegalArgumentException
+  {
+    if (id <= 0) {
+      throw new IllegalArgumentException("Cannot store an entity with an " +
+                                         "id less than or equal to zero.");
+    }
+    if (entity == null) {
+      throw new IllegalArgumentException("Cannot store a null entity.");
+    }
+    if (id >= entities_.length() && !grow(id)) {
+      if (sparseEntities_.put(id, entity) == null) {
+        size_++;
+      }
+      return;
+    }
+    if (entities_.getAndSet(id, entity) == null) {
+      size_++;
+    }
+  }
+
+
+
+  /**
+   * Stores entity against id unless an entity is already stored there, and
+   * returns whichever entity is stored against id afterwards. Threads that
+   * race to store the same id all receive the same entity.
+   * @param id int The id of the entity.
+   * @param entity E The entity to store.
+   * @return E The entity stored against id.
+   * @throws IllegalArgumentException if id is less than or equal to zero or
+   * entity is null.
+   */
+  public synchronized E putIfAbsent(int id, E entity)
+    throws IllegalArgumentException
+  {
+    E existing = get(id);
+    if (existing != null) {
+      return existing;
+    }
+    put(id, entity);
+    return entity;
+  }
+
+
+
+  /**
+   * Returns true if an entity is stored against id.
+   * @param id int The id to check.
+   * @return boolean true if an entity is stored against id.
+   */
+  public boolean contains(int id)
+  {
+    return get(id) != null;
+  }
+
+
+
+  /**
+   * Returns the number of entities stored.
+   * @return int The number of entities stored.
+   */
+  public int size()
+  {
+    return size_;
+  }
+
+
+
+  /**
+   * Returns a new list of all stored entities, in id order.
+   * @return List<E> All stored entities.
+   */
+  public List<E> values()
+  {
+    List<E> values = new ArrayList<>(size_);
+    for (E entity : this) {
+      values.add(entity);
+    }
+    return values;
+  }
+
+
+
+  /**
+   * Returns up to limit stored entities with ids greater than afterId, in id
+   * order. Passing the id of the last entity of one page as afterId returns
+   * the next page, so paging does not depend on where earlier pages started.
+   * @param afterId int The id after which the page starts (0 for the first
+   * page).
+   * @param limit int The maximum number of entities to return.
+   * @return List<E> The entities in the page.
+   * @throws IllegalArgumentException if afterId or limit is negative.
+   */
+  @SuppressWarnings("unchecked")
+  public List<E> page(int afterId, int limit)
+    throws IllegalArgumentException
+  {
+    if (afterId < 0 || limit < 0) {
+      throw new IllegalArgumentException("Cannot list a page with a " +
+                                         "negative id or limit.");
+    }
+    AtomicReferenceArray<Object> entities = entities_;
+    List<E> page = new ArrayList<>(Math.min(limit, size_));
+    int id = afterId < entities.length() ? nextId(entities, afterId + 1)
+                                         : entities.length();
+    while (id < entities.length() && page.size() < limit) {
+      page.add((E)entities.get(id));
+      id = nextId(entities, id + 1);
+    }
+    if (page.size() < limit && afterId < Integer.MAX_VALUE) {
+      int from = Math.max(afterId + 1, entities.length());
+      for (Object entity : sparseEntities_.tailMap(from).values()) {
+        if (page.size() == limit) {
+          break;
+        }
+        page.add((E)entity);
+      }
+    }
+    return page;
+  }
+
+
+
+  /**
+   * Returns a sequential stream over the stored entities, in id order,
+   * without copying them. Like the iterator, the stream may or may not
+   * include entities put after it was created.
+   * @return Stream<E> A stream of the stored entities.
+   */
+  public Stream<E> stream()
+  {
+    return StreamSupport.stream(
+      Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED |
+                                                      Spliterator.NONNULL),
+      false);
+  }
+
+
+
+  /**
+   * Returns an iterator over the stored entities, in id order. The iterator
+   * does not fail if entities are put while iterating; it may or may not
+   * return them.
+   * @return Iterator<E> An iterator over the stored entities.
+   */
+  @Override
+  public Iterator<E> iterator()
+  {
+    final AtomicReferenceArray<Object> entities = entities_;
+    final Iterator<Object> sparseEntities =
+      sparseEntities_.tailMap(entities.length()).values().iterator();
+
+    return new Iterator<E>()
+    {
+      private int next_ = nextId(entities, 1);
+
+      @Override
+      public boolean hasNext()
+      {
+        return next_ < entities.length() || sparseEntities.hasNext();
+      }
+
+      @Override
+      @SuppressWarnings("unchecked")
+      public E next()
+      {
+        if (next_ >= entities.length()) {
+          return (E)sparseEntities.next();
+        }
+        E entity = (E)entities.get(next_);
+        next_ = nextId(entities, next_ + 1);
+        return entity;
+      }
+    };
+  }
+
+  //===========================================================================
+  // Helper methods
+  //===========================================================================
+
+  // Returns the first id at or after from with an entity stored against it,
+  // or the capacity if there is none
+  private static int nextId(AtomicReferenceArray<Object> entities, int from)
+  {
+    int id = from;
+    while (id < entities.length() && entities.get(id) == null) {
+      id++;
+    }
+    return id;
+  }
+
+
+
+  // Grows the array to cover id and returns true, or returns false if the
+  // array would be less than a quarter full or would cover an id already in
+  // the sparse map. Only called from put, so no other writer can store into
+  // the old array while it is copied. The copy is published by the volatile
+  // write.
+  private boolean grow(int id)
+  {
+    long required = (long)id + 1;
+    long limit = Math.min(MAX_CAPACITY, 4L * (size_ + 1) + DEFAULT_CAPACITY);
+    if (!sparseEntities_.isEmpty()) {
+      limit = Math.min(limit, sparseEntities_.firstKey());
+    }
+    if (required > limit) {
+      return false;
+    }
+    int length = entities_.length();
+    int capacity = (int)Math.min(Math.max(required, length + (length >> 1)),
+                                 limit);
+    AtomicReferenceArray<Object> entities =
+      new AtomicReferenceArray<>(capacity);
+    for (int i = 0; i < length; i++) {
+      entities.lazySet(i, entities_.get(i));
+    }
+    entities_ = entities;
+    return true;
+  }
+
+}
@@ -0,0 +1,148 @@
+package library.daos;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a BulkImporter run: how many rows were added to the DAO,
+ * and which rows were rejected, with their line numbers and the reason.
+ */
+public class ImportReport
+{
+  //===========================================================================
+  // Variables
+  //===========================================================================
+
+  private int importedCount_;
+  private List<RejectedRow> rejectedRows_;
+
+  //===========================================================================
+  // Constructor
+  //===========================================================================
+
+  ImportReport()
+  {
+    importedCount_ = 0;
+    rejectedRows_ = new ArrayList<>();
+  }
+
+  //===========================================================================
+  // Getters
+  //===========================================================================
+
+  /**
+   * Returns the number of rows added to the DAO.
+   * @return int The number of rows imported.
+   */
+  public int getImportedCount()
+  {
+    return importedCount_;
+  }
+
+
+
+  /**
+   * Returns the rows that were not added to the DAO, in line order.
+   * @return List<RejectedRow> The rejected rows.
+   */
+  public List<RejectedRow> getRejectedRows()
+  {
+    return Collections.unmodifiableList(rejectedRows_);
+  }
+
+
+
+  /**
+   * Returns a one line summary of the import.
+   * @return String The summary.
+   */
+  @Override
+  public String toString()
+  {
+    return "Imported: " + importedCount_ + ", Rejected: " +
+           rejectedRows_.size();
+  }
+
+  //===========================================================================
+  // Package methods, used by BulkImporter
+  //===========================================================================
+
+  void addImported(int count)
+  {
+    importedCount_ += count;
+  }
+
+
+
+  void addRejected(List<RejectedRow> rows)
+  {
+    rejectedRows_.addAll(rows);
+  }
+
+  //===========================================================================
+  // Rejected row
+  //===========================================================================
+
+  /**
+   * A row of an import file that was not added to the DAO.
+   */
+  public static class RejectedRow
+  {
+    private final int lineNumber_;
+    private final String line_;
+    private final String reason_;
+
+
+
+    RejectedRow(int lineNumber, String line, String reason)
+    {
+      lineNumber_ = lineNumber;
+      line_ = line;
+      reason_ = reason;
+    }
+
+
+
+    /**
+     * Returns the number of the line the row starts on in the file, starting
+     * from 1.
+     * @return int The line number.
+     */
+    public int getLineNumber()
+    {
+      return lineNumber_;
+    }
+
+
+
+    /**
+     * Returns the row as it appeared in the file, with '\n' between its
+     * lines if a quoted field ran over a line end.
+     * @return String The row.
+     */
+    public String getLine()
+    {
+      return line_;
+    }
+
+
+
+    /**
+     * Returns why the row was rejected.
+     * @return String The reason.
+     */
+    public String getReason()
+    {
+      return reason_;
+    }
+
+
+
+    @Override
+    public String toString()
+    {
+      return "Line " + lineNumber_ + ": " + reason_;
+    }
+  }
+}
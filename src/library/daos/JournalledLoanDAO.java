@@ -0,0 +1,509 @@
+package library.daos;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+import library.interfaces.ILibraryClock;
+import library.interfaces.daos.IBookDAO;
+import library.interfaces.daos.ILoanHelper;
+import library.interfaces.daos.IMemberDAO;
+import library.interfaces.entities.EBookState;
+import library.interfaces.entities.IBook;
+import library.interfaces.entities.ILoan;
+import library.interfaces.entities.IMember;
+
+/**
+ * A LoanDAO whose committed loans survive a restart. Every commit, overdue
+ * sweep and completion is appended to a journal file once it has been
+ * applied in memory, and the calling method does not return until the
+ * record has been forced to disk. When the DAO is opened the journal is
+ * replayed, in order, to rebuild the committed loan collection.
+ *
+ * Forcing is shared between threads (group commit): whichever waiting
+ * thread forces the channel makes durable every record appended before the
+ * force began, so concurrent commits cost one force per batch rather than
+ * one per loan.
+ *
+ * Books and members are not journalled; they are looked up by id in the
+ * given book and member DAOs during replay, which must therefore already
+ * hold the same books and members as when the loans were committed. A
+ * completion is replayed through LoanDAO.completeLoan, as it was applied,
+ * and its record also holds the state of the loan's book and whether the
+ * borrower still held the loan when it was completed, so that a book
+ * returned (or lost) and a loan removed from its borrower before the
+ * completion are restored as they were. A book is only ever lent while
+ * AVAILABLE, so one returned or repaired after its last completion is made
+ * AVAILABLE again when its next commit is replayed.
+ */
+public class JournalledLoanDAO
+  extends LoanDAO
+  implements Closeable
+{
+  //===========================================================================
+  // Variables
+  //===========================================================================
+
+  private static final int MAGIC = 0x4C4F414E; // "LOAN"
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 8;
+
+  private static final byte COMMIT = 1;
+  private static final byte SWEEP = 2;
+  private static final byte COMPLETE = 3;
+
+  // type (1), loan id (4), book id (4), member id (4), borrow date (8),
+  // due date (8) and checksum (4). Sweeps store their date in the borrow
+  // date field. Completions store the book's state ordinal plus one in the
+  // book id field, and HELD or NOT_HELD in the member id field. Unused
+  // fields are zero.
+  private static final int RECORD_SIZE = 33;
+
+  private static final EBookState[] BOOK_STATES = EBookState.values();
+  private static final int HELD = 1;
+  private static final int NOT_HELD = 2;
+
+  private ILoanHelper helper_;
+  private IBookDAO bookDAO_;
+  private IMemberDAO memberDAO_;
+  private FileChannel channel_;
+
+  // Serialises applying and appending, so that the journal records
+  // operations in the order they were applied. Held for no longer than a
+  // write to the channel; never across a force.
+  private final Object writeLock_ = new Object();
+  private final ByteBuffer record_ = ByteBuffer.allocate(RECORD_SIZE);
+  private final CRC32 checksum_ = new CRC32();
+  private volatile long writePosition_;
+
+  // Group commit state, guarded by forceLock_
+  private final Object forceLock_ = new Object();
+  private long durablePosition_;
+  private boolean forcing_;
+  private final AtomicLong forceCount_ = new AtomicLong();
+
+  //===========================================================================
+  // Constructors
+  //===========================================================================
+
+  /**
+   * Opens (or creates) the journal at the given path and replays it.
+   * @param helper ILoanHelper The helper this DAO uses to instantiate Loans.
+   * @param bookDAO IBookDAO The DAO holding the books referred to by the
+   * journal.
+   * @param memberDAO IMemberDAO The DAO holding the members referred to by
+   * the journal.
+   * @param journal Path The journal file.
+   * @throws IllegalArgumentException if any argument is null.
+   * @throws IOException if the journal cannot be opened or read, is not a
+   * loan journal, or refers to a book or member that does not exist.
+   */
+  public JournalledLoanDAO(ILoanHelper helper, IBookDAO bookDAO,
+                           IMemberDAO memberDAO, Path journal)
+    throws IllegalArgumentException, IOException
+  {
+    this(helper, new LibraryClock(), bookDAO, memberDAO, journal);
+  }
+
+
+
+  /**
+   * Opens (or creates) the journal at the given path and replays it. New
+   * loans are dated by the given clock.
+   * @param helper ILoanHelper The helper this DAO uses to instantiate Loans.
+   * @param clock ILibraryClock The clock giving the day loans are made on.
+   * @param bookDAO IBookDAO The DAO holding the books referred to by the
+   * journal.
+   * @param memberDAO IMemberDAO The DAO holding the members referred to by
+   * the journal.
+   * @param journal Path The journal file.
+   * @throws IllegalArgumentException if any argument is null.
+   * @throws IOException if the journal cannot be opened or read, is not a
+   * loan journal, or refers to a book or member that does not exist.
+   */
+  public JournalledLoanDAO(ILoanHelper helper, ILibraryClock clock,
+                           IBookDAO bookDAO, IMemberDAO memberDAO,
+                           Path journal)
+    throws IllegalArgumentException, IOException
+  {
+    super(helper, clock);
+    if (bookDAO == null || memberDAO == null || journal == null) {
+      throw new IllegalArgumentException("Cannot create a new " +
+                                         "JournalledLoanDAO with a null Book " +
+                                         "DAO, Member DAO or journal.");
+    }
+    helper_ = helper;
+    bookDAO_ = bookDAO;
+    memberDAO_ = memberDAO;
+    channel_ = FileChannel.open(journal, StandardOpenOption.CREATE,
+                                StandardOpenOption.READ,
+                                StandardOpenOption.WRITE);
+    try {
+      replay();
+    }
+    catch (IOException | RuntimeException exception) {
+      channel_.close();
+      throw exception;
+    }
+  }
+
+  //===========================================================================
+  // Primary methods
+  //===========================================================================
+
+  /**
+   * Commits the Loan as LoanDAO does, then journals the commit and waits
+   * until it is durable.
+   * @param loan ILoan The Loan to be committed.
+   * @throws RuntimeException if this Loan's state is not (initially) PENDING.
+   * @throws UncheckedIOException if the commit could not be journalled; the
+   * Loan is committed in memory but will not survive a restart.
+   */
+  @Override
+  public void commitLoan(ILoan loan)
+    throws RuntimeException
+  {
+    long position;
+    synchronized (writeLock_) {
+      super.commitLoan(loan);
+      position = append(COMMIT, loan.getID(), loan.getBook().getID(),
+                        loan.getBorrower().getId(),
+                        loan.getBorrowDate().getTime(),
+                        loan.getDueDate().getTime());
+    }
+    awaitDurable(position);
+  }
+
+
+
+  /**
+   * Completes the Loan as LoanDAO does, then journals the completion, with
+   * the state of its book and whether its borrower still holds it, and
+   * waits until it is durable.
+   * @param loan ILoan The Loan to be completed.
+   * @throws RuntimeException if this Loan's state is not CURRENT or OVERDUE.
+   * @throws UncheckedIOException if the completion could not be journalled.
+   */
+  @Override
+  public void completeLoan(ILoan loan)
+    throws RuntimeException
+  {
+    long position;
+    synchronized (writeLock_) {
+      super.completeLoan(loan);
+      boolean isHeld = loan.getBorrower().getLoans().contains(loan);
+      position = append(COMPLETE, loan.getID(),
+                        loan.getBook().getState().ordinal() + 1,
+                        isHeld ? HELD : NOT_HELD, 0L, 0L);
+    }
+    awaitDurable(position);
+  }
+
+
+
+  /**
+   * Updates overdue status as LoanDAO does, then journals the sweep and
+   * waits until it is durable. The sweep is replayed with the same date, so
+   * the loans it found overdue are found overdue again.
+   * @param date Date The current date.
+   * @throws UncheckedIOException if the sweep could not be journalled.
+   */
+  @Override
+  public void updateOverDueStatus(Date date)
+  {
+    long position;
+    synchronized (writeLock_) {
+      super.updateOverDueStatus(date);
+      position = append(SWEEP, 0, 0, 0, date.getTime(), 0L);
+    }
+    awaitDurable(position);
+  }
+
+
+
+  /**
+   * Returns the number of times the journal has been forced to disk since
+   * it was opened. Under concurrent load this is expected to be well below
+   * the number of records appended.
+   * @return long The number of forces.
+   */
+  public long getForceCount()
+  {
+    return forceCount_.get();
+  }
+
+
+
+  /**
+   * Closes the journal. The DAO must not be used afterwards.
+   * @throws IOException if the journal cannot be closed.
+   */
+  @Override
+  public void close()
+    throws IOException
+  {
+    channel_.close();
+  }
+
+  //===========================================================================
+  // Journal methods
+  //===========================================================================
+
+  // Must be called holding writeLock_. Returns the position the journal
+  // must be durable to for this record to survive.
+  private long append(byte type, int loanID, int bookID, int memberID,
+                      long firstDate, long secondDate)
+  {
+    record_.clear();
+    record_.put(type)
+           .putInt(loanID)
+           .putInt(bookID)
+           .putInt(memberID)
+           .putLong(firstDate)
+           .putLong(secondDate);
+    checksum_.reset();
+    checksum_.update(record_.array(), 0, RECORD_SIZE - 4);
+    record_.putInt((int)checksum_.getValue());
+    record_.flip();
+
+    try {
+      writeFully(record_, writePosition_);
+    }
+    catch (IOException exception) {
+      throw new UncheckedIOException("Could not append to the loan journal.",
+                                     exception);
+    }
+    writePosition_ += RECORD_SIZE;
+    return writePosition_;
+  }
+
+
+
+  // Returns once the journal is durable up to position. If no thread is
+  // forcing, this thread forces on behalf of every record appended so far;
+  // otherwise it waits for the force in progress, which may already cover
+  // its record.
+  private void awaitDurable(long position)
+  {
+    while (true) {
+      synchronized (forceLock_) {
+        while (forcing_ && durablePosition_ < position) {
+          try {
+            forceLock_.wait();
+          }
+          catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(
+              new InterruptedIOException("Interrupted waiting for the loan " +
+                                         "journal."));
+          }
+        }
+        if (durablePosition_ >= position) {
+          return;
+        }
+        forcing_ = true;
+      }
+
+      long target = writePosition_;
+      boolean forced = false;
+      try {
+        channel_.force(false);
+        forceCount_.incrementAndGet();
+        forced = true;
+      }
+      catch (IOException exception) {
+        throw new UncheckedIOException("Could not force the loan journal.",
+                                       exception);
+      }
+      finally {
+        synchronized (forceLock_) {
+          forcing_ = false;
+          if (forced && target > durablePosition_) {
+            durablePosition_ = target;
+          }
+          forceLock_.notifyAll();
+        }
+      }
+    }
+  }
+
+
+
+  private void replay()
+    throws IOException
+  {
+    long size = channel_.size();
+    if (size < HEADER_SIZE) {
+      writeHeader();
+      return;
+    }
+
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    readFully(header, 0);
+    if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+      throw new IOException("Not a loan journal, or an unsupported version.");
+    }
+
+    long position = HEADER_SIZE;
+    ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    while (position + RECORD_SIZE <= size) {
+      record.clear();
+      readFully(record, position);
+      if (!isChecksumValid(record)) {
+        break;
+      }
+      apply(record);
+      position += RECORD_SIZE;
+    }
+
+    // Anything after the last whole, valid record was being written when
+    // the process stopped, and was never acknowledged
+    if (position < size) {
+      channel_.truncate(position);
+      channel_.force(false);
+    }
+    writePosition_ = position;
+    durablePosition_ = position;
+  }
+
+
+
+  private void apply(ByteBuffer record)
+    throws IOException
+  {
+    byte type = record.get(0);
+    int loanID = record.getInt(1);
+
+    switch (type) {
+      case COMMIT:
+        IBook book = bookDAO_.getBookByID(record.getInt(5));
+        IMember borrower = memberDAO_.getMemberByID(record.getInt(9));
+        if (book == null || borrower == null) {
+          throw new IOException("Loan " + loanID + " in the journal refers " +
+                                "to a book or member that does not exist.");
+        }
+        makeAvailable(book);
+        ILoan loan = helper_.makeLoan(book, borrower,
+                                      new Date(record.getLong(13)),
+                                      new Date(record.getLong(21)));
+        restoreLoan(loan, loanID);
+        break;
+      case SWEEP:
+        super.updateOverDueStatus(new Date(record.getLong(13)));
+        break;
+      case COMPLETE:
+        ILoan completed = getLoanByID(loanID);
+        if (completed == null) {
+          throw new IOException("Loan " + loanID + " is completed in the " +
+                                "journal but was never committed.");
+        }
+        super.completeLoan(completed);
+        restoreBook(completed, record.getInt(5));
+        if (record.getInt(9) == NOT_HELD &&
+            completed.getBorrower().getLoans().contains(completed)) {
+          completed.getBorrower().removeLoan(completed);
+        }
+        break;
+      default:
+        throw new IOException("Unknown record type " + type + " in the " +
+                              "loan journal.");
+    }
+  }
+
+
+
+  // Puts the loan's book back in the state journalled with its completion,
+  // if the book was returned or lost while the loan was still its loan
+  private void restoreBook(ILoan loan, int bookState)
+    throws IOException
+  {
+    if (bookState == 0) {
+      return;
+    }
+    if (bookState > BOOK_STATES.length) {
+      throw new IOException("Loan " + loan.getID() + " is completed in the " +
+                            "journal with an unknown book state.");
+    }
+    EBookState state = BOOK_STATES[bookState - 1];
+    IBook book = loan.getBook();
+    if (book.getState() != EBookState.ON_LOAN || book.getLoan() != loan) {
+      return;
+    }
+    if (state == EBookState.AVAILABLE || state == EBookState.DAMAGED) {
+      book.returnBook(state == EBookState.DAMAGED);
+    }
+    else if (state == EBookState.LOST) {
+      book.lose();
+    }
+  }
+
+
+
+  // The book was AVAILABLE when the loan being replayed was committed, so
+  // a return or repair made after its last completion is made again
+  private void makeAvailable(IBook book)
+  {
+    if (book.getState() == EBookState.ON_LOAN) {
+      book.returnBook(false);
+    }
+    else if (book.getState() == EBookState.DAMAGED) {
+      book.repair();
+    }
+  }
+
+
+
+  private void writeHeader()
+    throws IOException
+  {
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.putInt(MAGIC).putInt(VERSION).flip();
+    channel_.truncate(0);
+    writeFully(header, 0);
+    channel_.force(true);
+    writePosition_ = HEADER_SIZE;
+    durablePosition_ = HEADER_SIZE;
+  }
+
+
+
+  private boolean isChecksumValid(ByteBuffer record)
+  {
+    CRC32 checksum = new CRC32();
+    checksum.update(record.array(), 0, RECORD_SIZE - 4);
+    return (int)checksum.getValue() == record.getInt(RECORD_SIZE - 4);
+  }
+
+
+
+  private void writeFully(ByteBuffer buffer, long position)
+    throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      position += channel_.write(buffer, position);
+    }
+  }
+
+
+
+  private void readFully(ByteBuffer buffer, long position)
+    throws IOException
+  {
+    while (buffer.hasRemaining()) {
+      int read = channel_.read(buffer, position);
+      if (read < 0) {
+        throw new IOException("Unexpected end of the loan journal.");
+      }
+      position += read;
+    }
+  }
+
+}
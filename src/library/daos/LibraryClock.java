@@ -0,0 +1,162 @@
+package library.daos;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.TimeZone;
+
+import library.interfaces.ILibraryClock;
+
+/**
+ * Tells the DAOs which day it is in the library. Days are counted from
+ * 1970-01-01 (epoch days) in the library's time zone, and the DAOs and
+ * Loans dated by a clock ask it which day a date falls on, so that they all
+ * agree on where one day ends and the next begins.
+ *
+ * The current day is computed once and reused until midnight, when the
+ * next call computes it again, so asking for today costs a read of the
+ * system clock and a comparison. Simulations and tests can move the clock
+ * forward any number of days with advance().
+ */
+public class LibraryClock
+  implements ILibraryClock
+{
+  //===========================================================================
+  // Variables
+  //===========================================================================
+
+  private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+  private ZoneId zone_;
+  // The same zone, which gives the offset at an instant without allocating
+  private TimeZone timeZone_;
+
+  // Replaced as a whole at midnight, so readers see a matching day and
+  // midnight without locking
+  private volatile Day today_;
+  private volatile int daysAdvanced_ = 0;
+
+  //===========================================================================
+  // Constructors
+  //===========================================================================
+
+  /**
+   * Creates a new LibraryClock in the system default time zone.
+   */
+  public LibraryClock()
+  {
+    this(ZoneId.systemDefault());
+  }
+
+
+
+  /**
+   * Creates a new LibraryClock in the given time zone.
+   * @param zone ZoneId The library's time zone.
+   * @throws IllegalArgumentException if zone is null.
+   */
+  public LibraryClock(ZoneId zone)
+    throws IllegalArgumentException
+  {
+    if (zone == null) {
+      throw new IllegalArgumentException("Cannot create a new LibraryClock " +
+                                         "with a null time zone.");
+    }
+    zone_ = zone;
+    timeZone_ = TimeZone.getTimeZone(zone);
+    today_ = computeToday();
+  }
+
+  //===========================================================================
+  // Primary methods
+  //===========================================================================
+
+  /**
+   * Returns today's epoch day, plus any days the clock has been advanced.
+   * @return int Today's epoch day.
+   */
+  @Override
+  public int getToday()
+  {
+    Day today = today_;
+    if (System.currentTimeMillis() >= today.nextMidnight) {
+      today = computeToday();
+      today_ = today;
+    }
+    return today.day + daysAdvanced_;
+  }
+
+
+
+  /**
+   * Returns the time at which the given day starts in the library's time
+   * zone, in milliseconds since the epoch.
+   * @param day int The epoch day.
+   * @return long The start of the day in milliseconds since the epoch.
+   */
+  @Override
+  public long getStartOfDay(int day)
+  {
+    return LocalDate.ofEpochDay(day)
+                    .atStartOfDay(zone_)
+                    .toInstant()
+                    .toEpochMilli();
+  }
+
+
+
+  /**
+   * Returns the epoch day on which the given time falls in the library's
+   * time zone.
+   * @param time long The time in milliseconds since the epoch.
+   * @return int The epoch day.
+   */
+  @Override
+  public int getDay(long time)
+  {
+    long localTime = time + timeZone_.getOffset(time);
+    return (int)Math.floorDiv(localTime, MILLIS_PER_DAY);
+  }
+
+
+
+  /**
+   * Moves the clock forward, for simulations and tests.
+   * @param days int The number of days to move the clock forward.
+   * @throws IllegalArgumentException if days is negative.
+   */
+  public synchronized void advance(int days)
+    throws IllegalArgumentException
+  {
+    if (days < 0) {
+      throw new IllegalArgumentException("Cannot advance a LibraryClock by " +
+                                         "a negative number of days.");
+    }
+    daysAdvanced_ += days;
+  }
+
+  //===========================================================================
+  // Helper methods
+  //===========================================================================
+
+  private Day computeToday()
+  {
+    LocalDate today = LocalDate.now(zone_);
+    long nextMidnight = getStartOfDay((int)today.toEpochDay() + 1);
+    return new Day((int)today.toEpochDay(), nextMidnight);
+  }
+
+
+
+  private static final class Day
+  {
+    private final int day;
+    private final long nextMidnight;
+
+    private Day(int day, long nextMidnight)
+    {
+      this.day = day;
+      this.nextMidnight = nextMidnight;
+    }
+  }
+
+}
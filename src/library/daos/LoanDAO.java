@@ -1,12 +1,20 @@
 package library.daos;
 
 import java.util.ArrayList;
-import java.util.Calendar;
+import java.util.Collection;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-
+import java.util.Queue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import library.interfaces.ILibraryClock;
 import library.interfaces.daos.ILoanDAO;
 import library.interfaces.daos.ILoanHelper;
 import library.interfaces.entities.IBook;
@@ -19,6 +27,13 @@ import library.interfaces.entities.IMember;
  * individual loans, identifying overdue loans and updating state of overdue
  * loans.
  *
+ * A single LoanDAO may be shared by concurrent borrow sessions. Ids are
+ * allocated atomically and the loan table, borrower index and overdue set
+ * are concurrent, so reads never block; only the due day index, which is
+ * written by commits and the overdue sweep, is guarded by a lock.
+ * completeLoan takes the same lock, so a loan cannot be completed while
+ * the sweep is checking it.
+ *
  * @author nicholasbaldwin
  */
 public class LoanDAO
@@ -28,29 +43,70 @@ public class LoanDAO
   // Variables
   //===========================================================================
 
-  private int nextID_ = 1;
+  private AtomicInteger nextID_ = new AtomicInteger(1);
 
   private ILoanHelper helper_;
-  private Calendar calendar_ = Calendar.getInstance();
-  private Map<Integer, ILoan> loanMap_ = new HashMap<>();
+  private ILibraryClock clock_;
+
+  // Borrow and due dates for loans created today, replaced when the clock
+  // moves on to another day
+  private volatile LoanDates loanDates_ = null;
+
+  private EntityTable<ILoan> loanTable_ = new EntityTable<>();
+  private ConcurrentMap<Integer, Queue<ILoan>> borrowerIndex_ =
+    new ConcurrentHashMap<>();
+
+  // Current loans bucketed by due day (days since the epoch), so that the
+  // overdue sweep only visits loans whose due day has passed. Guarded by
+  // itself; completeLoan also holds it, so the sweep never sees a loan's
+  // state change between checking it is current and marking it overdue.
+  private TreeMap<Long, List<ILoan>> dueDayIndex_ = new TreeMap<>();
+
+  // Overdue loans by id, added as the sweep finds them and removed when
+  // completeLoan completes them. The skip list's size() walks the list, so
+  // the count is kept alongside it.
+  private ConcurrentSkipListMap<Integer, ILoan> overDueLoans_ =
+    new ConcurrentSkipListMap<>();
+  private AtomicInteger overDueCount_ = new AtomicInteger();
 
   //===========================================================================
   // Constructors
   //===========================================================================
 
   /**
-   * Creates new LoanDAO.
+   * Creates new LoanDAO, which dates loans by the system clock.
    * @param helper ILoanHelper The helper this DAO uses to instantiate Loans.
    * @throws IllegalArgumentException if helper is null.
    */
   public LoanDAO(ILoanHelper helper)
     throws IllegalArgumentException
+  {
+    this(helper, new LibraryClock());
+  }
+
+
+
+  /**
+   * Creates new LoanDAO, which dates loans and sweeps for overdue loans by
+   * the given clock. The helper should make Loans with the same clock (see
+   * LoanHelper), so that the DAO and its Loans agree on what a day is.
+   * @param helper ILoanHelper The helper this DAO uses to instantiate Loans.
+   * @param clock ILibraryClock The clock giving the day loans are made on.
+   * @throws IllegalArgumentException if helper or clock is null.
+   */
+  public LoanDAO(ILoanHelper helper, ILibraryClock clock)
+    throws IllegalArgumentException
   {
     if (helper == null) {
       throw new IllegalArgumentException("Cannot create a new LoanDAO with " +
                                          "a null Loan Helper.");
     }
+    if (clock == null) {
+      throw new IllegalArgumentException("Cannot create a new LoanDAO with " +
+                                         "a null Library Clock.");
+    }
     helper_ = helper;
+    clock_ = clock;
   }
 
   //===========================================================================
@@ -59,8 +115,8 @@ public class LoanDAO
 
   /**
    * Uses LoanHelper to create a new Loan with default id of zero, sets
-   * borrow date on current system time and sets due date using the standard
-   * loan duration (from borrow date).
+   * borrow date to the start of the clock's current day and sets due date
+   * using the standard loan duration (from borrow date).
    * @param borrower IMember The borrower who wishes to create a loan.
    * @param book IBook The book that the borrower wishes to loan.
    * @return Loan A pending loan associated with the borrower and the book,
@@ -72,16 +128,19 @@ public class LoanDAO
   public ILoan createLoan(IMember borrower, IBook book)
     throws IllegalArgumentException
   {
-    Date borrowDate = ignoreTime(new Date());
-    Date dueDate = calculateDueDate(borrowDate);
+    LoanDates dates = loanDatesFor(clock_.getToday());
 
-    return helper_.makeLoan(book, borrower, borrowDate, dueDate);
+    // Date is mutable, so each loan is given its own instances
+    return helper_.makeLoan(book, borrower, new Date(dates.borrowDate),
+                            new Date(dates.dueDate));
   }
 
 
 
   /**
-   * Assigns the Loan a unique id and stores the Loan.
+   * Assigns the Loan a unique id and stores the Loan, indexing it against
+   * the id of its borrower and its due day (if current) or recording it as
+   * overdue (if overdue).
    * @param loan ILoan The Loan to be committed.
    * @throws RuntimeException if this Loan's state is not (initially) PENDING.
    * @throws IllegalArgumentException if id is less than or equal to 0.
@@ -91,9 +150,55 @@ public class LoanDAO
   public void commitLoan(ILoan loan)
     throws RuntimeException, IllegalArgumentException
   {
-    loan.commit(nextID_);
-    loanMap_.put(nextID_, loan);
-    nextID_++;
+    // An id is never reused, even if the loan rejects it
+    int id = nextID_.getAndIncrement();
+    loan.commit(id);
+    store(loan, id);
+  }
+
+
+
+  /**
+   * Commits the Loan with the given id rather than the next id, and stores
+   * it as commitLoan does. Used to rebuild the committed loan collection
+   * from persistent storage; ids handed out afterwards follow the highest
+   * id restored.
+   * @param loan ILoan The Loan to be restored.
+   * @param id int The id the Loan was originally committed with.
+   * @throws RuntimeException if this Loan's state is not (initially) PENDING.
+   * @throws IllegalArgumentException if id is less than or equal to 0.
+   * (propagated from Loan.commit method)
+   */
+  void restoreLoan(ILoan loan, int id)
+    throws RuntimeException, IllegalArgumentException
+  {
+    loan.commit(id);
+    store(loan, id);
+    nextID_.accumulateAndGet(id + 1, Math::max);
+  }
+
+
+
+  /**
+   * Completes the given committed Loan and removes it from the overdue set.
+   * Committed loans must be completed here rather than through
+   * Loan.complete(), or they stay in the overdue set. Waits for an overdue
+   * sweep in progress to finish, so the sweep cannot mark the Loan overdue
+   * again after it has been completed.
+   * @param loan ILoan The Loan to be completed.
+   * @throws RuntimeException if this Loan's state is not CURRENT or OVERDUE.
+   * (propagated from Loan.complete method)
+   */
+  @Override
+  public void completeLoan(ILoan loan)
+    throws RuntimeException
+  {
+    synchronized (dueDayIndex_) {
+      loan.complete();
+      if (overDueLoans_.remove(loan.getID()) != null) {
+        overDueCount_.decrementAndGet();
+      }
+    }
   }
 
 
@@ -108,12 +213,7 @@ public class LoanDAO
   @Override
   public ILoan getLoanByID(int id)
   {
-    if (loanMap_.containsKey(id)) {
-      return loanMap_.get(id);
-    }
-    else {
-      return null;
-    }
+    return loanTable_.get(id);
   }
 
 
@@ -125,22 +225,55 @@ public class LoanDAO
   @Override
   public List<ILoan> listLoans()
   {
-    return new ArrayList<ILoan>(loanMap_.values());
+    return loanTable_.values();
+  }
+
+
+
+  /**
+   * Returns up to limit loans in the committed loan collection with ids
+   * greater than afterID, in id order. To page through all loans, pass 0 for
+   * the first page and then the id of the last loan of each page.
+   * @param afterID int The id after which the page starts.
+   * @param limit int The maximum number of loans to return.
+   * @return List<ILoan> The loans in the page.
+   * @throws IllegalArgumentException if afterID or limit is negative.
+   */
+  @Override
+  public List<ILoan> listLoans(int afterID, int limit)
+    throws IllegalArgumentException
+  {
+    return loanTable_.page(afterID, limit);
+  }
+
+
+
+  /**
+   * Returns a stream of all loans in the committed loan collection, in id
+   * order, without copying the collection.
+   * @return Stream<ILoan> A stream of the committed loans.
+   */
+  @Override
+  public Stream<ILoan> streamLoans()
+  {
+    return loanTable_.stream();
   }
 
 
 
   /**
    * Returns a list of all loans in the committed loan collection associated
-   * with the given borrower.
-   * List<ILoan>
+   * with the given borrower, in commit order. Only the loans indexed against
+   * the borrower's id are visited.
    * @param borrower IMember The borrower associated with the loans.
+   * @return List<ILoan> The list of all loans in the committed loan
+   * collection associated with the given borrower.
    */
   @Override
   public List<ILoan> findLoansByBorrower(IMember borrower)
   {
-    List<ILoan> borrowerLoans= new ArrayList<>();
-    for (ILoan loan : loanMap_.values()) {
+    List<ILoan> borrowerLoans = new ArrayList<>();
+    for (ILoan loan : loansIndexedByBorrower(borrower)) {
       if (loan.getBorrower() == borrower) {
         borrowerLoans.add(loan);
       }
@@ -150,6 +283,28 @@ public class LoanDAO
 
 
 
+  /**
+   * Returns a list of the active (CURRENT or OVERDUE) loans in the committed
+   * loan collection associated with the given borrower, in commit order.
+   * @param borrower IMember The borrower associated with the loans.
+   * @return List<ILoan> The list of active loans associated with the given
+   * borrower.
+   */
+  @Override
+  public List<ILoan> findActiveLoansByBorrower(IMember borrower)
+  {
+    List<ILoan> activeLoans = new ArrayList<>();
+    for (ILoan loan : loansIndexedByBorrower(borrower)) {
+      if (loan.getBorrower() == borrower &&
+          (loan.isCurrent() || loan.isOverDue())) {
+        activeLoans.add(loan);
+      }
+    }
+    return activeLoans;
+  }
+
+
+
   /**
    * Returns a list of all loans in the committed loan collection associated
    * with books with the given title.
@@ -161,7 +316,7 @@ public class LoanDAO
   public List<ILoan> findLoansByBookTitle(String title)
   {
     List<ILoan> bookTitleLoans = new ArrayList<>();
-    for (ILoan loan : loanMap_.values()) {
+    for (ILoan loan : loanTable_) {
       if (loan.getBook().getTitle().equalsIgnoreCase(title)) {
         bookTitleLoans.add(loan);
       }
@@ -172,8 +327,11 @@ public class LoanDAO
 
 
   /**
-   * Iterates through the committed loan collection updating the overdue
-   * status of current loans according to date.
+   * Updates the overdue status of current loans according to date. Only the
+   * loans whose due day is before the given date are visited; loans which
+   * are no longer current (e.g. completed) are dropped from the due day index
+   * as they are reached, and loans which become overdue are recorded in the
+   * overdue set.
    * @param date Date The current date, used to check if each current loan is
    * overdue.
    * Each loan must be checked if current first, otherwise a RuntimeException
@@ -182,55 +340,177 @@ public class LoanDAO
   @Override
   public void updateOverDueStatus(Date date)
   {
-    for (ILoan loan : loanMap_.values()) {
-      if (loan.isCurrent()) {
-        loan.checkOverDue(date);
+    synchronized (dueDayIndex_) {
+      SortedMap<Long, List<ILoan>> pastDue =
+        dueDayIndex_.headMap(toEpochDay(date));
+      List<ILoan> notOverDue = new ArrayList<>();
+
+      for (List<ILoan> loans : pastDue.values()) {
+        for (ILoan loan : loans) {
+          if (!loan.isCurrent()) {
+            continue;
+          }
+          if (loan.checkOverDue(date)) {
+            recordOverDue(loan.getID(), loan);
+          }
+          else {
+            notOverDue.add(loan);
+          }
+        }
+      }
+      pastDue.clear();
+
+      // Should not happen as the index and Loan agree on what a day is, but
+      // re-index rather than lose track of a loan that is still current
+      for (ILoan loan : notOverDue) {
+        indexByDueDay(loan);
       }
     }
   }
 
 
 
+  /**
+   * Updates the overdue status of current loans as updateOverDueStatus(Date)
+   * does, as of the start of the clock's current day. A clock that has been
+   * advanced sweeps as of the day it has been advanced to.
+   */
+  @Override
+  public void updateOverDueStatus()
+  {
+    updateOverDueStatus(new Date(clock_.getStartOfDay(clock_.getToday())));
+  }
+
+
+
   /**
    * Returns a list of all loans in the committed loan collection which are
-   * currently overdue (according to state).
+   * currently overdue, in id order. Only the overdue set is visited, not
+   * the whole committed loan collection.
    * @return List<ILoan> All loans in the committed loan collection which are
    * currently overdue.
    */
   @Override
   public List<ILoan> findOverDueLoans()
   {
-    List<ILoan> overdueLoans = new ArrayList<>();
-    for (ILoan loan : loanMap_.values()) {
-      if (loan.isOverDue()) {
-        overdueLoans.add(loan);
-      }
-    }
-    return overdueLoans;
+    return new ArrayList<ILoan>(overDueLoans_.values());
+  }
+
+
+
+  /**
+   * Returns the number of loans in the committed loan collection which are
+   * currently overdue, without visiting them.
+   * @return int The number of currently overdue loans.
+   */
+  @Override
+  public int countOverDueLoans()
+  {
+    return overDueCount_.get();
   }
 
   //===========================================================================
   // Helper methods
   //===========================================================================
 
-  private Date ignoreTime(Date date)
+  private void store(ILoan loan, int id)
   {
-    calendar_.setTime(date);
-    calendar_.set(java.util.Calendar.HOUR_OF_DAY, 0);
-    calendar_.set(java.util.Calendar.MINUTE, 0);
-    calendar_.set(java.util.Calendar.SECOND, 0);
-    calendar_.set(java.util.Calendar.MILLISECOND, 0);
+    loanTable_.put(id, loan);
+    indexByBorrower(loan);
+    if (loan.isCurrent()) {
+      indexByDueDay(loan);
+    }
+    else if (loan.isOverDue()) {
+      recordOverDue(id, loan);
+    }
+  }
+
 
-    return calendar_.getTime();
+
+  private void indexByBorrower(ILoan loan)
+  {
+    IMember borrower = loan.getBorrower();
+    if (borrower == null) {
+      return;
+    }
+    borrowerIndex_.computeIfAbsent(borrower.getId(),
+                                   id -> new ConcurrentLinkedQueue<>())
+                  .add(loan);
   }
 
 
 
-  private Date calculateDueDate(Date borrowDate)
+  private void recordOverDue(int id, ILoan loan)
   {
-    calendar_.setTime(borrowDate);
-    calendar_.add(Calendar.DATE, ILoan.LOAN_PERIOD);
-    return calendar_.getTime();
+    if (overDueLoans_.put(id, loan) == null) {
+      overDueCount_.incrementAndGet();
+    }
+  }
+
+
+
+  private void indexByDueDay(ILoan loan)
+  {
+    Long dueDay = toEpochDay(loan.getDueDate());
+    synchronized (dueDayIndex_) {
+      List<ILoan> dueLoans = dueDayIndex_.get(dueDay);
+      if (dueLoans == null) {
+        dueLoans = new ArrayList<>();
+        dueDayIndex_.put(dueDay, dueLoans);
+      }
+      dueLoans.add(loan);
+    }
+  }
+
+
+
+  private long toEpochDay(Date date)
+  {
+    return clock_.getDay(date.getTime());
+  }
+
+
+
+  // Loans are indexed on borrower id, but matched on the borrower itself
+  // (as before the index existed) in case distinct members share an id.
+  private Collection<ILoan> loansIndexedByBorrower(IMember borrower)
+  {
+    Queue<ILoan> borrowerLoans = borrowerIndex_.get(borrower.getId());
+    if (borrowerLoans == null) {
+      return new ArrayList<>();
+    }
+    return borrowerLoans;
+  }
+
+
+
+  // Computed once per day; sessions racing on the first loan of a day
+  // compute the same dates, so the last one stored wins harmlessly
+  private LoanDates loanDatesFor(int today)
+  {
+    LoanDates dates = loanDates_;
+    if (dates == null || dates.day != today) {
+      dates = new LoanDates(today, clock_.getStartOfDay(today),
+                            clock_.getStartOfDay(today + ILoan.LOAN_PERIOD));
+      loanDates_ = dates;
+    }
+    return dates;
+  }
+
+
+
+  private static final class LoanDates
+  {
+    private final int day;
+    private final long borrowDate;
+    private final long dueDate;
+
+    private LoanDates(int day, long borrowDate, long dueDate)
+    {
+      this.day = day;
+      this.borrowDate = borrowDate;
+      this.dueDate = dueDate;
+    }
   }
 
 }
@@ -2,6 +2,7 @@ package library.daos;
 
 import java.util.Date;
 
+import library.interfaces.ILibraryClock;
 import library.interfaces.daos.ILoanHelper;
 import library.interfaces.entities.IBook;
 import library.interfaces.entities.ILoan;
@@ -17,15 +18,43 @@ import library.entities.Loan;
 public class LoanHelper
   implements ILoanHelper
 {
+  //===========================================================================
+  // Variables
+  //===========================================================================
+
+  // Tells Loans which day a date falls on
+  private ILibraryClock clock_;
+
   //===========================================================================
   // Constructors
   //===========================================================================
 
   /**
-   * Creates new LoanHelper.
+   * Creates new LoanHelper, whose Loans use the days of the default time
+   * zone.
    */
   public LoanHelper()
   {
+    this(new LibraryClock());
+  }
+
+
+
+  /**
+   * Creates new LoanHelper, whose Loans use the days of the given clock. A
+   * LoanDAO dated by a clock should be given a helper with the same clock.
+   * @param clock ILibraryClock The clock telling Loans which day a date
+   * falls on.
+   * @throws IllegalArgumentException if clock is null.
+   */
+  public LoanHelper(ILibraryClock clock)
+    throws IllegalArgumentException
+  {
+    if (clock == null) {
+      throw new IllegalArgumentException("Cannot create a new LoanHelper " +
+                                         "with a null Library Clock.");
+    }
+    clock_ = clock;
   }
 
   //===========================================================================
@@ -49,7 +78,7 @@ public class LoanHelper
                         Date borrowDate, Date dueDate)
     throws IllegalArgumentException
   {
-    return new Loan(book, borrower, borrowDate, dueDate);
+    return new Loan(book, borrower, borrowDate, dueDate, clock_);
   }
 
 }
@@ -1,13 +1,22 @@
 package library.daos;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import library.entities.MemberSummary;
 import library.interfaces.daos.IMemberDAO;
 import library.interfaces.daos.IMemberHelper;
 import library.interfaces.entities.IMember;
+import library.interfaces.entities.IMemberSummary;
 
 
 /**
@@ -15,6 +24,10 @@ import library.interfaces.entities.IMember;
 * map of Member objects. This class provides 
 * methods to access and manipulate this map
 *
+* A single MemberDAO may be shared by concurrent borrow
+* sessions: ids are allocated atomically and lookups
+* never block
+*
 * @author  Rebecca Callow
 */
 public class MemberDAO 
@@ -28,9 +41,14 @@ public class MemberDAO
   
   
   private IMemberHelper helper_;
-  private Map<Integer, IMember> memberMap_;
+  private EntityTable<IMember> memberTable_;
+
+  // Lookup indexes, kept in step with memberTable_ by addMember
+  private ConcurrentMap<String, Queue<IMember>> lastNameIndex_;
+  private ConcurrentMap<String, Queue<IMember>> emailAddressIndex_;
+  private ConcurrentMap<String, ConcurrentMap<String, Queue<IMember>>> namesIndex_;
 
-  private int nextId_;
+  private AtomicInteger nextId_;
   
   
   
@@ -45,8 +63,9 @@ public class MemberDAO
     if (helper != null)
     {
       helper_ = helper;
-      memberMap_ = new HashMap<Integer, IMember>();
-      nextId_ = 1;
+      memberTable_ = new EntityTable<IMember>();
+      createIndexes();
+      nextId_ = new AtomicInteger(1);
     }
     else
     {
@@ -59,7 +78,21 @@ public class MemberDAO
   public MemberDAO(IMemberHelper helper, Map<Integer, IMember> memberMap)
   {
     helper_ = helper;
-    memberMap_ = memberMap;
+    memberTable_ = new EntityTable<IMember>();
+    createIndexes();
+    nextId_ = new AtomicInteger(1);
+
+    // Store and index the supplied members in id order, so that lookups
+    // return members in the same order as those added through addMember
+    for (IMember member : new TreeMap<Integer, IMember>(memberMap).values())
+    {
+      memberTable_.put(member.getId(), member);
+      indexMember(member);
+      if (member.getId() >= nextId_.get())
+      {
+        nextId_.set(member.getId() + 1);
+      }
+    }
   }
   
   
@@ -76,8 +109,10 @@ public class MemberDAO
   {
     IMember newMember = helper_.makeMember(firstName, lastName, contactPhone, 
                                            emailAddress, getNextId());
-    memberMap_.put(newMember.getId(), newMember);
-    nextId_ += 1;
+    // Stored before indexing, so any member found through an index can
+    // also be found by id
+    memberTable_.put(newMember.getId(), newMember);
+    indexMember(newMember);
     return newMember;
   }
   
@@ -86,15 +121,22 @@ public class MemberDAO
   @Override
   public IMember getMemberByID(int id) 
   {
-    try
-    {
-      IMember member = memberMap_.get(id);
-      return member;
-    }
-    catch (NullPointerException ex)
+    return memberTable_.get(id);
+  }
+
+
+
+  // The member's loans, fines and restrictions in one call, or null if
+  // there is no member with the given id
+  @Override
+  public IMemberSummary getMemberSummary(int id)
+  {
+    IMember member = getMemberByID(id);
+    if (member == null)
     {
       return null;
     }
+    return new MemberSummary(member);
   }
 
 
@@ -102,56 +144,123 @@ public class MemberDAO
   @Override
   public List<IMember> listMembers() 
   {
-    List<IMember> memberList = new ArrayList<IMember>(memberMap_.values());
-    return memberList;
+    return memberTable_.values();
   }
 
 
 
+  // Keyset paging: pass 0 for the first page, then the id of the last
+  // member of each page
   @Override
-  public List<IMember> findMembersByLastName(String lastName) {
-    ArrayList<IMember> membersByLastName = new ArrayList<>();
+  public List<IMember> listMembers(int afterID, int limit)
+  {
+    return memberTable_.page(afterID, limit);
+  }
 
-    for (int n = 1; n <= memberMap_.size(); n++)
-    {
-      if (memberMap_.get(n).getLastName().equals(lastName))
-      {
-        membersByLastName.add(memberMap_.get(n));
-      }
-    }
-    return membersByLastName;
+
+
+  @Override
+  public Stream<IMember> streamMembers()
+  {
+    return memberTable_.stream();
   }
 
 
 
   @Override
-  public List<IMember> findMembersByEmailAddress(String emailAddress) {
-    ArrayList<IMember> membersByEmailAddress = new ArrayList<>();
+  public List<IMember> findMembersByLastName(String lastName) {
+    return copyOf(lookUp(lastNameIndex_, lastName));
+  }
 
-    for (int n = 1; n <= memberMap_.size(); n++)
-    {
-      if (memberMap_.get(n).getEmailAddress().equals(emailAddress))
-      {
-        membersByEmailAddress.add(memberMap_.get(n));
-      }
-    }
-    return membersByEmailAddress;
+
+
+  @Override
+  public List<IMember> findMembersByEmailAddress(String emailAddress) {
+    return copyOf(lookUp(emailAddressIndex_, emailAddress));
   }
 
   
   
   @Override
   public List<IMember> findMembersByNames(String firstName, String lastName) {
-    ArrayList<IMember> membersByNames = new ArrayList<>();
+    ConcurrentMap<String, Queue<IMember>> membersByFirstName = 
+        lookUp(namesIndex_, lastName);
 
-    for (int n = 1; n <= memberMap_.size(); n++)
+    if (membersByFirstName == null)
     {
-      if ((memberMap_.get(n).getFirstName().equals(firstName)) && (memberMap_.get(n).getLastName().equals(lastName)))
-      {
-        membersByNames.add(memberMap_.get(n));
-      }
+      return new ArrayList<IMember>();
+    }
+    return copyOf(lookUp(membersByFirstName, firstName));
+  }
+  
+  
+  
+  // ==========================================================================
+  // Methods: Indexes
+  // ==========================================================================
+
+
+
+  private void createIndexes()
+  {
+    lastNameIndex_ = new ConcurrentHashMap<String, Queue<IMember>>();
+    emailAddressIndex_ = new ConcurrentHashMap<String, Queue<IMember>>();
+    namesIndex_ = 
+        new ConcurrentHashMap<String, ConcurrentMap<String, Queue<IMember>>>();
+  }
+
+
+
+  private void indexMember(IMember member)
+  {
+    addToIndex(lastNameIndex_, member.getLastName(), member);
+    addToIndex(emailAddressIndex_, member.getEmailAddress(), member);
+
+    if (member.getLastName() == null)
+    {
+      return;
     }
-    return membersByNames;
+    ConcurrentMap<String, Queue<IMember>> membersByFirstName = 
+        namesIndex_.computeIfAbsent(member.getLastName(),
+            key -> new ConcurrentHashMap<String, Queue<IMember>>());
+    addToIndex(membersByFirstName, member.getFirstName(), member);
+  }
+
+
+
+  private void addToIndex(ConcurrentMap<String, Queue<IMember>> index,
+                          String key, IMember member)
+  {
+    // Concurrent maps do not hold null keys, and no lookup can match one
+    if (key == null)
+    {
+      return;
+    }
+    index.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<IMember>())
+         .add(member);
+  }
+
+
+
+  private <V> V lookUp(ConcurrentMap<String, V> index, String key)
+  {
+    if (key == null)
+    {
+      return null;
+    }
+    return index.get(key);
+  }
+
+
+
+  // Callers receive their own list so they cannot modify an index
+  private List<IMember> copyOf(Collection<IMember> members)
+  {
+    if (members == null)
+    {
+      return new ArrayList<IMember>();
+    }
+    return new ArrayList<IMember>(members);
   }
   
   
@@ -162,9 +271,17 @@ public class MemberDAO
 
 
 
+  // Ids follow the highest id supplied to the constructor, so once a member
+  // with id Integer.MAX_VALUE has been supplied the counter has wrapped and
+  // there are no ids left to hand out
   private int getNextId()
   {
-    return nextId_;
+    int id = nextId_.getAndIncrement();
+    if (id <= 0)
+    {
+      throw new RuntimeException("MemberDAO: addMember: no member ids are left to allocate");
+    }
+    return id;
   }
 
 }
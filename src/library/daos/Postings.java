@@ -0,0 +1,77 @@
+package library.daos;
+
+import java.util.Arrays;
+
+/**
+ * Postings class
+ *
+ * A growing list of ints kept in ascending order, which the indexes use for
+ * the ids or codes posted under one key: a word, a trigram or an author.
+ *
+ * Written by one thread at a time, under a lock its owner takes, and read
+ * without a lock. An entry is written before size is raised, and the array
+ * is replaced before size when it grows or an entry is inserted out of
+ * order, so a reader that reads size() and then entries() always sees a
+ * sorted array holding at least that many entries.
+ *
+ */
+final class Postings
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private volatile int[] entries_ = new int[2];
+  private volatile int size_ = 0;
+
+
+
+  // ==========================================================================
+  // Methods
+  // ==========================================================================
+
+
+
+  int size()
+  {
+    return size_;
+  }
+
+
+
+  // Read after size() for a consistent view
+  int[] entries()
+  {
+    return entries_;
+  }
+
+
+
+  void add(int entry)
+  {
+    int size = size_;
+    int[] entries = entries_;
+
+    if(size == 0 || entries[size - 1] < entry) {
+      if(size == entries.length) {
+        entries = Arrays.copyOf(entries, size * 2);
+        entries_ = entries;
+      }
+      entries[size] = entry;
+    }
+    else {
+      // Concurrent adds can arrive out of order; insert into a copy so
+      // readers never see entries move
+      int at = Arrays.binarySearch(entries, 0, size, entry);
+      at = at >= 0 ? at : -at - 1;
+      int[] copy = new int[Math.max(entries.length, size + 1)];
+      System.arraycopy(entries, 0, copy, 0, at);
+      copy[at] = entry;
+      System.arraycopy(entries, at, copy, at + 1, size - at);
+      entries_ = copy;
+    }
+    size_ = size + 1;
+  }
+}
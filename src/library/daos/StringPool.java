@@ -0,0 +1,72 @@
+package library.daos;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * StringPool class
+ *
+ * Holds one canonical instance of each distinct string it is given. A real
+ * catalog has many copies of each title and many titles by each author, so
+ * pooling authors and titles keeps one String per distinct value rather
+ * than one per book, and lets equals() on pooled strings succeed on its
+ * reference check.
+ *
+ * Unlike String.intern() the pool is an ordinary object, so its strings are
+ * freed with it and it can be shared by exactly the objects that need it.
+ * Safe for use by multiple threads.
+ *
+ */
+public class StringPool
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private ConcurrentMap<String, String> strings_;
+
+
+
+  // ==========================================================================
+  // Constructor
+  // ==========================================================================
+
+
+
+  public StringPool()
+  {
+    strings_ = new ConcurrentHashMap<String, String>();
+  }
+
+
+
+  // ==========================================================================
+  // Pool Methods
+  // ==========================================================================
+
+
+
+  // Returns the pooled instance equal to value, adding value to the pool if
+  // there is none. Returns null for null.
+  public String intern(String value)
+  {
+    if(value == null) {
+      return null;
+    }
+
+    String pooled = strings_.putIfAbsent(value, value);
+    if(pooled == null) {
+      return value;
+    }
+    return pooled;
+  }
+
+
+
+  public int size()
+  {
+    return strings_.size();
+  }
+}
@@ -0,0 +1,268 @@
+package library.daos;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * TrigramIndex class
+ *
+ * Finds the strings most like a possibly misspelt query, for fuzzy author
+ * and title lookups. Each distinct string is cut into trigrams (the three
+ * character runs of each lower case word, padded with two spaces in front
+ * and one behind, so "Lee" gives "  l", " le", "lee" and "ee "), and each
+ * trigram keeps a posting list of the strings containing it.
+ *
+ * The similarity of two strings is the Jaccard similarity of their trigram
+ * sets: shared trigrams over all distinct trigrams of the pair, from 0 (no
+ * trigram in common) to 1 (the same trigrams). A lookup only reads the
+ * posting lists of the query's trigrams, counting how many of them each
+ * string shares, and skips strings that share too few to reach the
+ * threshold whatever their length.
+ *
+ * Adding a new string is synchronized; adding a string already in the index
+ * and lookups take no lock.
+ *
+ */
+public class TrigramIndex
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  public static final double DEFAULT_THRESHOLD = 0.3;
+
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private final Map<String, Integer> codes_;
+  private final Map<String, Postings> postings_;
+
+  // By code: each string and its number of distinct trigrams. Only
+  // appended to; a grown array is published before the count that uses it.
+  private volatile String[] strings_;
+  private volatile int[] trigramCounts_;
+  private volatile int count_;
+
+
+
+  // ==========================================================================
+  // Constructor
+  // ==========================================================================
+
+
+
+  public TrigramIndex()
+  {
+    codes_ = new ConcurrentHashMap<String, Integer>();
+    postings_ = new ConcurrentHashMap<String, Postings>();
+    strings_ = new String[DEFAULT_CAPACITY];
+    trigramCounts_ = new int[DEFAULT_CAPACITY];
+    count_ = 0;
+  }
+
+
+
+  // ==========================================================================
+  // Index Methods
+  // ==========================================================================
+
+
+
+  // Adds value if it is not already in the index
+  public void add(String value)
+  {
+    if(value == null) {
+      throw new IllegalArgumentException("TrigramIndex: add: value for "
+                                         + "'value' cannot be null");
+    }
+    // Most books share an author or title already added
+    if(!codes_.containsKey(value)) {
+      addNew(value);
+    }
+  }
+
+
+
+  private synchronized void addNew(String value)
+  {
+    if(codes_.containsKey(value)) {
+      return;
+    }
+
+    int code = count_;
+    if(code == strings_.length) {
+      int capacity = code + (code >> 1);
+      trigramCounts_ = Arrays.copyOf(trigramCounts_, capacity);
+      strings_ = Arrays.copyOf(strings_, capacity);
+    }
+    Set<String> trigrams = trigrams(value);
+    strings_[code] = value;
+    trigramCounts_[code] = trigrams.size();
+
+    for(String trigram: trigrams) {
+      postings_.computeIfAbsent(trigram, key -> new Postings()).add(code);
+    }
+    codes_.put(value, code);
+    count_ = code + 1;
+  }
+
+
+
+  public int size()
+  {
+    return count_;
+  }
+
+
+
+  // ==========================================================================
+  // Lookup Methods
+  // ==========================================================================
+
+
+
+  // Returns the indexed strings with a similarity to query of at least
+  // threshold, most similar first, with ties in the order they were added
+  public List<String> findSimilar(String query, double threshold)
+  {
+    if(query == null) {
+      throw new IllegalArgumentException("TrigramIndex: findSimilar: value "
+                                         + "for 'query' cannot be null");
+    }
+    if(threshold <= 0 || threshold > 1) {
+      throw new IllegalArgumentException("TrigramIndex: findSimilar: value "
+                                         + "for 'threshold' must be greater "
+                                         + "than 0 and at most 1");
+    }
+
+    Set<String> queryTrigrams = trigrams(query);
+    int queryCount = queryTrigrams.size();
+    List<String> similar = new ArrayList<String>();
+    if(queryCount == 0) {
+      return similar;
+    }
+
+    // Every posting of every query trigram, sorted so that each string's
+    // shared trigrams form a run
+    int[][] lists = new int[queryCount][];
+    int[] sizes = new int[queryCount];
+    int total = 0;
+    int n = 0;
+    for(String trigram: queryTrigrams) {
+      Postings postings = postings_.get(trigram);
+      if(postings != null) {
+        sizes[n] = postings.size();
+        lists[n] = postings.entries();
+        total += sizes[n];
+        n++;
+      }
+    }
+    int[] codes = new int[total];
+    int next = 0;
+    for(int i = 0; i < n; i++) {
+      System.arraycopy(lists[i], 0, codes, next, sizes[i]);
+      next += sizes[i];
+    }
+    Arrays.sort(codes);
+
+    // Similarity is at most shared / q, so a string sharing fewer than
+    // t * q of the query's trigrams cannot reach the threshold
+    int[] trigramCounts = trigramCounts_;
+    String[] strings = strings_;
+    int minShared = (int) Math.ceil(threshold * queryCount - 1e-9);
+    long[] matches = new long[16];
+    int matchCount = 0;
+
+    for(int start = 0; start < total; ) {
+      int code = codes[start];
+      int end = start;
+      while(end < total && codes[end] == code) {
+        end++;
+      }
+      int shared = end - start;
+      start = end;
+
+      if(shared < minShared) {
+        continue;
+      }
+      int union = queryCount + trigramCounts[code] - shared;
+      double similarity = (double) shared / union;
+      if(similarity < threshold) {
+        continue;
+      }
+      if(matchCount == matches.length) {
+        matches = Arrays.copyOf(matches, matchCount * 2);
+      }
+      // Sorts most similar first, then by lowest code: the bits of a
+      // positive float order the same way as its value
+      long rank = Integer.MAX_VALUE
+                  - Float.floatToIntBits((float) similarity);
+      matches[matchCount++] = (rank << 32) | code;
+    }
+    Arrays.sort(matches, 0, matchCount);
+
+    for(int i = 0; i < matchCount; i++) {
+      similar.add(strings[(int) matches[i]]);
+    }
+    return similar;
+  }
+
+
+
+  // The Jaccard similarity of the trigram sets of a and b
+  public static double similarity(String a, String b)
+  {
+    Set<String> aTrigrams = trigrams(a);
+    Set<String> bTrigrams = trigrams(b);
+    if(aTrigrams.isEmpty() && bTrigrams.isEmpty()) {
+      return 0;
+    }
+
+    int shared = 0;
+    for(String trigram: aTrigrams) {
+      if(bTrigrams.contains(trigram)) {
+        shared++;
+      }
+    }
+    return (double) shared / (aTrigrams.size() + bTrigrams.size() - shared);
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  // The distinct padded trigrams of each lower case word of value
+  static Set<String> trigrams(String value)
+  {
+    Set<String> trigrams = new LinkedHashSet<String>();
+    String lower = value.toLowerCase(Locale.ROOT);
+    int start = -1;
+
+    for(int i = 0; i <= lower.length(); i++) {
+      if(i < lower.length() && Character.isLetterOrDigit(lower.charAt(i))) {
+        if(start < 0) {
+          start = i;
+        }
+      }
+      else if(start >= 0) {
+        String padded = "  " + lower.substring(start, i) + " ";
+        for(int j = 0; j + 3 <= padded.length(); j++) {
+          trigrams.add(padded.substring(j, j + 3));
+        }
+        start = -1;
+      }
+    }
+    return trigrams;
+  }
+}
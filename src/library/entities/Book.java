@@ -2,6 +2,7 @@ package library.entities;
 
 import library.interfaces.entities.EBookState;
 import library.interfaces.entities.IBook;
+import library.interfaces.entities.IBookStateListener;
 import library.interfaces.entities.ILoan;
 
 /**
@@ -23,9 +24,13 @@ public class Book implements IBook
   
   private int id_;
   
-  private EBookState state_ = EBookState.AVAILABLE; 
+  // Volatile so that a listener reading the state after being told of a 
+  // change sees the latest one
+  private volatile EBookState state_ = EBookState.AVAILABLE; 
   
   private ILoan loan_ = null;
+  
+  private volatile IBookStateListener stateListener_ = null;
 
   
   
@@ -65,6 +70,24 @@ public class Book implements IBook
     id_ = bookID;
   }
   
+  
+  
+  // Makes a book already in the given state, e.g. one restored from a
+  // catalog snapshot. A book on loan needs its loan, so cannot be made here;
+  // it is made AVAILABLE and borrowed again.
+  public Book(String author, String title, String callNumber, int bookID,
+              EBookState state)
+  {
+    this(author, title, callNumber, bookID);
+    
+    if(state == null || state == EBookState.ON_LOAN) {
+      throw new IllegalArgumentException("Book: constructor: value for "
+                                         + "'state' cannot be null or "
+                                         + EBookState.ON_LOAN);
+    }
+    state_ = state;
+  }
+  
 
   
   // ==========================================================================
@@ -227,9 +250,24 @@ public class Book implements IBook
   
   
   
+  // The listener is told after every state change, e.g. so a DAO can keep 
+  // an index by state. Pass null to remove it.
+  @Override
+  public void setStateListener(IBookStateListener listener)
+  {
+    stateListener_ = listener;
+  }
+  
+  
+  
   private void setState(EBookState newState)
   {
     state_ = newState;
+    
+    IBookStateListener listener = stateListener_;
+    if(listener != null) {
+      listener.bookStateChanged(this);
+    }
   }
   
   
@@ -1,9 +1,8 @@
 package library.entities;
 
-import java.text.SimpleDateFormat;
-import java.util.Calendar;
 import java.util.Date;
 
+import library.interfaces.ILibraryClock;
 import library.interfaces.entities.ELoanState;
 import library.interfaces.entities.IBook;
 import library.interfaces.entities.ILoan;
@@ -23,12 +22,23 @@ public class Loan
   //===========================================================================
 
   private static int DEFAULT_ID = 0;
+
   private IBook book_;
   private IMember borrower_;
+  // The dates as given, returned by getBorrowDate and getDueDate
   private Date borrowDate_;
   private Date dueDate_;
+  // Tells this Loan which day a date falls on
+  private ILibraryClock clock_;
+  // The due date as days since 1970-01-01 in the clock's time zone, which
+  // the overdue check compares
+  private int dueDay_;
   private int id_;
 
+  // The rendered text below the id, which does not change once this Loan is
+  // created; built on first use by getDetails
+  private volatile String details_ = null;
+
   private ELoanState state_ = ELoanState.PENDING; // default state of new Loan
 
   //===========================================================================
@@ -36,28 +46,35 @@ public class Loan
   //===========================================================================
 
   /**
-   * Creates a new instance of a Loan, providing parameters are valid.
+   * Creates a new instance of a Loan, providing parameters are valid, whose
+   * days are those of the given clock.
    * @param book IBook
    * @param borrower IMember
    * @param borrowDate Date
    * @param dueDate Date
+   * @param clock ILibraryClock The clock telling this Loan which day a date
+   * falls on.
    * @throws IllegalArgumentException if:
-   *  - any of book, borrower, borrowDate, or dueDate are null
+   *  - any of book, borrower, borrowDate, dueDate or clock are null
    *  - dueDate is less than borrowDate
    */
-  public Loan(IBook book, IMember borrower, Date borrowDate, Date dueDate)
+  public Loan(IBook book, IMember borrower, Date borrowDate, Date dueDate,
+              ILibraryClock clock)
     throws IllegalArgumentException
   {
     throwIfObjectNull("Book.", book);
     throwIfObjectNull("Borrower.", borrower);
     throwIfObjectNull("Borrowing Date.", borrowDate);
     throwIfObjectNull("Due Date.", dueDate);
+    throwIfObjectNull("Library Clock.", clock);
+    clock_ = clock;
     throwIfDueDateIsLessThanBorrowDate(borrowDate, dueDate);
 
     book_ = book;
     borrower_ = borrower;
     borrowDate_ = borrowDate;
     dueDate_ = dueDate;
+    dueDay_ = toEpochDay(dueDate);
     id_ = Loan.DEFAULT_ID;
   }
 
@@ -78,7 +95,7 @@ public class Loan
                                                   Date dueDate)
     throws IllegalArgumentException
   {
-    if (ignoreTime(dueDate).before(ignoreTime(borrowDate))) {
+    if (toEpochDay(dueDate) < toEpochDay(borrowDate)) {
       throw new IllegalArgumentException("Cannot create a new Loan when the " +
                                          "Due Date is less than the Borrowing" +
                                          " Date.");
@@ -115,6 +132,30 @@ public class Loan
 
 
 
+  /**
+   * Returns the date this Loan was created.
+   * @return Date The borrow date of this Loan.
+   */
+  @Override
+  public Date getBorrowDate()
+  {
+    return borrowDate_;
+  }
+
+
+
+  /**
+   * Returns the date this Loan is due.
+   * @return Date The due date of this Loan.
+   */
+  @Override
+  public Date getDueDate()
+  {
+    return dueDate_;
+  }
+
+
+
   /**
    * Returns the this Loan's ID.
    * @return int The ID of this Loan.
@@ -176,7 +217,8 @@ public class Loan
 
 
   /**
-   * Sets this Loan state to COMPLETE.
+   * Sets this Loan state to COMPLETE and tells the borrower, so that the
+   * borrower no longer counts this Loan as overdue.
    * @throws RuntimeException if this Loan's state is not CURRENT or OVERDUE.
    */
   @Override
@@ -189,6 +231,7 @@ public class Loan
 
     if (isLoanIsCurrentOrOverDue) {
         state_ = ELoanState.COMPLETE;
+        getBorrower().loanHasBeenCompleted(this);
     } else {
       throw new RuntimeException("Completing a Loan that is not Current or " +
                                  "OverDue is invalid.");
@@ -254,24 +297,20 @@ public class Loan
 
   private boolean isAfterDueDate(Date currentDate)
   {
-    Date today = ignoreTime(currentDate);
-    Date due = ignoreTime(dueDate_);
-    return today.after(due);
+    return toEpochDay(currentDate) > dueDay_;
   }
 
 
 
-  private Date ignoreTime(Date date)
+  /**
+   * Returns the day the given date falls on according to this Loan's clock,
+   * as a count of days since 1970-01-01.
+   * @param date Date The date to convert.
+   * @return int The epoch day of the date.
+   */
+  private int toEpochDay(Date date)
   {
-    Calendar calendar = Calendar.getInstance();
-
-    calendar.setTime(date);
-    calendar.set(java.util.Calendar.HOUR_OF_DAY, 0);
-    calendar.set(java.util.Calendar.MINUTE, 0);
-    calendar.set(java.util.Calendar.SECOND, 0);
-    calendar.set(java.util.Calendar.MILLISECOND, 0);
-
-    return calendar.getTime();
+    return clock_.getDay(date.getTime());
   }
 
 
@@ -282,25 +321,26 @@ public class Loan
   @Override
   public String toString()
   {
-    StringBuffer loanString = new StringBuffer();
-    loanString.append("Loan ID:  " + getID() + "\n")
-              .append("Author:   " + getBook().getAuthor() + "\n")
-              .append("Title:    " + getBook().getTitle() + "\n")
-              .append("Borrower: " + getBorrower().getFirstName() + " " +
-                                     getBorrower().getLastName() + "\n")
-              .append("Borrowed: " + formattedDate(borrowDate_) + "\n")
-              .append("Due Date: " + formattedDate(dueDate_));
-
-    return loanString.toString();
+    return LoanRenderer.render(this);
   }
 
 
 
-  private static String formattedDate(Date date)
+  /**
+   * Returns the rendered text of this Loan below the id (see LoanRenderer),
+   * rendering it on first use.
+   * @return String The rendered text of this Loan below the id.
+   */
+  String getDetails()
   {
-    SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
-    String dateString = dateFormat.format(date);
-    return dateString;
+    String details = details_;
+    if (details == null) {
+      StringBuilder text = new StringBuilder(128);
+      LoanRenderer.appendDetails(text, this);
+      details = text.toString();
+      details_ = details;
+    }
+    return details;
   }
 
 }
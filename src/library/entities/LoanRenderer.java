@@ -0,0 +1,130 @@
+package library.entities;
+
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.List;
+
+import library.interfaces.entities.IBook;
+import library.interfaces.entities.ILoan;
+import library.interfaces.entities.IMember;
+
+/**
+ * Renders Loans as the text shown to borrowers, e.g.
+ *
+ *   Loan ID:  1
+ *   Author:   Charles Dickens
+ *   Title:    Great Expectations
+ *   Borrower: Neil Armstrong
+ *   Borrowed: 20/12/2015
+ *   Due Date: 03/01/2016
+ *
+ * Only the id can change after a Loan is created (when it is committed), so
+ * a Loan renders the lines below the id once and keeps them; rendering it
+ * again appends the id and the kept text to the caller's StringBuilder.
+ * Other ILoans are rendered in full each time.
+ */
+public final class LoanRenderer
+{
+  //===========================================================================
+  // Variables
+  //===========================================================================
+
+  // DateTimeFormatter is immutable, so one instance serves every thread
+  private static final DateTimeFormatter DATE_FORMAT =
+    DateTimeFormatter.ofPattern("dd/MM/yyyy");
+
+  /**
+   * The text between Loans rendered one after another.
+   */
+  public static final String LOAN_SEPARATOR = "\n\n";
+
+  //===========================================================================
+  // Constructors
+  //===========================================================================
+
+  private LoanRenderer()
+  {
+  }
+
+  //===========================================================================
+  // Primary methods
+  //===========================================================================
+
+  /**
+   * Returns the given Loan rendered as text.
+   * @param loan ILoan The Loan to render.
+   * @return String The rendered Loan.
+   */
+  public static String render(ILoan loan)
+  {
+    StringBuilder text = new StringBuilder(160);
+    appendTo(text, loan);
+    return text.toString();
+  }
+
+
+
+  /**
+   * Appends the given Loan, rendered as text, to out.
+   * @param out StringBuilder The text to append to.
+   * @param loan ILoan The Loan to render.
+   */
+  public static void appendTo(StringBuilder out, ILoan loan)
+  {
+    out.append("Loan ID:  ").append(loan.getID()).append('\n');
+    if (loan instanceof Loan) {
+      out.append(((Loan)loan).getDetails());
+    }
+    else {
+      appendDetails(out, loan);
+    }
+  }
+
+
+
+  /**
+   * Appends each of the given Loans, rendered as text, to out, separated by
+   * a blank line.
+   * @param out StringBuilder The text to append to.
+   * @param loans List<ILoan> The Loans to render, in order.
+   */
+  public static void appendAllTo(StringBuilder out, List<ILoan> loans)
+  {
+    for (int i = 0; i < loans.size(); i++) {
+      if (i > 0) {
+        out.append(LOAN_SEPARATOR);
+      }
+      appendTo(out, loans.get(i));
+    }
+  }
+
+  //===========================================================================
+  // Helper methods
+  //===========================================================================
+
+  // The lines below the id, which do not change once a Loan is created
+  static void appendDetails(StringBuilder out, ILoan loan)
+  {
+    IBook book = loan.getBook();
+    IMember borrower = loan.getBorrower();
+
+    out.append("Author:   ").append(book.getAuthor()).append('\n')
+       .append("Title:    ").append(book.getTitle()).append('\n')
+       .append("Borrower: ").append(borrower.getFirstName()).append(' ')
+                            .append(borrower.getLastName()).append('\n')
+       .append("Borrowed: ");
+    appendDate(out, loan.getBorrowDate());
+    out.append("\nDue Date: ");
+    appendDate(out, loan.getDueDate());
+  }
+
+
+
+  private static void appendDate(StringBuilder out, Date date)
+  {
+    DATE_FORMAT.formatTo(date.toInstant().atZone(ZoneId.systemDefault()),
+                         out);
+  }
+
+}
@@ -1,7 +1,12 @@
 package library.entities;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
 
 import library.interfaces.entities.EMemberState;
 import library.interfaces.entities.ILoan;
@@ -29,10 +34,20 @@ public class Member
   private String contactPhone_;
   private String emailAddress_;
   private int id_;
-  private ArrayList<ILoan> loanList_ = new ArrayList<>();
+  
+  // Loans by loan id, in the order they were added, so that finding and 
+  // removing a loan does not search a list
+  private LinkedHashMap<Integer, ILoan> loans_ = new LinkedHashMap<>();
+  // The list returned by getLoans(), rebuilt after the loans change
+  private List<ILoan> loanList_ = null;
   private EMemberState memberState_ = EMemberState.BORROWING_ALLOWED;
   private float totalFines_ = 0.0f;
   
+  // Restrictions are kept up to date as loans and fines change, so that
+  // the restriction queries below only read these fields
+  private Set<Integer> overDueLoanIds_ = new HashSet<>();
+  private boolean isRestricted_ = false;
+  
   
   
   // ==========================================================================
@@ -84,38 +99,22 @@ public class Member
   @Override
   public boolean hasOverDueLoans() 
   {
-    boolean hasOverDueLoans = false;
-    
-    for(ILoan loan: loanList_)
-    {
-      if (loan.isOverDue())
-      {
-        hasOverDueLoans = true;
-      }
-    }
-    if (hasOverDueLoans)
-    {
-      updateState(EMemberState.BORROWING_DISALLOWED);
-    }
-    return hasOverDueLoans;
+    return !overDueLoanIds_.isEmpty();
+  }
+
+
+
+  @Override
+  public int getOverDueLoanCount()
+  {
+    return overDueLoanIds_.size();
   }
 
 
 
   public boolean hasReachedLoanLimit()
   {
-    if (loanList_.size() >= IMember.LOAN_LIMIT)
-    {
-      if (borrowingAllowed())
-      {
-        updateState(EMemberState.BORROWING_DISALLOWED);
-      }
-      return true;
-    }
-    else
-    {
-      return false;
-    }
+    return loans_.size() >= IMember.LOAN_LIMIT;
   }
   
   
@@ -136,18 +135,7 @@ public class Member
   
   public boolean hasReachedFineLimit()
   {
-    if (totalFines_ >= IMember.FINE_LIMIT)
-    {
-      if (borrowingAllowed())
-      {
-        updateState(EMemberState.BORROWING_DISALLOWED);
-      }
-      return true;
-    }
-    else
-    {
-      return false;
-    }
+    return totalFines_ >= IMember.FINE_LIMIT;
   }
   
   
@@ -157,10 +145,7 @@ public class Member
     if (amount >= 0)
     {
       totalFines_ += amount;
-      if (hasReachedFineLimit() && (borrowingAllowed()))
-          {
-        updateState(EMemberState.BORROWING_DISALLOWED);
-          }
+      updateRestriction();
     }
     else
     {
@@ -175,14 +160,7 @@ public class Member
     if ((amount >= 0) && (amount <= totalFines_))
     {
       totalFines_ -= amount;
-      if (isRestricted())
-      {
-        updateState(EMemberState.BORROWING_DISALLOWED);
-      }
-      else
-      {
-        updateState(EMemberState.BORROWING_ALLOWED);
-      }
+      updateRestriction();
     }
     else
     {
@@ -197,18 +175,21 @@ public class Member
   {
     if (borrowingAllowed())
     {
-      if (loan != null)
+      if (loan == null)
       {
-        loanList_.add(loan);
+        throw new IllegalArgumentException("Member: addLoan: Loan cannot be null");
       }
-      else
+      if (loans_.containsKey(loan.getID()))
       {
-        throw new IllegalArgumentException("Member: addLoan: Loan cannot be null");
+        throw new IllegalArgumentException("Member: addLoan: Loan already exists");
       }
-      if (hasReachedLoanLimit())
+      loans_.put(loan.getID(), loan);
+      loanList_ = null;
+      if (loan.isOverDue())
       {
-        updateState(EMemberState.BORROWING_DISALLOWED);
+        overDueLoanIds_.add(loan.getID());
       }
+      updateRestriction();
     }
     else
     {
@@ -252,13 +233,12 @@ public class Member
       throw new IllegalArgumentException("Member: removeLoan: Loan cannot be null");
     }
         
-    if (loanList_.contains(loan))
+    if (hasLoan(loan))
     {
-      loanList_.remove(loan);
-      if (!isRestricted())
-      {
-        updateState(EMemberState.BORROWING_ALLOWED);
-      }
+      loans_.remove(loan.getID());
+      loanList_ = null;
+      overDueLoanIds_.remove(loan.getID());
+      updateRestriction();
     }
     else
     {
@@ -268,6 +248,15 @@ public class Member
   
   
   
+  // True if this loan, and not just another loan with the same id, is one 
+  // of the member's loans
+  private boolean hasLoan(ILoan loan)
+  {
+    return loans_.get(loan.getID()) == loan;
+  }
+  
+  
+  
   private void updateState(EMemberState memberState)
   {
     memberState_ = memberState;
@@ -275,6 +264,24 @@ public class Member
   
   
   
+  // Called after anything that can change a restriction: loans added, 
+  // removed, overdue or completed, and fines added or paid
+  private void updateRestriction()
+  {
+    isRestricted_ = hasReachedFineLimit() || hasOverDueLoans() 
+                    || hasReachedLoanLimit();
+    if (isRestricted_)
+    {
+      updateState(EMemberState.BORROWING_DISALLOWED);
+    }
+    else
+    {
+      updateState(EMemberState.BORROWING_ALLOWED);
+    }
+  }
+  
+  
+  
   private boolean borrowingAllowed()
   {
     if (memberState_ == EMemberState.BORROWING_ALLOWED)
@@ -288,23 +295,22 @@ public class Member
   
   public boolean isRestricted()
   {
-    if (hasReachedFineLimit() || hasOverDueLoans() || hasReachedLoanLimit())
-    {
-      return true;
-    }
-    else return false;
+    return isRestricted_;
   }
   
   
   
   public void loanHasBecomeOverdue(ILoan loan)
   {
-    if (loanList_.contains(loan))
+    if (hasLoan(loan))
     {
       
       if (loan.isOverDue())
       {
-         updateState(EMemberState.BORROWING_DISALLOWED);
+        // Loans are checked every day, so this may be called again for a 
+        // loan that is already counted
+        overDueLoanIds_.add(loan.getID());
+        updateRestriction();
       }
       else 
       {
@@ -320,6 +326,22 @@ public class Member
   
   
   
+  // A completed loan stays on the member's loan list, but is no longer 
+  // overdue
+  public void loanHasBeenCompleted(ILoan loan)
+  {
+    if (loan == null)
+    {
+      throw new IllegalArgumentException("Member: loanHasBeenCompleted: Loan cannot be null");
+    }
+    if (hasLoan(loan) && overDueLoanIds_.remove(loan.getID()))
+    {
+      updateRestriction();
+    }
+  }
+  
+  
+  
   // ==========================================================================
   // Methods: Getters and Setters
   // ==========================================================================
@@ -368,8 +390,14 @@ public class Member
   
   
   
-  public ArrayList<ILoan> getLoans()
+  // The member's loans in the order they were added. The list cannot be 
+  // changed, and is shared until the loans next change.
+  public List<ILoan> getLoans()
   {
+    if (loanList_ == null)
+    {
+      loanList_ = Collections.unmodifiableList(new ArrayList<>(loans_.values()));
+    }
     return loanList_;
   }
   
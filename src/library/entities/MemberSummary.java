@@ -0,0 +1,192 @@
+package library.entities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import library.interfaces.entities.ILoan;
+import library.interfaces.entities.IMember;
+import library.interfaces.entities.IMemberSummary;
+
+
+/**
+* Instances of the MemberSummary class hold what a
+* borrow session shows when a member swipes their card:
+* the member, their loans, fines and restrictions
+*
+* Everything is read from the member once, when the
+* summary is created, so the summary can be fetched
+* from a DAO in one call
+*/
+public class MemberSummary
+  implements IMemberSummary
+{
+
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private IMember member_;
+  private int id_;
+  private String firstName_;
+  private String lastName_;
+  private String contactPhone_;
+  private List<ILoan> loans_;
+  private int overDueLoanCount_;
+  private float totalFines_;
+  private boolean isRestricted_;
+  private boolean hasFinesPayable_;
+  private boolean hasOverDueLoans_;
+  private boolean hasReachedFineLimit_;
+  private boolean hasReachedLoanLimit_;
+
+
+
+  // ==========================================================================
+  // Constructor
+  // ==========================================================================
+
+
+
+  public MemberSummary(IMember member) throws IllegalArgumentException
+  {
+    if (member == null)
+    {
+      throw new IllegalArgumentException("MemberSummary: MemberSummary: Member cannot be null");
+    }
+    member_ = member;
+    id_ = member.getId();
+    firstName_ = member.getFirstName();
+    lastName_ = member.getLastName();
+    contactPhone_ = member.getContactPhone();
+    loans_ = Collections.unmodifiableList(new ArrayList<ILoan>(member.getLoans()));
+    overDueLoanCount_ = member.getOverDueLoanCount();
+    totalFines_ = member.getTotalFines();
+    isRestricted_ = member.isRestricted();
+    hasFinesPayable_ = member.hasFinesPayable();
+    hasOverDueLoans_ = member.hasOverDueLoans();
+    hasReachedFineLimit_ = member.hasReachedFineLimit();
+    hasReachedLoanLimit_ = member.hasReachedLoanLimit();
+  }
+
+
+
+  // ==========================================================================
+  // Methods: Primary
+  // ==========================================================================
+
+
+
+  @Override
+  public IMember getMember()
+  {
+    return member_;
+  }
+
+
+
+  @Override
+  public int getId()
+  {
+    return id_;
+  }
+
+
+
+  @Override
+  public String getFirstName()
+  {
+    return firstName_;
+  }
+
+
+
+  @Override
+  public String getLastName()
+  {
+    return lastName_;
+  }
+
+
+
+  @Override
+  public String getContactPhone()
+  {
+    return contactPhone_;
+  }
+
+
+
+  @Override
+  public List<ILoan> getLoans()
+  {
+    return loans_;
+  }
+
+
+
+  @Override
+  public int getLoanCount()
+  {
+    return loans_.size();
+  }
+
+
+
+  @Override
+  public int getOverDueLoanCount()
+  {
+    return overDueLoanCount_;
+  }
+
+
+
+  @Override
+  public float getTotalFines()
+  {
+    return totalFines_;
+  }
+
+
+
+  @Override
+  public boolean isRestricted()
+  {
+    return isRestricted_;
+  }
+
+
+
+  @Override
+  public boolean hasFinesPayable()
+  {
+    return hasFinesPayable_;
+  }
+
+
+
+  @Override
+  public boolean hasOverDueLoans()
+  {
+    return hasOverDueLoans_;
+  }
+
+
+
+  @Override
+  public boolean hasReachedFineLimit()
+  {
+    return hasReachedFineLimit_;
+  }
+
+
+
+  @Override
+  public boolean hasReachedLoanLimit()
+  {
+    return hasReachedLoanLimit_;
+  }
+
+}
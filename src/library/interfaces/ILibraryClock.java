@@ -0,0 +1,11 @@
+package library.interfaces;
+
+public interface ILibraryClock {
+
+	public int getToday();
+
+	public long getStartOfDay(int day);
+
+	public int getDay(long time);
+
+}
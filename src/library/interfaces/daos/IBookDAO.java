@@ -1,7 +1,9 @@
 package library.interfaces.daos;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import library.interfaces.entities.EBookState;
 import library.interfaces.entities.IBook;
 
 public interface IBookDAO {
@@ -12,10 +14,31 @@ public interface IBookDAO {
 	
 	public List<IBook> listBooks();
 	
+	public List<IBook> listBooks(int afterID, int limit);
+	
+	public Stream<IBook> streamBooks();
+	
 	public List<IBook> findBooksByAuthor(String author);
 
 	public List<IBook> findBooksByTitle(String title);
 	
 	public List<IBook> findBooksByAuthorTitle(String author, String title);
+	
+	public List<IBook> findBooksByAuthorFuzzy(String author, double threshold);
+	
+	public List<IBook> findBooksByTitleFuzzy(String title, double threshold);
+	
+	public List<IBook> findBooksByCallNumberRange(String from, String to);
+	
+	public List<IBook> findBooksNearCallNumber(String callNumber, int count);
+	
+	public int countBooksByState(EBookState state);
+	
+	public List<IBook> listBooksByState(EBookState... states);
+	
+	public List<IBook> findBooksByAuthorAndState(String author, 
+	                                             EBookState... states);
+	
+	public List<IBook> searchBooks(String query, int limit);
 
 }
@@ -1,9 +1,13 @@
 package library.interfaces.daos;
 
+import library.interfaces.entities.EBookState;
 import library.interfaces.entities.IBook;
 
 public interface IBookHelper {
 	
 	public IBook makeBook(String author, String title, String callNumber, int id);
 
+	public IBook makeBook(String author, String title, String callNumber, int id,
+	                      EBookState state);
+
 }
@@ -2,6 +2,7 @@ package library.interfaces.daos;
 
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 import library.interfaces.entities.IBook;
 import library.interfaces.entities.ILoan;
@@ -13,17 +14,29 @@ public interface ILoanDAO
 
   public void commitLoan(ILoan loan);
 
+  public void completeLoan(ILoan loan);
+
   public ILoan getLoanByID(int id);
 
   public List<ILoan> listLoans();
 
+  public List<ILoan> listLoans(int afterID, int limit);
+
+  public Stream<ILoan> streamLoans();
+
   public List<ILoan> findLoansByBorrower(IMember borrower);
 
+  public List<ILoan> findActiveLoansByBorrower(IMember borrower);
+
   public List<ILoan> findLoansByBookTitle(String title);
 
   public void updateOverDueStatus(Date currentDate);
 
+  public void updateOverDueStatus();
+
   public List<ILoan> findOverDueLoans();
 
+  public int countOverDueLoans();
+
 }
 
@@ -1,8 +1,10 @@
 package library.interfaces.daos;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 import library.interfaces.entities.IMember;
+import library.interfaces.entities.IMemberSummary;
 
 public interface IMemberDAO {
 
@@ -10,8 +12,14 @@ public interface IMemberDAO {
 		
 		public IMember getMemberByID(int id);
 		
+		public IMemberSummary getMemberSummary(int id);
+		
 		public List<IMember> listMembers();
 		
+		public List<IMember> listMembers(int afterID, int limit);
+		
+		public Stream<IMember> streamMembers();
+		
 		public List<IMember> findMembersByLastName(String lastName);
 
 		public List<IMember> findMembersByEmailAddress(String emailAddress);
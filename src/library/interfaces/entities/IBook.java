@@ -23,5 +23,7 @@ public interface IBook {
 	public String getCallNumber();
 	
 	public int getID();
+	
+	public void setStateListener(IBookStateListener listener);
 
 }
@@ -0,0 +1,7 @@
+package library.interfaces.entities;
+
+public interface IBookStateListener {
+	
+	public void bookStateChanged(IBook book);
+
+}
@@ -20,6 +20,10 @@ public interface ILoan
 
   public IBook getBook();
 
+  public Date getBorrowDate();
+
+  public Date getDueDate();
+
   public int getID();
 
 }
@@ -29,6 +29,8 @@ public interface IMember {
 	
   public void loanHasBecomeOverdue(ILoan loan);
 	
+  public void loanHasBeenCompleted(ILoan loan);
+	
 	public EMemberState   getState();
 	
 	public String  getFirstName();
@@ -45,4 +47,6 @@ public interface IMember {
 
   public boolean isRestricted();
 
+  public int     getOverDueLoanCount();
+
 }
@@ -0,0 +1,35 @@
+package library.interfaces.entities;
+
+import java.util.List;
+
+public interface IMemberSummary {
+	
+	public IMember getMember();
+	
+	public int     getId();
+	
+	public String  getFirstName();
+	
+	public String  getLastName();
+	
+	public String  getContactPhone();
+	
+	public List<ILoan> getLoans();
+	
+	public int     getLoanCount();
+	
+	public int     getOverDueLoanCount();
+	
+	public float   getTotalFines();
+	
+	public boolean isRestricted();
+	
+	public boolean hasFinesPayable();
+	
+	public boolean hasOverDueLoans();
+	
+	public boolean hasReachedFineLimit();
+	
+	public boolean hasReachedLoanLimit();
+
+}
@@ -63,6 +63,12 @@ public abstract class ABorrowPanel extends JPanel implements IBorrowUI {
 	}
 
 	
+	@Override
+	public void appendPendingLoan(String loanDetails) {
+		throw new RuntimeException("Illegal operation in current state");		
+	}
+
+	
 	@Override
 	public void displayConfirmingLoan(String loanDetails) {
 		throw new RuntimeException("Illegal operation in current state");		
@@ -210,6 +210,12 @@ public class ScanningPanel extends ABorrowPanel {
 		pendingLoanListTA.setText(loanDetails);
 	}
 
+
+	@Override
+	public void appendPendingLoan(String loanDetails) {
+		pendingLoanListTA.append(loanDetails);
+	}
+
 	private void insertStringInTA(String string, JTextArea ta, boolean append) {
 		StringBuilder bld = new StringBuilder();
 		if (append) {
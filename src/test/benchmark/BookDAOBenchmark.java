@@ -0,0 +1,204 @@
+package test.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.interfaces.entities.IBook;
+
+/**
+ * BookDAOBenchmark class
+ *
+ * Compares the indexed find methods of BookDAO against a linear scan of
+ * listBooks() (the pre-index implementation) at 10k, 100k and 1M books.
+ *
+ * Run as a plain Java program, ideally with a large heap, e.g.
+ * java -Xmx2g -cp ... test.benchmark.BookDAOBenchmark
+ *
+ */
+public class BookDAOBenchmark
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int[] CATALOG_SIZES = { 10000, 100000, 1000000 };
+
+  // Roughly 20 copies per author and 4 copies per title
+  private static final int COPIES_PER_AUTHOR = 20;
+  private static final int COPIES_PER_TITLE = 4;
+
+  private static final int QUERIES = 200;
+
+
+
+  // ==========================================================================
+  // Main
+  // ==========================================================================
+
+
+
+  public static void main(String[] args)
+  {
+    System.out.println("books      query          indexed(us)   scan(us)");
+
+    for(int size: CATALOG_SIZES) {
+      BookDAO dao = buildCatalog(size);
+      List<IBook> allBooks = dao.listBooks();
+
+      String[] authors = new String[QUERIES];
+      String[] titles = new String[QUERIES];
+      for(int i = 0; i < QUERIES; i++) {
+        int bookNumber = (int) ((long) i * size / QUERIES);
+        authors[i] = author(bookNumber);
+        titles[i] = title(bookNumber);
+      }
+
+      // Warm up both code paths before measuring
+      runIndexed(dao, authors, titles);
+      runScan(allBooks, authors, titles);
+
+      long[] indexed = runIndexed(dao, authors, titles);
+      long[] scan = runScan(allBooks, authors, titles);
+
+      print(size, "author", indexed[0], scan[0]);
+      print(size, "title", indexed[1], scan[1]);
+      print(size, "author+title", indexed[2], scan[2]);
+    }
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  private static BookDAO buildCatalog(int size)
+  {
+    BookDAO dao = new BookDAO(new BookHelper());
+
+    for(int i = 0; i < size; i++) {
+      dao.addBook(author(i), title(i), "callNo" + i);
+    }
+    return dao;
+  }
+
+
+
+  private static String author(int bookNumber)
+  {
+    return "author" + (bookNumber / COPIES_PER_AUTHOR);
+  }
+
+
+
+  private static String title(int bookNumber)
+  {
+    return "title" + (bookNumber / COPIES_PER_TITLE);
+  }
+
+
+
+  // Returns the mean time per query in nanoseconds for author, title and
+  // author+title lookups respectively
+  private static long[] runIndexed(BookDAO dao, String[] authors,
+                                   String[] titles)
+  {
+    long[] times = new long[3];
+    int found = 0;
+
+    long start = System.nanoTime();
+    for(String author: authors) {
+      found += dao.findBooksByAuthor(author).size();
+    }
+    times[0] = (System.nanoTime() - start) / authors.length;
+
+    start = System.nanoTime();
+    for(String title: titles) {
+      found += dao.findBooksByTitle(title).size();
+    }
+    times[1] = (System.nanoTime() - start) / titles.length;
+
+    start = System.nanoTime();
+    for(int i = 0; i < authors.length; i++) {
+      found += dao.findBooksByAuthorTitle(authors[i], titles[i]).size();
+    }
+    times[2] = (System.nanoTime() - start) / authors.length;
+
+    checkFound(found);
+    return times;
+  }
+
+
+
+  private static long[] runScan(List<IBook> books, String[] authors,
+                                String[] titles)
+  {
+    long[] times = new long[3];
+    int found = 0;
+
+    long start = System.nanoTime();
+    for(String author: authors) {
+      List<IBook> matches = new ArrayList<>();
+      for(IBook book: books) {
+        if(book.getAuthor().equals(author)) {
+          matches.add(book);
+        }
+      }
+      found += matches.size();
+    }
+    times[0] = (System.nanoTime() - start) / authors.length;
+
+    start = System.nanoTime();
+    for(String title: titles) {
+      List<IBook> matches = new ArrayList<>();
+      for(IBook book: books) {
+        if(book.getTitle().equals(title)) {
+          matches.add(book);
+        }
+      }
+      found += matches.size();
+    }
+    times[1] = (System.nanoTime() - start) / titles.length;
+
+    start = System.nanoTime();
+    for(int i = 0; i < authors.length; i++) {
+      List<IBook> matches = new ArrayList<>();
+      for(IBook book: books) {
+        if(book.getAuthor().equals(authors[i])
+           && book.getTitle().equals(titles[i])) {
+          matches.add(book);
+        }
+      }
+      found += matches.size();
+    }
+    times[2] = (System.nanoTime() - start) / authors.length;
+
+    checkFound(found);
+    return times;
+  }
+
+
+
+  // Consumes the result count so the JIT cannot discard the lookups
+  private static void checkFound(int found)
+  {
+    if(found == 0) {
+      throw new IllegalStateException("BookDAOBenchmark: no books found");
+    }
+  }
+
+
+
+  private static void print(int size, String query, long indexedNanos,
+                            long scanNanos)
+  {
+    System.out.printf("%-10d %-14s %11.2f %10.2f%n", size, query,
+                      indexedNanos / 1000.0, scanNanos / 1000.0);
+  }
+}
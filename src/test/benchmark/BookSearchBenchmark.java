@@ -0,0 +1,111 @@
+package test.benchmark;
+
+import java.util.List;
+import java.util.Random;
+
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.daos.StringPool;
+import library.interfaces.entities.IBook;
+
+/**
+ * BookSearchBenchmark class
+ *
+ * Times BookDAO.searchBooks over a synthetic catalog of 1M titles, built
+ * from a vocabulary of 20,000 words with a skewed (Zipf-like) frequency, so
+ * some words are in a large share of titles and most are rare. Compares
+ * single words, AND queries, prefixes and a common-word query against a
+ * contains() scan of listBooks().
+ *
+ * Run as a plain Java program, e.g.
+ * java -Xmx3g -cp ... test.benchmark.BookSearchBenchmark
+ *
+ */
+public class BookSearchBenchmark
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int BOOKS = 1000000;
+  private static final int VOCABULARY = 20000;
+  private static final int AUTHORS = 50000;
+  private static final int WORDS_PER_TITLE = 4;
+  private static final int LIMIT = 20;
+  private static final int REPEATS = 200;
+
+  private static final String[] QUERIES = {
+    "word17", "word17 word230", "word3 word40 word900", "word1*",
+    "word123*", "word0", "author42 word5"
+  };
+
+
+
+  // ==========================================================================
+  // Main
+  // ==========================================================================
+
+
+
+  public static void main(String[] args)
+  {
+    StringPool pool = new StringPool();
+    BookDAO dao = new BookDAO(new BookHelper(pool), pool);
+    Random random = new Random(42);
+
+    long start = System.nanoTime();
+    for(int i = 0; i < BOOKS; i++) {
+      StringBuilder title = new StringBuilder();
+      for(int w = 0; w < WORDS_PER_TITLE; w++) {
+        title.append(w == 0 ? "" : " ").append("word")
+             .append(skewed(random, VOCABULARY));
+      }
+      dao.addBook("Author" + random.nextInt(AUTHORS), title.toString(),
+                  "823.914 " + i);
+    }
+    System.out.printf("Indexed %d books in %.0f ms%n", BOOKS,
+                      (System.nanoTime() - start) / 1e6);
+
+    System.out.println("query                     results    search(ms)");
+    for(String query: QUERIES) {
+      int results = 0;
+      long elapsed = 0;
+      for(int pass = 0; pass < 2; pass++) {
+        start = System.nanoTime();
+        for(int r = 0; r < REPEATS; r++) {
+          results = dao.searchBooks(query, LIMIT).size();
+        }
+        elapsed = System.nanoTime() - start;
+      }
+      System.out.printf("%-25s %7d %13.3f%n", query, results,
+                        elapsed / 1e6 / REPEATS);
+    }
+
+    List<IBook> books = dao.listBooks();
+    start = System.nanoTime();
+    int found = 0;
+    for(IBook book: books) {
+      if(book.getTitle().contains("word17 ")) {
+        found++;
+      }
+    }
+    System.out.printf("contains() scan for one word: %d found in %.3f ms%n",
+                      found, (System.nanoTime() - start) / 1e6);
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  // Word n is roughly 1/n as likely as word 1
+  private static int skewed(Random random, int range)
+  {
+    return (int) Math.pow(range, random.nextDouble()) - 1;
+  }
+}
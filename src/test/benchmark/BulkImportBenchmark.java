@@ -0,0 +1,115 @@
+package test.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.daos.BulkImporter;
+import library.daos.ImportReport;
+import library.daos.MemberDAO;
+import library.daos.MemberHelper;
+import library.daos.StringPool;
+
+/**
+ * Times BulkImporter loading 1M books and 1M members from CSV files, on one
+ * parsing thread and on one per processor, and prints the rate in rows per
+ * minute. One row in every 10,000 is invalid.
+ *
+ * Run as a plain Java program, e.g.
+ * java -Xmx2g -cp ... test.benchmark.BulkImportBenchmark
+ */
+public class BulkImportBenchmark
+{
+  //===========================================================================
+  // Variables
+  //===========================================================================
+
+  private static final int ROWS = 1000000;
+
+  //===========================================================================
+  // Main
+  //===========================================================================
+
+  public static void main(String[] args)
+    throws IOException
+  {
+    Path books = Files.createTempFile("books", ".csv");
+    Path members = Files.createTempFile("members", ".csv");
+    try {
+      writeBooks(books);
+      writeMembers(members);
+
+      int processors = Runtime.getRuntime().availableProcessors();
+      for (int threads : new int[] { 1, processors }) {
+        BulkImporter importer =
+          new BulkImporter(threads, BulkImporter.DEFAULT_CHUNK_SIZE);
+        for (int pass = 0; pass < 3; pass++) {
+          StringPool pool = new StringPool();
+          BookDAO bookDAO = new BookDAO(new BookHelper(pool), pool);
+          long start = System.nanoTime();
+          ImportReport report = importer.importBooks(books, bookDAO);
+          print("books", threads, report, System.nanoTime() - start);
+
+          MemberDAO memberDAO = new MemberDAO(new MemberHelper());
+          start = System.nanoTime();
+          report = importer.importMembers(members, memberDAO);
+          print("members", threads, report, System.nanoTime() - start);
+        }
+      }
+    }
+    finally {
+      Files.deleteIfExists(books);
+      Files.deleteIfExists(members);
+    }
+  }
+
+  //===========================================================================
+  // Helper methods
+  //===========================================================================
+
+  private static void writeBooks(Path file)
+    throws IOException
+  {
+    try (BufferedWriter writer = Files.newBufferedWriter(
+                                   file, StandardCharsets.UTF_8)) {
+      writer.write("author,title,callNumber\n");
+      for (int i = 0; i < ROWS; i++) {
+        String author = (i % 10000 == 9999) ? "" : "\"Author, number " +
+                                                   (i / 50) + "\"";
+        writer.write(author + ",A title of typical length " + (i / 5) +
+                     ",823.914 " + i + "\n");
+      }
+    }
+  }
+
+
+
+  private static void writeMembers(Path file)
+    throws IOException
+  {
+    try (BufferedWriter writer = Files.newBufferedWriter(
+                                   file, StandardCharsets.UTF_8)) {
+      for (int i = 0; i < ROWS; i++) {
+        String phone = (i % 10000 == 9999) ? "" : "04" + (10000000 + i);
+        writer.write("First" + i + ",Last" + (i % 5000) + "," + phone +
+                     ",member" + i + "@example.com\n");
+      }
+    }
+  }
+
+
+
+  private static void print(String what, int threads, ImportReport report,
+                            long nanos)
+  {
+    System.out.printf("%-8s %2d thread(s) %8d rows %6d rejected %7.0f ms " +
+                      "%6.1fM rows/min%n", what, threads,
+                      report.getImportedCount(),
+                      report.getRejectedRows().size(), nanos / 1e6,
+                      ROWS / (nanos / 6e10) / 1e6);
+  }
+}
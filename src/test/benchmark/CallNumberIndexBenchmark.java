@@ -0,0 +1,86 @@
+package test.benchmark;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.daos.CallNumberIndex;
+import library.interfaces.entities.IBook;
+
+/**
+ * CallNumberIndexBenchmark class
+ *
+ * Times shelf-order queries over 1M books with random Dewey-style call
+ * numbers: a range of about 100 books and the 10 books either side of a
+ * call number through the call number index, against copying listBooks()
+ * and sorting it by normalized call number.
+ *
+ * Run as a plain Java program, e.g.
+ * java -Xmx3g -cp ... test.benchmark.CallNumberIndexBenchmark
+ *
+ */
+public class CallNumberIndexBenchmark
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int BOOKS = 1000000;
+  private static final int QUERIES = 1000;
+
+
+
+  // ==========================================================================
+  // Main
+  // ==========================================================================
+
+
+
+  public static void main(String[] args)
+  {
+    Random random = new Random(3);
+    BookDAO dao = new BookDAO(new BookHelper());
+    String[] callNumbers = new String[BOOKS];
+
+    for(int i = 0; i < BOOKS; i++) {
+      callNumbers[i] = random.nextInt(1000) + "." + random.nextInt(100000)
+                       + " " + (char) ('A' + random.nextInt(26))
+                       + (char) ('A' + random.nextInt(26));
+      dao.addBook("Author " + i, "Title " + i, callNumbers[i]);
+    }
+
+    for(int pass = 0; pass < 2; pass++) {
+      int found = 0;
+      long start = System.nanoTime();
+      for(int q = 0; q < QUERIES; q++) {
+        int shelf = random.nextInt(1000);
+        found += dao.findBooksByCallNumberRange(shelf + ".1", shelf + ".11")
+                    .size();
+      }
+      long range = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for(int q = 0; q < QUERIES; q++) {
+        found += dao.findBooksNearCallNumber(callNumbers[random.nextInt(BOOKS)],
+                                             10).size();
+      }
+      long near = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      List<IBook> sorted = new ArrayList<IBook>(dao.listBooks());
+      sorted.sort(Comparator.comparing(
+          book -> CallNumberIndex.normalize(book.getCallNumber())));
+      long sort = System.nanoTime() - start;
+
+      System.out.printf("range: %.4f ms   near: %.4f ms   "
+                        + "listBooks + sort: %.0f ms   (%d found)%n",
+                        range / 1e6 / QUERIES, near / 1e6 / QUERIES,
+                        sort / 1e6, found);
+    }
+  }
+}
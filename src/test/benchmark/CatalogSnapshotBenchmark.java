@@ -0,0 +1,95 @@
+package test.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import library.daos.BookCatalogSnapshot;
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+
+/**
+ * CatalogSnapshotBenchmark class
+ *
+ * Compares BookDAO startup by one addBook call per book against opening a
+ * catalog snapshot, at 10k, 100k and 1M books, and times the first
+ * getBookByID and the first find (which loads the whole snapshot).
+ *
+ * Run as a plain Java program, e.g.
+ * java -Xmx2g -cp ... test.benchmark.CatalogSnapshotBenchmark
+ *
+ */
+public class CatalogSnapshotBenchmark
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int[] CATALOG_SIZES = { 10000, 100000, 1000000 };
+
+
+
+  // ==========================================================================
+  // Main
+  // ==========================================================================
+
+
+
+  public static void main(String[] args) throws IOException
+  {
+    System.out.println("books      addBook(ms)  snapshot(MB)  open(ms)  "
+                       + "first get(us)  first find(ms)");
+
+    for(int size: CATALOG_SIZES) {
+      Path file = Files.createTempFile("catalog", ".snapshot");
+      try {
+        long start = System.nanoTime();
+        BookDAO live = new BookDAO(new BookHelper());
+        for(int i = 0; i < size; i++) {
+          live.addBook("author" + (i / 20), "title" + (i / 4), "callNo" + i);
+        }
+        long addMillis = (System.nanoTime() - start) / 1000000;
+
+        BookCatalogSnapshot.write(live, file);
+        live = null;
+
+        start = System.nanoTime();
+        BookDAO opened = new BookDAO(new BookHelper(), file);
+        long openMillis = (System.nanoTime() - start) / 1000000;
+
+        start = System.nanoTime();
+        checkFound(opened.getBookByID(size / 2) != null);
+        long getMicros = (System.nanoTime() - start) / 1000;
+
+        start = System.nanoTime();
+        checkFound(!opened.findBooksByAuthor("author0").isEmpty());
+        long findMillis = (System.nanoTime() - start) / 1000000;
+
+        System.out.printf("%-10d %11d %13.1f %9d %14d %15d%n", size,
+                          addMillis, Files.size(file) / 1e6, openMillis,
+                          getMicros, findMillis);
+      }
+      finally {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  private static void checkFound(boolean found)
+  {
+    if(!found) {
+      throw new IllegalStateException("CatalogSnapshotBenchmark: book not "
+                                      + "found");
+    }
+  }
+}
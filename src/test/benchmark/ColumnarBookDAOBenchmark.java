@@ -0,0 +1,167 @@
+package test.benchmark;
+
+import java.util.List;
+
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.daos.ColumnarBookDAO;
+import library.interfaces.daos.IBookDAO;
+import library.interfaces.entities.IBook;
+
+/**
+ * ColumnarBookDAOBenchmark class
+ *
+ * Compares ColumnarBookDAO against BookDAO at 1M and 3M books: the heap
+ * retained by each catalog, and the time for a full author scan (the
+ * columnar int scan, against a scan of BookDAO.listBooks() comparing
+ * strings, with BookDAO's indexed lookup for reference).
+ *
+ * Run as a plain Java program with a large heap, e.g.
+ * java -Xmx4g -cp ... test.benchmark.ColumnarBookDAOBenchmark
+ *
+ */
+public class ColumnarBookDAOBenchmark
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int[] CATALOG_SIZES = { 1000000, 3000000 };
+  private static final int COPIES_PER_AUTHOR = 20;
+  private static final int COPIES_PER_TITLE = 4;
+  private static final int QUERIES = 20;
+
+
+
+  // ==========================================================================
+  // Main
+  // ==========================================================================
+
+
+
+  public static void main(String[] args)
+  {
+    System.out.println("books      store        heap(MB)  bytes/book  "
+                       + "author scan(ms)  indexed(ms)");
+
+    for(int size: CATALOG_SIZES) {
+      long before = usedHeap();
+      BookDAO bookDAO = new BookDAO(new BookHelper());
+      fill(bookDAO, size);
+      long bookBytes = usedHeap() - before;
+
+      long objectScan = timeObjectScan(bookDAO.listBooks(), size);
+      long indexed = timeIndexed(bookDAO, size);
+      print(size, "BookDAO", bookBytes, objectScan, indexed);
+      bookDAO = null;
+
+      before = usedHeap();
+      ColumnarBookDAO columnarDAO = new ColumnarBookDAO();
+      fill(columnarDAO, size);
+      long columnarBytes = usedHeap() - before;
+
+      long columnScan = timeIndexed(columnarDAO, size);
+      print(size, "Columnar", columnarBytes, columnScan, -1);
+      columnarDAO = null;
+    }
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  private static void fill(IBookDAO dao, int size)
+  {
+    for(int i = 0; i < size; i++) {
+      dao.addBook("author" + (i / COPIES_PER_AUTHOR),
+                  "title" + (i / COPIES_PER_TITLE), "callNo" + i);
+    }
+  }
+
+
+
+  private static String author(int query, int size)
+  {
+    int bookNumber = (int) ((long) query * size / QUERIES);
+    return "author" + (bookNumber / COPIES_PER_AUTHOR);
+  }
+
+
+
+  // Mean nanoseconds per findBooksByAuthor over QUERIES authors, after a
+  // warm-up pass
+  private static long timeIndexed(IBookDAO dao, int size)
+  {
+    long elapsed = 0;
+    for(int pass = 0; pass < 2; pass++) {
+      int found = 0;
+      long start = System.nanoTime();
+      for(int q = 0; q < QUERIES; q++) {
+        found += dao.findBooksByAuthor(author(q, size)).size();
+      }
+      elapsed = System.nanoTime() - start;
+      checkFound(found);
+    }
+    return elapsed / QUERIES;
+  }
+
+
+
+  private static long timeObjectScan(List<IBook> books, int size)
+  {
+    long elapsed = 0;
+    for(int pass = 0; pass < 2; pass++) {
+      int found = 0;
+      long start = System.nanoTime();
+      for(int q = 0; q < QUERIES; q++) {
+        String author = author(q, size);
+        for(IBook book: books) {
+          if(book.getAuthor().equals(author)) {
+            found++;
+          }
+        }
+      }
+      elapsed = System.nanoTime() - start;
+      checkFound(found);
+    }
+    return elapsed / QUERIES;
+  }
+
+
+
+  private static long usedHeap()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    for(int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+
+
+  private static void checkFound(int found)
+  {
+    if(found == 0) {
+      throw new IllegalStateException("ColumnarBookDAOBenchmark: no books "
+                                      + "found");
+    }
+  }
+
+
+
+  private static void print(int size, String store, long bytes,
+                            long scanNanos, long indexedNanos)
+  {
+    System.out.printf("%-10d %-12s %8.1f %11d %16.3f %12s%n", size, store,
+                      bytes / 1e6, bytes / size, scanNanos / 1e6,
+                      indexedNanos < 0 ? "-"
+                          : String.format("%.3f", indexedNanos / 1e6));
+  }
+}
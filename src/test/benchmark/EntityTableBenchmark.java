@@ -0,0 +1,147 @@
+package test.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.daos.EntityTable;
+
+/**
+ * EntityTableBenchmark class
+ *
+ * Measures the heap retained by the DAO backing store at 1M entries, for the
+ * previous HashMap<Integer, ...> and for EntityTable, and the bytes allocated
+ * by BookDAO.getBookByID over a full scan of ids.
+ *
+ * Run as a plain Java program, e.g.
+ * java -Xmx2g -cp ... test.benchmark.EntityTableBenchmark
+ *
+ */
+public class EntityTableBenchmark
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int ENTRIES = 1000000;
+
+
+
+  // ==========================================================================
+  // Main
+  // ==========================================================================
+
+
+
+  public static void main(String[] args)
+  {
+    // The same entity instances go into both stores so that only the
+    // overhead of the store itself is measured
+    Object[] entities = new Object[ENTRIES + 1];
+    for(int id = 1; id <= ENTRIES; id++) {
+      entities[id] = new Object();
+    }
+
+    long before = usedHeap();
+    Map<Integer, Object> map = new HashMap<Integer, Object>();
+    for(int id = 1; id <= ENTRIES; id++) {
+      map.put(id, entities[id]);
+    }
+    long mapBytes = usedHeap() - before;
+    checkSize(map.size());
+    map = null;
+
+    before = usedHeap();
+    EntityTable<Object> table = new EntityTable<Object>();
+    for(int id = 1; id <= ENTRIES; id++) {
+      table.put(id, entities[id]);
+    }
+    long tableBytes = usedHeap() - before;
+    checkSize(table.size());
+    table = null;
+
+    System.out.printf("HashMap<Integer, E> at %d entries: %6.1f MB (%d bytes"
+                      + "/entry)%n", ENTRIES, mapBytes / 1e6,
+                      mapBytes / ENTRIES);
+    System.out.printf("EntityTable<E>      at %d entries: %6.1f MB (%d bytes"
+                      + "/entry)%n", ENTRIES, tableBytes / 1e6,
+                      tableBytes / ENTRIES);
+
+    measureGetBookByID();
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  private static void measureGetBookByID()
+  {
+    BookDAO dao = new BookDAO(new BookHelper());
+    for(int i = 0; i < ENTRIES; i++) {
+      dao.addBook("author" + i, "title" + i, "callNo" + i);
+    }
+
+    // Warm up so that the measured pass runs compiled code
+    scan(dao);
+    scan(dao);
+
+    long before = allocatedBytes();
+    int found = scan(dao);
+    long allocated = allocatedBytes() - before;
+
+    checkSize(found);
+    System.out.printf("BookDAO.getBookByID over %d ids: %d bytes allocated%n",
+                      ENTRIES, allocated);
+  }
+
+
+
+  private static int scan(BookDAO dao)
+  {
+    int found = 0;
+    for(int id = 1; id <= ENTRIES; id++) {
+      if(dao.getBookByID(id) != null) {
+        found++;
+      }
+    }
+    return found;
+  }
+
+
+
+  private static long usedHeap()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    for(int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+
+
+  private static long allocatedBytes()
+  {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+
+
+  private static void checkSize(int size)
+  {
+    if(size != ENTRIES) {
+      throw new IllegalStateException("EntityTableBenchmark: expected "
+                                      + ENTRIES + " entries, found " + size);
+    }
+  }
+}
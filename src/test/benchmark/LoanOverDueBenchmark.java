@@ -0,0 +1,126 @@
+package test.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.daos.LoanDAO;
+import library.daos.LoanHelper;
+import library.daos.MemberDAO;
+import library.daos.MemberHelper;
+import library.interfaces.entities.ILoan;
+import library.interfaces.entities.IMember;
+
+/**
+ * LoanOverDueBenchmark class
+ *
+ * Measures the bytes allocated by LoanDAO.updateOverDueStatus when every one
+ * of 100,000 loans has become overdue, and by Loan.checkOverDue on loans
+ * that are not yet due, where only the date check itself runs.
+ *
+ * A sweep marks the loans it finds overdue, so each round sweeps a freshly
+ * built DAO; the last round is reported.
+ *
+ * Run as a plain Java program, e.g.
+ * java -Xmx2g -cp ... test.benchmark.LoanOverDueBenchmark
+ *
+ */
+public class LoanOverDueBenchmark
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int LOANS = 100000;
+  private static final int ROUNDS = 5;
+
+
+
+  // ==========================================================================
+  // Main
+  // ==========================================================================
+
+
+
+  public static void main(String[] args)
+  {
+    Date overDue = daysFromToday(ILoan.LOAN_PERIOD + 1);
+    Date notDue = daysFromToday(1);
+
+    for(int round = 1; round <= ROUNDS; round++) {
+      LoanDAO dao = loanDAO();
+      List<ILoan> loans = dao.listLoans();
+
+      long before = allocatedBytes();
+      int found = 0;
+      for(ILoan loan: loans) {
+        if(loan.checkOverDue(notDue)) {
+          found++;
+        }
+      }
+      long checkBytes = allocatedBytes() - before;
+
+      before = allocatedBytes();
+      dao.updateOverDueStatus(overDue);
+      long sweepBytes = allocatedBytes() - before;
+      found += dao.countOverDueLoans();
+
+      System.out.printf("round %d   checkOverDue, not due: %5.1f bytes/loan"
+                        + "   updateOverDueStatus, all overdue: %5.1f "
+                        + "bytes/loan   (%d found)%n", round,
+                        (double) checkBytes / LOANS,
+                        (double) sweepBytes / LOANS, found);
+    }
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  // LOANS committed loans, borrowed today, five to each member
+  private static LoanDAO loanDAO()
+  {
+    BookDAO books = new BookDAO(new BookHelper());
+    MemberDAO members = new MemberDAO(new MemberHelper());
+    LoanDAO dao = new LoanDAO(new LoanHelper());
+    IMember member = null;
+
+    for(int i = 0; i < LOANS; i++) {
+      if(i % IMember.LOAN_LIMIT == 0) {
+        member = members.addMember("First", "Last" + i, "0123",
+                                   "member@a.com");
+      }
+      ILoan loan = dao.createLoan(member,
+                                  books.addBook("Author", "Title", "100"));
+      dao.commitLoan(loan);
+    }
+    return dao;
+  }
+
+
+
+  private static Date daysFromToday(int days)
+  {
+    Calendar calendar = Calendar.getInstance();
+    calendar.add(Calendar.DATE, days);
+    return calendar.getTime();
+  }
+
+
+
+  private static long allocatedBytes()
+  {
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+}
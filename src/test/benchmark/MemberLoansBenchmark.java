@@ -0,0 +1,105 @@
+package test.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+
+import library.daos.LibraryClock;
+import library.entities.Book;
+import library.entities.Loan;
+import library.entities.Member;
+import library.interfaces.entities.ILoan;
+
+/**
+ * MemberLoansBenchmark class
+ *
+ * Times a bulk return (every loan removed, in random order) and an overdue
+ * sweep (every loan looked up) for a member with 1,000 loans, with the
+ * loans in an ArrayList, as Member used to keep them, and in a LinkedHashMap
+ * keyed by loan id, as Member keeps them now.
+ *
+ * Member will not take more than IMember.LOAN_LIMIT loans, so the two
+ * structures are timed directly rather than through a Member. The loans
+ * are not committed, so each loan's book id stands in for its loan id.
+ *
+ * Run as a plain Java program, e.g.
+ * java -cp ... test.benchmark.MemberLoansBenchmark
+ *
+ */
+public class MemberLoansBenchmark
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int LOANS = 1000;
+  private static final int ROUNDS = 2000;
+
+
+
+  // ==========================================================================
+  // Main
+  // ==========================================================================
+
+
+
+  public static void main(String[] args)
+  {
+    Random random = new Random(19);
+    Member member = new Member("Staff", "Account", "0123", "staff@a.com", 1);
+    Date today = new Date();
+    LibraryClock clock = new LibraryClock();
+    ILoan[] loans = new ILoan[LOANS];
+    for(int i = 0; i < LOANS; i++) {
+      loans[i] = new Loan(new Book("Author", "Title", "100 ABC", i + 1),
+                          member, today, today, clock);
+    }
+
+    List<ILoan> order = new ArrayList<ILoan>();
+    Collections.addAll(order, loans);
+
+    for(int pass = 0; pass < 3; pass++) {
+      Collections.shuffle(order, random);
+
+      long found = 0;
+      long start = System.nanoTime();
+      for(int round = 0; round < ROUNDS; round++) {
+        ArrayList<ILoan> list = new ArrayList<ILoan>(LOANS);
+        Collections.addAll(list, loans);
+        for(ILoan loan: order) {
+          found += list.contains(loan) ? 1 : 0;
+        }
+        for(ILoan loan: order) {
+          list.remove(loan);
+        }
+      }
+      long listTime = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for(int round = 0; round < ROUNDS; round++) {
+        LinkedHashMap<Integer, ILoan> map =
+            new LinkedHashMap<Integer, ILoan>(LOANS * 2);
+        for(int i = 0; i < LOANS; i++) {
+          map.put(i + 1, loans[i]);
+        }
+        for(ILoan loan: order) {
+          found += map.get(loan.getBook().getID()) == loan ? 1 : 0;
+        }
+        for(ILoan loan: order) {
+          map.remove(loan.getBook().getID());
+        }
+      }
+      long mapTime = System.nanoTime() - start;
+
+      System.out.printf("sweep + bulk return of %d loans   ArrayList: %.1f us"
+                        + "   LinkedHashMap by id: %.1f us   (%d found)%n",
+                        LOANS, listTime / 1e3 / ROUNDS,
+                        mapTime / 1e3 / ROUNDS, found);
+    }
+  }
+}
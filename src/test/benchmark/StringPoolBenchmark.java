@@ -0,0 +1,179 @@
+package test.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.daos.StringPool;
+import library.entities.Book;
+import library.interfaces.daos.IBookHelper;
+import library.interfaces.entities.EBookState;
+import library.interfaces.entities.IBook;
+
+/**
+ * StringPoolBenchmark class
+ *
+ * Measures the heap saved by pooling authors and titles on a duplicate-heavy
+ * synthetic catalog of 1M copies: 20,000 authors with 10 titles each, and 5
+ * copies of each title. Every row arrives with its own String instances, as
+ * it would from a file or database.
+ *
+ * Compares books made without pooling (the Book constructor, as BookHelper
+ * made them before) against BookHelper with a pool, and then whole BookDAOs
+ * with and without a shared pool.
+ *
+ * Run as a plain Java program, e.g.
+ * java -Xmx2g -cp ... test.benchmark.StringPoolBenchmark
+ *
+ */
+public class StringPoolBenchmark
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int COPIES = 1000000;
+  private static final int COPIES_PER_TITLE = 5;
+  private static final int TITLES_PER_AUTHOR = 10;
+
+
+
+  // ==========================================================================
+  // Main
+  // ==========================================================================
+
+
+
+  public static void main(String[] args)
+  {
+    long before = usedHeap();
+    List<IBook> unpooled = new ArrayList<IBook>(COPIES);
+    for(int i = 0; i < COPIES; i++) {
+      unpooled.add(new Book(author(i), title(i), callNumber(i), i + 1));
+    }
+    long unpooledBytes = usedHeap() - before;
+    unpooled = null;
+
+    before = usedHeap();
+    StringPool pool = new StringPool();
+    BookHelper helper = new BookHelper(pool);
+    List<IBook> pooled = new ArrayList<IBook>(COPIES);
+    for(int i = 0; i < COPIES; i++) {
+      pooled.add(helper.makeBook(author(i), title(i), callNumber(i), i + 1));
+    }
+    long pooledBytes = usedHeap() - before;
+    int distinct = pool.size();
+    pooled = null;
+    pool = null;
+    helper = null;
+
+    System.out.printf("Books only, %d copies, %d distinct authors/titles%n",
+                      COPIES, distinct);
+    print("  unpooled", unpooledBytes);
+    print("  pooled", pooledBytes);
+    System.out.printf("  saved    %8.1f MB (%.0f%%)%n",
+                      (unpooledBytes - pooledBytes) / 1e6,
+                      100.0 * (unpooledBytes - pooledBytes) / unpooledBytes);
+
+    before = usedHeap();
+    BookDAO unpooledDAO = new BookDAO(new UnpooledHelper());
+    fill(unpooledDAO);
+    long unpooledDAOBytes = usedHeap() - before;
+    unpooledDAO = null;
+
+    before = usedHeap();
+    StringPool sharedPool = new StringPool();
+    BookDAO pooledDAO = new BookDAO(new BookHelper(sharedPool), sharedPool);
+    fill(pooledDAO);
+    long pooledDAOBytes = usedHeap() - before;
+    pooledDAO = null;
+
+    System.out.println("Whole BookDAO (books, table and indexes)");
+    print("  helper without pool", unpooledDAOBytes);
+    print("  shared pool", pooledDAOBytes);
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  // Each call builds a new String, as reading a row would
+  private static String author(int copy)
+  {
+    return "Author number " + (copy / (COPIES_PER_TITLE * TITLES_PER_AUTHOR));
+  }
+
+
+
+  private static String title(int copy)
+  {
+    return "A title that is of a typical length " + (copy / COPIES_PER_TITLE);
+  }
+
+
+
+  private static String callNumber(int copy)
+  {
+    return "823.914 " + copy;
+  }
+
+
+
+  private static void fill(BookDAO dao)
+  {
+    for(int i = 0; i < COPIES; i++) {
+      dao.addBook(author(i), title(i), callNumber(i));
+    }
+  }
+
+
+
+  private static long usedHeap()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    for(int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+
+
+  private static void print(String label, long bytes)
+  {
+    System.out.printf("%-22s %8.1f MB (%d bytes/copy)%n", label, bytes / 1e6,
+                      bytes / COPIES);
+  }
+
+
+
+  // Makes books as BookHelper did before pooling, each with its own copy of
+  // the author and title (the DAO hands the helper pooled strings, so they
+  // are copied to match what callers passed in before)
+  private static class UnpooledHelper implements IBookHelper
+  {
+    @Override
+    public IBook makeBook(String author, String title, String callNumber,
+                          int id)
+    {
+      return new Book(new String(author), new String(title), callNumber, id);
+    }
+
+
+
+    @Override
+    public IBook makeBook(String author, String title, String callNumber,
+                          int id, EBookState state)
+    {
+      return new Book(new String(author), new String(title), callNumber, id,
+                      state);
+    }
+  }
+}
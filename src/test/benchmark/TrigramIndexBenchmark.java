@@ -0,0 +1,127 @@
+package test.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import library.daos.TrigramIndex;
+
+/**
+ * TrigramIndexBenchmark class
+ *
+ * Times fuzzy lookups of misspelt author names among 200,000 distinct
+ * synthetic names, through TrigramIndex and by a brute-force scan
+ * computing the similarity of every name.
+ *
+ * Run as a plain Java program, e.g.
+ * java -cp ... test.benchmark.TrigramIndexBenchmark
+ *
+ */
+public class TrigramIndexBenchmark
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private static final int NAMES = 200000;
+  private static final int QUERIES = 50;
+
+  private static final String[] SYLLABLES = {
+    "an", "ber", "cal", "dor", "el", "fin", "gar", "hol", "is", "jen", "kar",
+    "lo", "mar", "nel", "or", "pet", "quin", "ros", "son", "tam", "ul", "ver",
+    "wil", "xan", "yor", "zed"
+  };
+
+
+
+  // ==========================================================================
+  // Main
+  // ==========================================================================
+
+
+
+  public static void main(String[] args)
+  {
+    Random random = new Random(7);
+    List<String> names = new ArrayList<String>(NAMES);
+    TrigramIndex index = new TrigramIndex();
+
+    long start = System.nanoTime();
+    while(index.size() < NAMES) {
+      String name = word(random) + " " + word(random);
+      int before = index.size();
+      index.add(name);
+      if(index.size() > before) {
+        names.add(name);
+      }
+    }
+    System.out.printf("Indexed %d names in %.0f ms%n", index.size(),
+                      (System.nanoTime() - start) / 1e6);
+
+    String[] queries = new String[QUERIES];
+    for(int q = 0; q < QUERIES; q++) {
+      queries[q] = misspell(names.get(random.nextInt(names.size())), random);
+    }
+
+    for(int pass = 0; pass < 2; pass++) {
+      int found = 0;
+      start = System.nanoTime();
+      for(String query: queries) {
+        found += index.findSimilar(query, TrigramIndex.DEFAULT_THRESHOLD)
+                      .size();
+      }
+      long indexed = System.nanoTime() - start;
+
+      int scanned = 0;
+      start = System.nanoTime();
+      for(String query: queries) {
+        for(String name: names) {
+          if(TrigramIndex.similarity(query, name)
+             >= TrigramIndex.DEFAULT_THRESHOLD) {
+            scanned++;
+          }
+        }
+      }
+      long scan = System.nanoTime() - start;
+
+      System.out.printf("index: %.3f ms/query (%d matches)   "
+                        + "scan: %.3f ms/query (%d matches)%n",
+                        indexed / 1e6 / QUERIES, found,
+                        scan / 1e6 / QUERIES, scanned);
+    }
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  private static String word(Random random)
+  {
+    StringBuilder word = new StringBuilder();
+    int syllables = 2 + random.nextInt(3);
+    for(int i = 0; i < syllables; i++) {
+      word.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+    }
+    word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+    return word.toString();
+  }
+
+
+
+  // Swaps two neighbouring letters, as a hurried typist would
+  private static String misspell(String name, Random random)
+  {
+    char[] chars = name.toCharArray();
+    int at = 1 + random.nextInt(chars.length - 3);
+    char swap = chars[at];
+    chars[at] = chars[at + 1];
+    chars[at + 1] = swap;
+    return new String(chars);
+  }
+}
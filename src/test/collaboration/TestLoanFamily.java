@@ -189,11 +189,11 @@ public class TestLoanFamily
     Date today = dateBuilder(25, 10, 2010);
 
     ILoan firstLoan = dao.createLoan(jim_, catch22_);
-    dao.commitLoan(firstLoan);
     setPrivateDueDate((Loan)firstLoan, dueDate);
+    dao.commitLoan(firstLoan);
     ILoan secondLoan = dao.createLoan(sam_, emma_);
-    dao.commitLoan(secondLoan);
     setPrivateDueDate((Loan)secondLoan, dueDate);
+    dao.commitLoan(secondLoan);
     ILoan thirdLoan = dao.createLoan(jill_, catch22_);
     dao.commitLoan(thirdLoan);
     ILoan fourthLoan = dao.createLoan(jill_, catch22_);
@@ -399,8 +399,8 @@ public class TestLoanFamily
     Date today = dateBuilder(25, 10, 2015);
 
     ILoan loan = dao.createLoan(jim_, catch22_);
-    dao.commitLoan(loan);
     setPrivateDueDate((Loan)loan, dueDate);
+    dao.commitLoan(loan);
     assertThat(loan.isOverDue()).isFalse();
     assertThat(dao.findOverDueLoans()).isEmpty();
 
@@ -420,8 +420,8 @@ public class TestLoanFamily
     Date today = dateBuilder(25, 10, 2015);
 
     ILoan loan = dao.createLoan(jim_, catch22_);
-    dao.commitLoan(loan);
     setPrivateDueDate((Loan)loan, dueDate);
+    dao.commitLoan(loan);
     assertThat(loan.isOverDue()).isFalse();
     assertThat(dao.findOverDueLoans()).isEmpty();
 
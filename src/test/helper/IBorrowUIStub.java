@@ -108,6 +108,15 @@ public class IBorrowUIStub extends JPanel implements IBorrowUI
 
 
 
+  @Override
+  public void appendPendingLoan(String loanDetails)
+  {
+    // TODO Auto-generated method stub
+
+  }
+
+
+
   @Override
   public void displayConfirmingLoan(String loanDetails)
   {
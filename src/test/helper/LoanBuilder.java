@@ -14,6 +14,7 @@ import library.interfaces.entities.IBook;
 import library.interfaces.entities.ILoan;
 import library.interfaces.entities.IMember;
 
+import library.daos.LibraryClock;
 import library.entities.Loan;
 
 /**
@@ -35,6 +36,7 @@ public class LoanBuilder
   public static final Date DEFAULT_BORROW_DATE = dateBuilder(1, 0, 2015);
   public static final Date DEFAULT_DUE_DATE = dateBuilder(2, 0, 2015);
   public static final int DEFAULT_ID = 0;
+  public static final LibraryClock DEFAULT_CLOCK = new LibraryClock();
 
   public static final ELoanState DEFAULT_STATE = ELoanState.PENDING;
 
@@ -78,7 +80,8 @@ public class LoanBuilder
    */
   public ILoan build()
   {
-    ILoan loan = new Loan(book_, borrower_, borrowDate_, dueDate_);
+    ILoan loan = new Loan(book_, borrower_, borrowDate_, dueDate_,
+                          DEFAULT_CLOCK);
     // use helper to set state of new Loan
     setPrivateState(loan, state_);
     setPrivateID(loan, id_);
@@ -1,7 +1,8 @@
 package test.helper;
 
+import java.time.ZoneId;
 import java.util.Date;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import java.lang.reflect.Field;
 
@@ -10,6 +11,7 @@ import static org.assertj.core.api.Assertions.fail;
 import library.interfaces.entities.ELoanState;
 import library.interfaces.entities.ILoan;
 
+import library.daos.EntityTable;
 import library.daos.LoanDAO;
 import library.entities.Loan;
 
@@ -189,7 +191,8 @@ public class LoanReflection
 
 
   /**
-   * Uses Reflection API to directly set the Loan's private due date.
+   * Uses Reflection API to directly set the Loan's private due date, and the
+   * epoch day the Loan compares when checking whether it is overdue.
    * @param loan Loan The loan under test.
    * @param date Date The date that will be set as the due date of the Loan.
    */
@@ -204,6 +207,13 @@ public class LoanReflection
         dueDate.setAccessible(true);
       }
       dueDate.set(loan, date);
+
+      Field dueDay = loanClass.getDeclaredField("dueDay_");
+      dueDay.setAccessible(true);
+      dueDay.set(loan, (int)date.toInstant()
+                                .atZone(ZoneId.systemDefault())
+                                .toLocalDate()
+                                .toEpochDay());
     }
 
     catch (NoSuchFieldException exception) {
@@ -237,7 +247,7 @@ public class LoanReflection
       if (!nextID.isAccessible()) {
         nextID.setAccessible(true);
       }
-      return (int)nextID.get(loanDao);
+      return ((AtomicInteger)nextID.get(loanDao)).get();
     }
 
     catch (NoSuchFieldException exception) {
@@ -270,7 +280,7 @@ public class LoanReflection
       if (!nextID.isAccessible()) {
         nextID.setAccessible(true);
       }
-      nextID.set(loanDao, newNextID);
+      ((AtomicInteger)nextID.get(loanDao)).set(newNextID);
     }
 
     catch (NoSuchFieldException exception) {
@@ -317,11 +327,12 @@ public class LoanReflection
   }
 
   //===========================================================================
-  // loanMap setter
+  // loanTable setter
   //===========================================================================
 
   /**
-   * Uses Reflection API to directly add Loans to the LoanDAO's private LoanMap.
+   * Uses Reflection API to directly add Loans to the LoanDAO's private
+   * loanTable (with ids starting at 1).
    * @param loanDao LoanDAO The LoanDAO being used.
    * @param loans ILoan[] The array of Loans to be added.
    */
@@ -329,17 +340,17 @@ public class LoanReflection
   {
     try {
       Class<?> loanDaoClass = loanDao.getClass();
-      Field loanMap = loanDaoClass.getDeclaredField("loanMap_");
+      Field loanTable = loanDaoClass.getDeclaredField("loanTable_");
 
       // Enable direct modification of private field
-      if (!loanMap.isAccessible()) {
-        loanMap.setAccessible(true);
+      if (!loanTable.isAccessible()) {
+        loanTable.setAccessible(true);
       }
-      Map<Integer, ILoan> newLoanMap = new java.util.HashMap<>();
+      EntityTable<ILoan> newLoanTable = new EntityTable<>();
       for (int i = 0; i < loans.length; i++) {
-        newLoanMap.put(i, loans[i]);
+        newLoanTable.put(i + 1, loans[i]);
       }
-      loanMap.set(loanDao, newLoanMap);
+      loanTable.set(loanDao, newLoanTable);
     }
 
     catch (NoSuchFieldException exception) {
@@ -11,6 +11,7 @@ import java.util.Date;
 import library.BorrowUC_CTL;
 import library.daos.BookDAO;
 import library.daos.BookHelper;
+import library.daos.LibraryClock;
 import library.daos.LoanDAO;
 import library.daos.LoanHelper;
 import library.daos.MemberDAO;
@@ -90,11 +91,12 @@ public class TestCardSwipedMethod extends TestCase
     try {
       dateBorrowed = dateFormat.parse("01/10/15");
       Date dateDue = dateFormat.parse("15/10/15");
+      LibraryClock clock = new LibraryClock();
       
-      ILoan loan1 = new Loan(bookDAO.getBookByID(1), memberDAO.getMemberByID(2), dateBorrowed, dateDue);
-      ILoan loan2 = new Loan(bookDAO.getBookByID(2), memberDAO.getMemberByID(2), dateBorrowed, dateDue);
-      ILoan loan3 = new Loan(bookDAO.getBookByID(3), memberDAO.getMemberByID(2), dateBorrowed, dateDue);
-      ILoan loan4 = new Loan(bookDAO.getBookByID(4), memberDAO.getMemberByID(2), dateBorrowed, dateDue);
+      ILoan loan1 = new Loan(bookDAO.getBookByID(1), memberDAO.getMemberByID(2), dateBorrowed, dateDue, clock);
+      ILoan loan2 = new Loan(bookDAO.getBookByID(2), memberDAO.getMemberByID(2), dateBorrowed, dateDue, clock);
+      ILoan loan3 = new Loan(bookDAO.getBookByID(3), memberDAO.getMemberByID(2), dateBorrowed, dateDue, clock);
+      ILoan loan4 = new Loan(bookDAO.getBookByID(4), memberDAO.getMemberByID(2), dateBorrowed, dateDue, clock);
       
       loanDAO.createLoan(memberDAO.getMemberByID(2), bookDAO.getBookByID(1));
       loanDAO.createLoan(memberDAO.getMemberByID(2), bookDAO.getBookByID(2));
@@ -122,13 +124,14 @@ public class TestCardSwipedMethod extends TestCase
     try {
       Date dateBorrowed = dateFormat.parse("01/10/15");
       Date dateDue = dateFormat.parse("15/10/15");
+      LibraryClock clock = new LibraryClock();
       
-      ILoan loan1 = new Loan(bookDAO.getBookByID(1), memberDAO.getMemberByID(2), dateBorrowed, dateDue);
-      ILoan loan2 = new Loan(bookDAO.getBookByID(2), memberDAO.getMemberByID(2), dateBorrowed, dateDue);
-      ILoan loan3 = new Loan(bookDAO.getBookByID(3), memberDAO.getMemberByID(2), dateBorrowed, dateDue);
-      ILoan loan4 = new Loan(bookDAO.getBookByID(4), memberDAO.getMemberByID(2), dateBorrowed, dateDue);
-      ILoan loan5 = new Loan(bookDAO.getBookByID(5), memberDAO.getMemberByID(2), dateBorrowed, dateDue);
-      ILoan loan6 = new Loan(bookDAO.getBookByID(6), memberDAO.getMemberByID(2), dateBorrowed, dateDue);
+      ILoan loan1 = new Loan(bookDAO.getBookByID(1), memberDAO.getMemberByID(2), dateBorrowed, dateDue, clock);
+      ILoan loan2 = new Loan(bookDAO.getBookByID(2), memberDAO.getMemberByID(2), dateBorrowed, dateDue, clock);
+      ILoan loan3 = new Loan(bookDAO.getBookByID(3), memberDAO.getMemberByID(2), dateBorrowed, dateDue, clock);
+      ILoan loan4 = new Loan(bookDAO.getBookByID(4), memberDAO.getMemberByID(2), dateBorrowed, dateDue, clock);
+      ILoan loan5 = new Loan(bookDAO.getBookByID(5), memberDAO.getMemberByID(2), dateBorrowed, dateDue, clock);
+      ILoan loan6 = new Loan(bookDAO.getBookByID(6), memberDAO.getMemberByID(2), dateBorrowed, dateDue, clock);
       
       loanDAO.createLoan(memberDAO.getMemberByID(2), bookDAO.getBookByID(1));
       loanDAO.createLoan(memberDAO.getMemberByID(2), bookDAO.getBookByID(2));
@@ -103,6 +103,23 @@ public class TestRejectLoansOperation
   IMember eric = spy(members_.addMember("Eric", "Idle", "5127", "ei@life.com"));
 
   public void initializeController()
+  {
+    createController();
+    ui_ = spy(new BorrowUC_UI(controller_));
+    setPrivateUI(controller_, ui_);
+  }
+
+  // As initializeController, but with a mocked IBorrowUI rather than a
+  // BorrowUC_UI, for tests that only check what is sent to the UI and so
+  // must not depend on Swing
+  public void initializeControllerWithMockedUI()
+  {
+    createController();
+    ui_ = mock(IBorrowUI.class);
+    setPrivateUI(controller_, ui_);
+  }
+
+  private void createController()
   {
     loans_ = spy(new LoanDAO(loanHelper_));
     controller_ = spy(new BorrowUC_CTL(reader_, scanner_, printer_, display_,
@@ -110,9 +127,6 @@ public class TestRejectLoansOperation
 
     setPrivateLoanList(controller_, new ArrayList<>());
     setPrivateBookList(controller_, new ArrayList<>());
-
-    ui_ = spy(new BorrowUC_UI(controller_));
-    setPrivateUI(controller_, ui_);
   }
 
   public void setBorrower(IMember borrower)
@@ -328,6 +342,30 @@ public class TestRejectLoansOperation
 
 
 
+  @Test
+  public void rejectLoan_TwoPending_NextScanStartsNewPendingList()
+  {
+    initializeControllerWithMockedUI();
+    setBorrower(jim);
+    setCount();
+    setPrivateState(controller_, EBorrowState.SCANNING_BOOKS);
+    controller_.bookScanned(catch22.getID());
+    controller_.bookScanned(emma.getID());
+    setState_ConfirmingLoans();
+
+    controller_.loansRejected();
+    controller_.bookScanned(scoop.getID());
+
+    // The new list holds only the loan scanned since the rejection
+    verify(ui_).displayPendingLoan(startsWith("Loan ID:  0\n" +
+                                              "Author:   Evelyn Waugh"));
+    verify(ui_).appendPendingLoan(startsWith("\n\nLoan ID:  0\n" +
+                                             "Author:   Jane Austen"));
+    verify(ui_, times(1)).appendPendingLoan(anyString());
+  }
+
+
+
   @Test
   public void rejectLoan_OnePending_displayMemberDetailsCalled()
   {
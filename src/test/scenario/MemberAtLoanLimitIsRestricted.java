@@ -137,12 +137,6 @@ public class MemberAtLoanLimitIsRestricted
     thirdLoan = loans_.createLoan(member, scoop);
     fourthLoan = loans_.createLoan(member, dune);
     fifthLoan = loans_.createLoan(member, janeEyre);
-    loans_.commitLoan(firstLoan);
-    loans_.commitLoan(secondLoan);
-    loans_.commitLoan(thirdLoan);
-    loans_.commitLoan(fourthLoan);
-    loans_.commitLoan(fifthLoan);
-
     setPrivateBorrowDate((Loan)firstLoan, borrowed);
     setPrivateDueDate((Loan)firstLoan, tomorrow);
     setPrivateBorrowDate((Loan)secondLoan, borrowed);
@@ -154,6 +148,12 @@ public class MemberAtLoanLimitIsRestricted
     setPrivateBorrowDate((Loan)fifthLoan, borrowed);
     setPrivateDueDate((Loan)fifthLoan, tomorrow);
 
+    loans_.commitLoan(firstLoan);
+    loans_.commitLoan(secondLoan);
+    loans_.commitLoan(thirdLoan);
+    loans_.commitLoan(fourthLoan);
+    loans_.commitLoan(fifthLoan);
+
     loans_.updateOverDueStatus(new Date());
 
     if (loans_.getLoanByID(1) != firstLoan ||
@@ -399,7 +399,7 @@ public class MemberAtLoanLimitIsRestricted
     // User swipes card
     controller_.cardSwiped(jim.getId());
 
-    verify(members_, times(2)).getMemberByID(jim.getId()); // checks null first
+    verify(members_).getMemberSummary(jim.getId()); // the single lookup
     verify(jim, times(3)).getLoans(); // called in setup
 
     verify(jim).isRestricted();
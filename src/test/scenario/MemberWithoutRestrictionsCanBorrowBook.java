@@ -156,12 +156,6 @@ public class MemberWithoutRestrictionsCanBorrowBook
     thirdLoan = loans_.createLoan(secondMember, scoop);
     fourthLoan = loans_.createLoan(secondMember, dune);
     fifthLoan = loans_.createLoan(secondMember, janeEyre);
-    loans_.commitLoan(firstLoan);
-    loans_.commitLoan(secondLoan);
-    loans_.commitLoan(thirdLoan);
-    loans_.commitLoan(fourthLoan);
-    loans_.commitLoan(fifthLoan);
-
     setPrivateBorrowDate((Loan)firstLoan, borrowed);
     setPrivateDueDate((Loan)firstLoan, yesterday);
     setPrivateBorrowDate((Loan)secondLoan, borrowed);
@@ -173,6 +167,12 @@ public class MemberWithoutRestrictionsCanBorrowBook
     setPrivateBorrowDate((Loan)fifthLoan, borrowed);
     setPrivateDueDate((Loan)fifthLoan, yesterday);
 
+    loans_.commitLoan(firstLoan);
+    loans_.commitLoan(secondLoan);
+    loans_.commitLoan(thirdLoan);
+    loans_.commitLoan(fourthLoan);
+    loans_.commitLoan(fifthLoan);
+
     loans_.updateOverDueStatus(new Date());
 
     if (loans_.getLoanByID(1) != firstLoan ||
@@ -476,7 +476,7 @@ public class MemberWithoutRestrictionsCanBorrowBook
     // User swipes card
     controller_.cardSwiped(jim.getId());
 
-    verify(members_, times(2)).getMemberByID(jim.getId()); // checks null first
+    verify(members_).getMemberSummary(jim.getId()); // the single lookup
     verify(jim, times(2)).getLoans();
 
     verify(ui_).setState(EBorrowState.SCANNING_BOOKS);
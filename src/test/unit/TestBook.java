@@ -5,6 +5,7 @@ import java.lang.reflect.Field;
 import junit.framework.TestCase;
 import library.entities.Book;
 import library.interfaces.entities.EBookState;
+import library.interfaces.entities.IBookStateListener;
 import library.interfaces.entities.ILoan;
 
 import static org.mockito.Mockito.*;
@@ -157,6 +158,33 @@ public class TestBook extends TestCase
 
 
 
+  // TB-49
+  public void testConstructorWithState()
+  {
+    Book book = new Book("author", "title", "callNumber", 1, 
+                         EBookState.DAMAGED);
+    
+    assertEquals(EBookState.DAMAGED, book.getState());
+    book.repair();
+    assertEquals(EBookState.AVAILABLE, book.getState());
+  }
+
+
+
+  // TB-50
+  public void testConstructorWithStateOnLoan()
+  {
+    try {
+      new Book("author", "title", "callNumber", 1, EBookState.ON_LOAN);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch (IllegalArgumentException iae) {
+      assertTrue(iae.getMessage().contains("state"));
+    }
+  }
+
+
+
   // ==========================================================================
   // Getter Method Testing
   // ==========================================================================
@@ -1311,6 +1339,46 @@ public class TestBook extends TestCase
   
   
   
+  // ==========================================================================
+  // Testing setStateListener(IBookStateListener listener) method
+  // ==========================================================================
+
+  
+  
+  public void testStateListenerToldOfEveryChange()
+  {
+    Book book = new Book("Charles Dickens", "Great Expectations",
+                         "82.023 275 [2011]", 1);
+    IBookStateListener mockedListener = mock(IBookStateListener.class);
+    
+    book.setStateListener(mockedListener);
+    book.borrow(mock(ILoan.class));
+    book.lose();
+    book.returnBook(true);
+    book.repair();
+    book.dispose();
+    
+    // Confirm one report per state change
+    verify(mockedListener, times(5)).bookStateChanged(book);
+  }
+  
+  
+  
+  public void testStateListenerRemoved()
+  {
+    Book book = new Book("Charles Dickens", "Great Expectations",
+                         "82.023 275 [2011]", 1);
+    IBookStateListener mockedListener = mock(IBookStateListener.class);
+    
+    book.setStateListener(mockedListener);
+    book.setStateListener(null);
+    book.dispose();
+    
+    verifyZeroInteractions(mockedListener);
+  }
+  
+  
+  
   // ==========================================================================
   // Helper Methods (Not Tests)
   // ==========================================================================
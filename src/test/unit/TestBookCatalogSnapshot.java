@@ -0,0 +1,314 @@
+package test.unit;
+
+import junit.framework.TestCase;
+import library.daos.BookCatalogSnapshot;
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.interfaces.entities.EBookState;
+import library.interfaces.entities.IBook;
+import library.interfaces.entities.ILoan;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * TestBookCatalogSnapshot class
+ *
+ * Tests writing a catalog snapshot from a BookDAO and opening a BookDAO
+ * from the snapshot. Real books are used as the snapshot stores their text.
+ *
+ */
+public class TestBookCatalogSnapshot extends TestCase
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private Path snapshotFile;
+  private BookDAO liveBookDAO;
+
+
+
+  // ==========================================================================
+  // Per-test Set-Up and Tear Down
+  // ==========================================================================
+
+
+
+  @Override
+  protected void setUp() throws IOException
+  {
+    snapshotFile = Files.createTempFile("catalog", ".snapshot");
+
+    liveBookDAO = new BookDAO(new BookHelper());
+    liveBookDAO.addBook("Charles Dickens", "Great Expectations",
+                        "82.023 275 [2011]");
+    liveBookDAO.addBook("Harper Lee", "To Kill a Mockingbird", "813.54 TOKI");
+    liveBookDAO.addBook("Harper Lee", "Go Set a Watchman", "982.441 LEE");
+    liveBookDAO.addBook("Gabriel Garc\u00eda M\u00e1rquez",
+                        "Cien a\u00f1os de soledad", "863.64 GAR");
+
+    BookCatalogSnapshot.write(liveBookDAO, snapshotFile);
+  }
+
+
+
+  @Override
+  protected void tearDown() throws IOException
+  {
+    Files.deleteIfExists(snapshotFile);
+  }
+
+
+
+  // ==========================================================================
+  // Snapshot Tests
+  // ==========================================================================
+
+
+
+  public void testOpenSnapshotReadsHeader() throws IOException
+  {
+    BookCatalogSnapshot snapshot = BookCatalogSnapshot.open(snapshotFile);
+
+    assertEquals(4, snapshot.size());
+    assertEquals(4, snapshot.getMaxId());
+    assertTrue(snapshot.contains(4));
+    assertFalse(snapshot.contains(5));
+    assertFalse(snapshot.contains(0));
+  }
+
+
+
+  public void testReadBookDecodesEntry() throws IOException
+  {
+    BookCatalogSnapshot snapshot = BookCatalogSnapshot.open(snapshotFile);
+
+    IBook book = snapshot.readBook(4, new BookHelper());
+
+    // Confirm non-ASCII text survives the round trip
+    assertEquals(4, book.getID());
+    assertEquals("Gabriel Garc\u00eda M\u00e1rquez", book.getAuthor());
+    assertEquals("Cien a\u00f1os de soledad", book.getTitle());
+    assertEquals("863.64 GAR", book.getCallNumber());
+    assertEquals(EBookState.AVAILABLE, book.getState());
+    assertNull(snapshot.readBook(5, new BookHelper()));
+  }
+
+
+
+  public void testBookStatesSurviveRoundTrip() throws IOException
+  {
+    liveBookDAO.getBookByID(1).borrow(mock(ILoan.class));
+    liveBookDAO.getBookByID(1).returnBook(true);
+    liveBookDAO.getBookByID(2).borrow(mock(ILoan.class));
+    liveBookDAO.getBookByID(2).lose();
+    liveBookDAO.getBookByID(3).dispose();
+    liveBookDAO.getBookByID(4).borrow(mock(ILoan.class));
+    BookCatalogSnapshot.write(liveBookDAO, snapshotFile);
+
+    BookDAO testBookDAO = new BookDAO(new BookHelper(), snapshotFile);
+
+    assertEquals(EBookState.DAMAGED, testBookDAO.getBookByID(1).getState());
+    assertEquals(EBookState.LOST, testBookDAO.getBookByID(2).getState());
+    assertEquals(EBookState.DISPOSED, testBookDAO.getBookByID(3).getState());
+    // Loans are not in the snapshot, so a book on loan is read back
+    // AVAILABLE for its loan to borrow again
+    assertEquals(EBookState.AVAILABLE, testBookDAO.getBookByID(4).getState());
+    assertEquals(1, testBookDAO.countBooksByState(EBookState.LOST));
+    assertEquals(1, testBookDAO.listBooksByState(EBookState.DAMAGED).size());
+  }
+
+
+
+  public void testOpenFileThatIsNotASnapshotThrows() throws IOException
+  {
+    Files.write(snapshotFile, "not a book catalog snapshot".getBytes());
+
+    try {
+      BookCatalogSnapshot.open(snapshotFile);
+      fail("Should have thrown IOException");
+    }
+    catch(IOException e) {
+      assertTrue(e.getMessage().contains("not a book catalog snapshot"));
+    }
+  }
+
+
+
+  public void testReadBookNegativeLengthThrowsNamingFile() throws IOException
+  {
+    corruptAuthorLength(1, -1);
+    BookCatalogSnapshot snapshot = BookCatalogSnapshot.open(snapshotFile);
+
+    try {
+      snapshot.readBook(1, new BookHelper());
+      fail("Should have thrown IOException");
+    }
+    catch(IOException e) {
+      assertTrue(e.getMessage().contains(snapshotFile.toString()));
+      assertTrue(e.getMessage().contains("corrupt"));
+    }
+  }
+
+
+
+  public void testReadBookLengthPastEndOfFileThrows() throws IOException
+  {
+    corruptAuthorLength(4, Integer.MAX_VALUE);
+    BookCatalogSnapshot snapshot = BookCatalogSnapshot.open(snapshotFile);
+
+    try {
+      snapshot.readBook(4, new BookHelper());
+      fail("Should have thrown IOException");
+    }
+    catch(IOException e) {
+      assertTrue(e.getMessage().contains(snapshotFile.toString()));
+    }
+    // Other books are still readable
+    assertEquals("Harper Lee", snapshot.readBook(3, new BookHelper())
+                                       .getAuthor());
+  }
+
+
+
+  // ==========================================================================
+  // BookDAO Tests
+  // ==========================================================================
+
+
+
+  public void testGetBookByIDFromCorruptSnapshotThrows() throws IOException
+  {
+    corruptAuthorLength(2, -1);
+    BookDAO testBookDAO = new BookDAO(new BookHelper(), snapshotFile);
+
+    try {
+      testBookDAO.getBookByID(2);
+      fail("Should have thrown UncheckedIOException");
+    }
+    catch(UncheckedIOException e) {
+      assertTrue(e.getCause().getMessage()
+                  .contains(snapshotFile.toString()));
+    }
+  }
+
+
+
+  public void testGetBookByIDFromSnapshotReturnsSameBookEachTime()
+      throws IOException
+  {
+    BookDAO testBookDAO = new BookDAO(new BookHelper(), snapshotFile);
+
+    IBook book = testBookDAO.getBookByID(2);
+
+    assertEquals("To Kill a Mockingbird", book.getTitle());
+    assertSame(book, testBookDAO.getBookByID(2));
+    assertNull(testBookDAO.getBookByID(5));
+  }
+
+
+
+  public void testFindBooksFromSnapshot() throws IOException
+  {
+    BookDAO testBookDAO = new BookDAO(new BookHelper(), snapshotFile);
+
+    // Decode one book before the find methods load the rest
+    IBook watchman = testBookDAO.getBookByID(3);
+    List<IBook> booksByAuthor = testBookDAO.findBooksByAuthor("Harper Lee");
+
+    assertEquals(2, booksByAuthor.size());
+    assertEquals(2, booksByAuthor.get(0).getID());
+    assertSame(watchman, booksByAuthor.get(1));
+    assertEquals(1, testBookDAO.findBooksByAuthorTitle("Charles Dickens",
+                                         "Great Expectations").size());
+  }
+
+
+
+  public void testSearchBooksFromSnapshot() throws IOException
+  {
+    BookDAO testBookDAO = new BookDAO(new BookHelper(), snapshotFile);
+
+    List<IBook> found = testBookDAO.searchBooks("M\u00c1RQUEZ soled*", 10);
+
+    assertEquals(1, found.size());
+    assertEquals(4, found.get(0).getID());
+  }
+
+
+
+  public void testListBooksFromSnapshotInIdOrder() throws IOException
+  {
+    BookDAO testBookDAO = new BookDAO(new BookHelper(), snapshotFile);
+
+    List<IBook> allBooks = testBookDAO.listBooks();
+
+    assertEquals(4, allBooks.size());
+    for(int i = 0; i < allBooks.size(); i++) {
+      assertEquals(i + 1, allBooks.get(i).getID());
+    }
+  }
+
+
+
+  public void testListBooksPagedFromSnapshot() throws IOException
+  {
+    BookDAO testBookDAO = new BookDAO(new BookHelper(), snapshotFile);
+    IBook added = testBookDAO.addBook("Harper Lee", "Another Book", "1 LEE");
+
+    List<IBook> firstPage = testBookDAO.listBooks(0, 3);
+    List<IBook> secondPage = testBookDAO.listBooks(3, 3);
+
+    assertEquals(3, firstPage.size());
+    assertEquals("Go Set a Watchman", firstPage.get(2).getTitle());
+    assertEquals(2, secondPage.size());
+    assertEquals(4, secondPage.get(0).getID());
+    assertSame(added, secondPage.get(1));
+    assertSame(firstPage.get(0), testBookDAO.getBookByID(1));
+    assertEquals(5, testBookDAO.streamBooks().count());
+  }
+
+
+
+  public void testAddBookAfterSnapshotContinuesIds() throws IOException
+  {
+    BookDAO testBookDAO = new BookDAO(new BookHelper(), snapshotFile);
+
+    IBook added = testBookDAO.addBook("Harper Lee", "Another Book", "1 LEE");
+
+    assertEquals(5, added.getID());
+
+    // Confirm the index lists the snapshot's books before the new book
+    List<IBook> booksByAuthor = testBookDAO.findBooksByAuthor("Harper Lee");
+    assertEquals(3, booksByAuthor.size());
+    assertSame(added, booksByAuthor.get(2));
+  }
+
+
+
+  // ==========================================================================
+  // Helper Methods
+  // ==========================================================================
+
+
+
+  // Overwrites the byte length stored before the author of the given book
+  private void corruptAuthorLength(int id, int length) throws IOException
+  {
+    ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+    // The author's length follows the book's one byte state
+    int offset = bytes.getInt(16 + 4 * (id - 1)) + 1;
+    bytes.putInt(offset, length);
+    Files.write(snapshotFile, bytes.array());
+  }
+
+}
@@ -2,12 +2,26 @@ package test.unit;
 
 import junit.framework.TestCase;
 import library.daos.BookDAO;
+import library.daos.BookHelper;
 import library.interfaces.daos.IBookHelper;
+import library.interfaces.entities.EBookState;
 import library.interfaces.entities.IBook;
+import library.interfaces.entities.ILoan;
 
 import static org.mockito.Mockito.*;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * TestBookDAO class
@@ -384,6 +398,56 @@ public class TestBookDAO extends TestCase
 
   
   
+  public void testListBooksPaged() 
+  {
+    BookDAO testBookDAO = new BookDAO(new BookHelper());
+    for(int i = 0; i < 5; i++) {
+      testBookDAO.addBook("Harper Lee", "Title " + i, "813.54 TOKI");
+    }
+
+    List<IBook> firstPage = testBookDAO.listBooks(0, 2);
+    List<IBook> lastPage = testBookDAO.listBooks(4, 2);
+
+    // Confirm each page follows on from the last id of the one before
+    assertEquals(2, firstPage.size());
+    assertEquals(1, firstPage.get(0).getID());
+    assertEquals(3, testBookDAO.listBooks(2, 2).get(0).getID());
+    assertEquals(1, lastPage.size());
+    assertEquals("Title 4", lastPage.get(0).getTitle());
+    assertTrue(testBookDAO.listBooks(5, 2).isEmpty());
+  }
+
+  
+  
+  public void testListBooksPagedNegativeLimit() 
+  {
+    BookDAO testBookDAO = new BookDAO(mockedHelper);
+
+    try {
+      testBookDAO.listBooks(0, -1);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch(IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("limit"));
+    }
+  }
+
+  
+  
+  public void testStreamBooks() 
+  {
+    BookDAO testBookDAO = new BookDAO(mockedHelper);
+    testBookDAO.addBook("Charles Dickens", "Great Expectations", 
+            "82.023 275 [2011]");
+    testBookDAO.addBook("Harper Lee", "To Kill a Mockingbird", "813.54 TOKI");
+
+    assertEquals(2, testBookDAO.streamBooks().count());
+    assertEquals(mockedBookTwo, testBookDAO.streamBooks().skip(1)
+                                           .findFirst().get());
+  }
+
+  
+  
   // ==========================================================================
   // Testing findBooksByAuthor(String author) method
   // ==========================================================================
@@ -802,4 +866,277 @@ public class TestBookDAO extends TestCase
     assertTrue(booksByAuthorAndTitle.isEmpty());
   }
   
+  
+  
+  public void testSearchBooks() {
+    BookDAO testBookDAO = new BookDAO(new BookHelper());
+    testBookDAO.addBook("Charles Dickens", "Great Expectations", 
+            "82.023 275 [2011]");
+    testBookDAO.addBook("Harper Lee", "To Kill a Mockingbird", "813.54 TOKI");
+    testBookDAO.addBook("Harper Lee", "Go Set a Watchman", "982.441 LEE");
+    
+    List<IBook> found = testBookDAO.searchBooks("lee go*", 10);
+    
+    // Confirm only the book with both words is found
+    assertEquals(1, found.size());
+    assertEquals("Go Set a Watchman", found.get(0).getTitle());
+    assertSame(testBookDAO.getBookByID(1), 
+               testBookDAO.searchBooks("expectations", 10).get(0));
+    assertTrue(testBookDAO.searchBooks("dickens lee", 10).isEmpty());
+  }
+  
+  
+  
+  public void testFindBooksByAuthorFuzzy() {
+    BookDAO testBookDAO = new BookDAO(new BookHelper());
+    testBookDAO.addBook("Charles Dickens", "Great Expectations", 
+            "82.023 275 [2011]");
+    testBookDAO.addBook("Harper Lee", "To Kill a Mockingbird", "813.54 TOKI");
+    testBookDAO.addBook("Harper Lee", "Go Set a Watchman", "982.441 LEE");
+    testBookDAO.addBook("Harpo Leigh", "Another Book", "1 LEI");
+    
+    List<IBook> found = testBookDAO.findBooksByAuthorFuzzy("Haprer Lee", 0.3);
+    
+    // Confirm both books by the closest author come first
+    assertEquals(2, found.size());
+    assertEquals(2, found.get(0).getID());
+    assertEquals(3, found.get(1).getID());
+    assertEquals(3, testBookDAO.findBooksByAuthorFuzzy("Harper Lee", 0.2)
+                               .size());
+    assertTrue(testBookDAO.findBooksByAuthorFuzzy("Tolstoy", 0.3).isEmpty());
+  }
+  
+  
+  
+  public void testFindBooksByTitleFuzzy() {
+    BookDAO testBookDAO = new BookDAO(new BookHelper());
+    testBookDAO.addBook("Charles Dickens", "Great Expectations", 
+            "82.023 275 [2011]");
+    testBookDAO.addBook("Harper Lee", "To Kill a Mockingbird", "813.54 TOKI");
+    
+    List<IBook> found = testBookDAO.findBooksByTitleFuzzy("Grate Expectation",
+                                                          0.3);
+    
+    assertEquals(1, found.size());
+    assertEquals(1, found.get(0).getID());
+  }
+  
+  
+  
+  public void testFindBooksByCallNumberRangeAndNear() {
+    BookDAO testBookDAO = new BookDAO(new BookHelper());
+    testBookDAO.addBook("Charles Dickens", "Great Expectations", 
+            "82.023 275 [2011]");
+    testBookDAO.addBook("Harper Lee", "To Kill a Mockingbird", "813.54 TOKI");
+    testBookDAO.addBook("Harper Lee", "Go Set a Watchman", "982.441 LEE");
+    testBookDAO.addBook("Frank Herbert", "Dune", "813.5 HER");
+    
+    List<IBook> range = testBookDAO.findBooksByCallNumberRange("800", "900");
+    List<IBook> near = testBookDAO.findBooksNearCallNumber("813.54 TOKI", 1);
+    
+    // Confirm books come back in shelf order, not id order
+    assertEquals(2, range.size());
+    assertEquals(4, range.get(0).getID());
+    assertEquals(2, range.get(1).getID());
+    assertEquals(2, near.size());
+    assertEquals(4, near.get(0).getID());
+    assertEquals(2, near.get(1).getID());
+  }
+  
+  
+  
+  public void testBooksByStateFollowStateChanges() {
+    BookDAO testBookDAO = new BookDAO(new BookHelper());
+    testBookDAO.addBook("Charles Dickens", "Great Expectations", 
+            "82.023 275 [2011]");
+    testBookDAO.addBook("Harper Lee", "To Kill a Mockingbird", "813.54 TOKI");
+    testBookDAO.addBook("Harper Lee", "Go Set a Watchman", "982.441 LEE");
+    
+    testBookDAO.getBookByID(2).borrow(mock(ILoan.class));
+    testBookDAO.getBookByID(1).borrow(mock(ILoan.class));
+    testBookDAO.getBookByID(1).returnBook(true);
+    
+    assertEquals(1, testBookDAO.countBooksByState(EBookState.AVAILABLE));
+    assertEquals(1, testBookDAO.countBooksByState(EBookState.ON_LOAN));
+    assertEquals(1, testBookDAO.countBooksByState(EBookState.DAMAGED));
+    
+    List<IBook> notAvailable = testBookDAO.listBooksByState(
+            EBookState.ON_LOAN, EBookState.DAMAGED);
+    assertEquals(2, notAvailable.size());
+    assertEquals(1, notAvailable.get(0).getID());
+    assertEquals(2, notAvailable.get(1).getID());
+    
+    List<IBook> available = testBookDAO.findBooksByAuthorAndState(
+            "Harper Lee", EBookState.AVAILABLE);
+    assertEquals(1, available.size());
+    assertEquals(3, available.get(0).getID());
+  }
+  
+  
+  
+  public void testSearchBooksEmptyQuery() {
+    BookDAO testBookDAO = new BookDAO(mockedHelper);
+    
+    try {
+      testBookDAO.searchBooks("", 10);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch(IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("query"));
+    }
+  }
+  
+  
+  
+  public void testAddBookPoolsAuthorAndTitle() {
+    BookDAO testBookDAO = new BookDAO(new BookHelper());
+    
+    // Equal but distinct instances, as a parser would produce
+    IBook firstCopy = testBookDAO.addBook(new String("Harper Lee"), 
+                                          new String("Go Set a Watchman"), 
+                                          "982.441 LEE");
+    IBook secondCopy = testBookDAO.addBook(new String("Harper Lee"), 
+                                           new String("Go Set a Watchman"), 
+                                           "982.441 LEE c.2");
+    
+    // Confirm both copies hold the same instances
+    assertSame(firstCopy.getAuthor(), secondCopy.getAuthor());
+    assertSame(firstCopy.getTitle(), secondCopy.getTitle());
+    assertEquals(2, testBookDAO.findBooksByAuthor("Harper Lee").size());
+  }
+  
+  
+  
+  // ==========================================================================
+  // Concurrency
+  // ==========================================================================
+  
+  
+  
+  private static final int WRITER_THREADS = 8;
+  private static final int BOOKS_PER_THREAD = 2000;
+  private static final int AUTHORS = 10;
+  // Long enough for the slowest build machine, short enough that a stuck 
+  // thread fails the test rather than hanging the build
+  private static final long TIMEOUT_SECONDS = 60;
+  
+  
+  
+  public void testConcurrentAddBookNoLostIdsOrCorruptedLookups() 
+      throws Exception
+  {
+    final BookDAO testBookDAO = new BookDAO(new BookHelper());
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch writersDone = new CountDownLatch(WRITER_THREADS);
+    ExecutorService pool = Executors.newFixedThreadPool(WRITER_THREADS + 2);
+    List<Future<?>> results = new ArrayList<Future<?>>();
+    
+    // Every writer adds books under the same few authors, so the threads 
+    // contend on the same index entries
+    for(int t = 0; t < WRITER_THREADS; t++) {
+      final int thread = t;
+      results.add(pool.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception
+        {
+          // Counted down even if adding fails, so the readers still stop
+          try {
+            start.await();
+            for(int i = 0; i < BOOKS_PER_THREAD; i++) {
+              testBookDAO.addBook("author" + (i % AUTHORS), 
+                                  "thread" + thread + " title" + i, 
+                                  "callNo" + i);
+            }
+          }
+          finally {
+            writersDone.countDown();
+          }
+          return null;
+        }
+      }));
+    }
+    
+    // Readers run alongside the writers and check that every book they can 
+    // see through an index is complete and can be found by id
+    for(int r = 0; r < 2; r++) {
+      results.add(pool.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws Exception
+        {
+          start.await();
+          long deadline = System.nanoTime() 
+                          + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+          while(writersDone.getCount() > 0 && System.nanoTime() < deadline) {
+            for(int a = 0; a < AUTHORS; a++) {
+              for(IBook book: testBookDAO.findBooksByAuthor("author" + a)) {
+                assertNotNull(book);
+                assertEquals("author" + a, book.getAuthor());
+                assertSame(book, testBookDAO.getBookByID(book.getID()));
+              }
+            }
+          }
+          return null;
+        }
+      }));
+    }
+    
+    start.countDown();
+    try {
+      for(Future<?> result: results) {
+        awaitWorker(result);
+      }
+    }
+    finally {
+      pool.shutdownNow();
+    }
+    
+    // Confirm every id from 1 to the total was handed out exactly once
+    int total = WRITER_THREADS * BOOKS_PER_THREAD;
+    List<IBook> allBooks = testBookDAO.listBooks();
+    assertEquals(total, allBooks.size());
+    
+    Set<Integer> ids = new HashSet<Integer>();
+    for(IBook book: allBooks) {
+      ids.add(book.getID());
+    }
+    assertEquals(total, ids.size());
+    for(int id = 1; id <= total; id++) {
+      assertEquals(id, testBookDAO.getBookByID(id).getID());
+    }
+    
+    // Confirm no index entry was lost
+    int indexed = 0;
+    for(int a = 0; a < AUTHORS; a++) {
+      indexed += testBookDAO.findBooksByAuthor("author" + a).size();
+    }
+    assertEquals(total, indexed);
+    assertEquals(1, testBookDAO.findBooksByAuthorTitle("author3", 
+                                                      "thread5 title13").size());
+  }
+  
+  
+  
+  // Waits for a worker thread, rethrowing any assertion failure or 
+  // exception it ended with, and fails if it does not finish in time
+  private void awaitWorker(Future<?> result) throws Exception
+  {
+    try {
+      result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    catch(TimeoutException exception) {
+      fail("Worker thread did not finish within " + TIMEOUT_SECONDS 
+           + " seconds");
+    }
+    catch(ExecutionException exception) {
+      Throwable cause = exception.getCause();
+      if(cause instanceof Error) {
+        throw (Error) cause;
+      }
+      if(cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw exception;
+    }
+  }
+  
 }
@@ -2,6 +2,7 @@ package test.unit;
 
 import junit.framework.TestCase;
 import library.daos.BookHelper;
+import library.daos.StringPool;
 import library.interfaces.entities.IBook;
 
 /**
@@ -48,5 +49,38 @@ public class TestBookHelper extends TestCase
     assertEquals("813.54 TOKI", testBook.getCallNumber());
     assertEquals(338, testBook.getID());
   }
+
+
+
+  public void testMakeBookSharesAuthorAndTitleInstances()
+  {
+    StringPool pool = new StringPool();
+    BookHelper helper = new BookHelper(pool);
+
+    // Equal but distinct instances, as a parser would produce
+    IBook firstCopy = helper.makeBook(new String("Harper Lee"), 
+                                      new String("To Kill a Mockingbird"),
+                                      "813.54 TOKI", 1);
+    IBook secondCopy = helper.makeBook(new String("Harper Lee"), 
+                                       new String("To Kill a Mockingbird"),
+                                       "813.54 TOKI c.2", 2);
+
+    assertSame(firstCopy.getAuthor(), secondCopy.getAuthor());
+    assertSame(firstCopy.getTitle(), secondCopy.getTitle());
+    assertEquals(2, pool.size());
+  }
+
+
+
+  public void testConstructNullPoolThrows()
+  {
+    try {
+      new BookHelper(null);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch(IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("stringPool"));
+    }
+  }
   
 }
\ No newline at end of file
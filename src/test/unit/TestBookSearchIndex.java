@@ -0,0 +1,151 @@
+package test.unit;
+
+import junit.framework.TestCase;
+import library.daos.BookSearchIndex;
+
+/**
+ * TestBookSearchIndex class
+ *
+ * Isolated test class for the BookSearchIndex class
+ * Mock objects not necessary
+ *
+ */
+public class TestBookSearchIndex extends TestCase
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private BookSearchIndex index;
+
+
+
+  // ==========================================================================
+  // Per-test Set-Up and Tear Down
+  // ==========================================================================
+
+
+
+  @Override
+  protected void setUp()
+  {
+    index = new BookSearchIndex();
+    index.add(1, "Charles Dickens", "Great Expectations");
+    index.add(2, "Harper Lee", "To Kill a Mockingbird");
+    index.add(3, "Harper Lee", "Go Set a Watchman");
+    index.add(4, "Donald Duck", "Great Expectations");
+    index.add(5, "Charles Great", "Hard Times");
+  }
+
+
+
+  // ==========================================================================
+  // Search Tests
+  // ==========================================================================
+
+
+
+  public void testSearchSingleWordIgnoresCase()
+  {
+    int[] ids = index.search("MOCKINGBIRD", 10);
+
+    assertEquals(1, ids.length);
+    assertEquals(2, ids[0]);
+  }
+
+
+
+  public void testSearchAllWordsMustMatch()
+  {
+    int[] ids = index.search("harper watchman", 10);
+
+    assertEquals(1, ids.length);
+    assertEquals(3, ids[0]);
+    assertEquals(0, index.search("harper expectations", 10).length);
+    assertEquals(0, index.search("nobody", 10).length);
+  }
+
+
+
+  public void testSearchPrefix()
+  {
+    int[] ids = index.search("expect*", 10);
+
+    assertEquals(2, ids.length);
+    assertEquals(1, ids[0]);
+    assertEquals(4, ids[1]);
+    assertEquals(3, index.search("harp* go*", 10)[0]);
+  }
+
+
+
+  public void testSearchRanksTitleMatchAboveAuthorMatch()
+  {
+    int[] ids = index.search("great", 10);
+
+    // Both title matches rank above the author match, ties in id order
+    assertEquals(3, ids.length);
+    assertEquals(1, ids[0]);
+    assertEquals(4, ids[1]);
+    assertEquals(5, ids[2]);
+  }
+
+
+
+  public void testSearchRanksRarerWordsHigher()
+  {
+    // "dickens" is in one book, "charles" in two
+    int[] ids = index.search("charles dick*", 10);
+
+    assertEquals(1, ids.length);
+    assertEquals(1, ids[0]);
+    assertEquals(1, index.search("great charles", 10)[0]);
+  }
+
+
+
+  public void testSearchLimit()
+  {
+    assertEquals(2, index.search("great", 2).length);
+    assertEquals(0, index.search("great", 0).length);
+  }
+
+
+
+  public void testSearchOnlyPunctuationFindsNothing()
+  {
+    assertEquals(0, index.search("!! * ,", 10).length);
+  }
+
+
+
+  public void testSearchNegativeLimitThrows()
+  {
+    try {
+      index.search("great", -1);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch(IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("limit"));
+    }
+  }
+
+
+
+  public void testAddOutOfIdOrderStillMatches()
+  {
+    index.add(9, "Frank Herbert", "Dune");
+    index.add(7, "Brian Herbert", "Dune Messiah");
+    index.add(8, "Frank Herbert", "Children of Dune");
+
+    int[] ids = index.search("dune herbert", 10);
+
+    assertEquals(3, ids.length);
+    assertEquals(7, index.search("brian dune", 10)[0]);
+    assertEquals(8, index.search("frank children", 10)[0]);
+    assertEquals(2, index.search("frank dune", 10).length);
+  }
+
+}
@@ -0,0 +1,209 @@
+package test.unit;
+
+import java.util.BitSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import junit.framework.TestCase;
+import library.daos.BookStateIndex;
+import library.entities.Book;
+import library.interfaces.entities.EBookState;
+import library.interfaces.entities.ILoan;
+
+import static org.mockito.Mockito.*;
+
+/**
+ * TestBookStateIndex class
+ *
+ * Isolated test class for the BookStateIndex class
+ * Mock ILoan objects used where necessary
+ *
+ */
+public class TestBookStateIndex extends TestCase
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private BookStateIndex index;
+
+
+
+  // ==========================================================================
+  // Per-test Set-Up and Tear Down
+  // ==========================================================================
+
+
+
+  @Override
+  protected void setUp()
+  {
+    index = new BookStateIndex();
+    index.update(1, EBookState.AVAILABLE);
+    index.update(2, EBookState.AVAILABLE);
+    index.update(3, EBookState.ON_LOAN);
+    index.update(100, EBookState.DAMAGED);
+  }
+
+
+
+  // ==========================================================================
+  // Update Tests
+  // ==========================================================================
+
+
+
+  public void testUpdateMovesIdBetweenStates()
+  {
+    index.update(2, EBookState.ON_LOAN);
+
+    assertEquals(1, index.count(EBookState.AVAILABLE));
+    assertEquals(2, index.count(EBookState.ON_LOAN));
+    assertFalse(index.ids(EBookState.AVAILABLE).get(2));
+    assertTrue(index.ids(EBookState.ON_LOAN).get(2));
+  }
+
+
+
+  public void testUpdateToSameStateCountsIdOnce()
+  {
+    index.update(3, EBookState.ON_LOAN);
+
+    assertEquals(1, index.count(EBookState.ON_LOAN));
+    assertEquals(1, index.ids(EBookState.ON_LOAN).cardinality());
+  }
+
+
+
+  public void testUpdateIdsPastBitmapsKeepsEarlierIds()
+  {
+    index.update(100000, EBookState.LOST);
+    index.update(3, EBookState.AVAILABLE);
+
+    BitSet available = index.ids(EBookState.AVAILABLE);
+    assertEquals(3, available.cardinality());
+    assertTrue(available.get(3));
+    assertTrue(index.ids(EBookState.LOST).get(100000));
+    assertEquals(0, index.count(EBookState.ON_LOAN));
+  }
+
+
+
+  public void testUpdateNullStateRemovesId()
+  {
+    index.update(100, null);
+
+    assertEquals(0, index.count(EBookState.DAMAGED));
+    assertTrue(index.ids(EBookState.DAMAGED).isEmpty());
+  }
+
+
+
+  public void testUpdateZeroIdThrows()
+  {
+    try {
+      index.update(0, EBookState.AVAILABLE);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch(IllegalArgumentException e) {
+      assertEquals(2, index.count(EBookState.AVAILABLE));
+    }
+  }
+
+
+
+  public void testBookReportsChangesThroughListener()
+  {
+    Book book = new Book("Harper Lee", "Go Set a Watchman", "982.441 LEE", 7);
+    book.setStateListener(index);
+    index.bookStateChanged(book);
+
+    book.borrow(mock(ILoan.class));
+    assertEquals(2, index.count(EBookState.ON_LOAN));
+
+    book.returnBook(true);
+    assertEquals(0, index.count(EBookState.LOST));
+    assertEquals(2, index.count(EBookState.DAMAGED));
+    assertTrue(index.ids(EBookState.DAMAGED).get(7));
+  }
+
+
+
+  // ==========================================================================
+  // Query Tests
+  // ==========================================================================
+
+
+
+  public void testCounts()
+  {
+    assertEquals(2, index.count(EBookState.AVAILABLE));
+    assertEquals(1, index.count(EBookState.ON_LOAN));
+    assertEquals(0, index.count(EBookState.LOST));
+    assertEquals(1, index.count(EBookState.DAMAGED));
+  }
+
+
+
+  public void testIdsOfSeveralStatesIsUnion()
+  {
+    BitSet ids = index.ids(EBookState.ON_LOAN, EBookState.DAMAGED);
+
+    assertEquals(2, ids.cardinality());
+    assertTrue(ids.get(3));
+    assertTrue(ids.get(100));
+  }
+
+
+
+  public void testIdsIsACopy()
+  {
+    index.ids(EBookState.AVAILABLE).clear();
+
+    assertEquals(2, index.ids(EBookState.AVAILABLE).cardinality());
+  }
+
+
+
+  public void testReadsDoNotWaitForUpdateLock() throws Exception
+  {
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      Future<Integer> count;
+      // Hold the lock updates take, as a writer part way through would
+      synchronized(index) {
+        count = pool.submit(new Callable<Integer>() {
+          @Override
+          public Integer call()
+          {
+            return index.count(EBookState.AVAILABLE)
+                   + index.ids(EBookState.AVAILABLE).cardinality();
+          }
+        });
+        assertEquals(4, count.get(10, TimeUnit.SECONDS).intValue());
+      }
+    }
+    finally {
+      pool.shutdownNow();
+    }
+  }
+
+
+
+  public void testIdsNoStatesThrows()
+  {
+    try {
+      index.ids();
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch(IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("states"));
+    }
+  }
+
+}
@@ -0,0 +1,280 @@
+package test.unit;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import library.interfaces.daos.IBookDAO;
+import library.interfaces.entities.IBook;
+import library.interfaces.entities.IMember;
+
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.daos.BulkImporter;
+import library.daos.ImportReport;
+import library.daos.MemberDAO;
+import library.daos.MemberHelper;
+
+/**
+ * Unit tests for BulkImporter, importing from temporary CSV and TSV files
+ * into real DAOs.
+ */
+public class TestBulkImporter
+{
+  //===========================================================================
+  // Test fixtures
+  //===========================================================================
+
+  private List<Path> files_ = new ArrayList<>();
+
+  @After
+  public void tearDown()
+    throws IOException
+  {
+    for (Path file : files_) {
+      Files.deleteIfExists(file);
+    }
+  }
+
+
+
+  private Path write(String suffix, String... lines)
+    throws IOException
+  {
+    Path file = Files.createTempFile("import", suffix);
+    files_.add(file);
+    Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+    return file;
+  }
+
+  //===========================================================================
+  // Test importBooks
+  //===========================================================================
+
+  @Test
+  public void importBooksAddsRowsInFileOrderSkippingHeader()
+    throws IOException
+  {
+    Path file = write(".csv",
+                      "author,title,callNumber",
+                      "Charles Dickens,Great Expectations,82.023 275",
+                      "Harper Lee,To Kill a Mockingbird,813.54 TOKI");
+    BookDAO dao = new BookDAO(new BookHelper());
+
+    ImportReport report = new BulkImporter().importBooks(file, dao);
+
+    assertThat(report.getImportedCount()).isEqualTo(2);
+    assertThat(report.getRejectedRows()).isEmpty();
+    IBook first = dao.getBookByID(1);
+    assertThat(first.getAuthor()).isEqualTo("Charles Dickens");
+    assertThat(first.getCallNumber()).isEqualTo("82.023 275");
+    assertThat(dao.getBookByID(2).getTitle())
+      .isEqualTo("To Kill a Mockingbird");
+  }
+
+
+
+  @Test
+  public void importBooksReadsQuotedFields()
+    throws IOException
+  {
+    Path file = write(".csv",
+                      "\"Lee, Harper\",\"The \"\"Mockingbird\"\"\",813.54",
+                      "Frank Herbert,\"Dune\",");
+    BookDAO dao = new BookDAO(new BookHelper());
+
+    ImportReport report = new BulkImporter().importBooks(file, dao);
+
+    assertThat(report.getImportedCount()).isEqualTo(1);
+    assertThat(dao.getBookByID(1).getAuthor()).isEqualTo("Lee, Harper");
+    assertThat(dao.getBookByID(1).getTitle())
+      .isEqualTo("The \"Mockingbird\"");
+    assertThat(report.getRejectedRows()).hasSize(1);
+    assertThat(report.getRejectedRows().get(0).getReason())
+      .contains("callNumber");
+  }
+
+
+
+  @Test
+  public void importBooksReadsQuotedFieldsOverLineEnds()
+    throws IOException
+  {
+    Path file = write(".csv",
+                      "Charles Dickens,\"Great",
+                      "Expectations\",82.023 275",
+                      "Harper Lee,\"Go Set a Watchman\",\"982.441",
+                      "",
+                      "LEE\"",
+                      ",No Author,1 NOA");
+    BookDAO dao = new BookDAO(new BookHelper());
+
+    ImportReport report = new BulkImporter().importBooks(file, dao);
+
+    assertThat(report.getImportedCount()).isEqualTo(2);
+    assertThat(dao.getBookByID(1).getTitle())
+      .isEqualTo("Great\nExpectations");
+    assertThat(dao.getBookByID(2).getCallNumber()).isEqualTo("982.441\n\nLEE");
+    // Line numbers after a row over several lines are still the file's
+    assertThat(report.getRejectedRows()).hasSize(1);
+    assertThat(report.getRejectedRows().get(0).getLineNumber()).isEqualTo(6);
+  }
+
+
+
+  @Test
+  public void importBooksUnclosedQuoteRejectsOnlyItsLine()
+    throws IOException
+  {
+    Path file = write(".csv",
+                      "Charles Dickens,\"Great Expectations,82.023 275",
+                      "Harper Lee,To Kill a Mockingbird,813.54 TOKI",
+                      "Harper Lee,Go Set a Watchman,982.441 LEE");
+    BookDAO dao = new BookDAO(new BookHelper());
+
+    ImportReport report = new BulkImporter().importBooks(file, dao);
+
+    assertThat(report.getImportedCount()).isEqualTo(2);
+    assertThat(report.getRejectedRows()).hasSize(1);
+    assertThat(report.getRejectedRows().get(0).getLineNumber()).isEqualTo(1);
+    assertThat(report.getRejectedRows().get(0).getReason())
+      .contains("not closed");
+    assertThat(dao.getBookByID(1).getTitle())
+      .isEqualTo("To Kill a Mockingbird");
+  }
+
+
+
+  @Test
+  public void importBooksRejectsOnlyRowDAOThrowsFor()
+    throws IOException
+  {
+    Path file = write(".csv",
+                      "Charles Dickens,Great Expectations,82.023 275",
+                      "Harper Lee,To Kill a Mockingbird,813.54 TOKI",
+                      "Harper Lee,Go Set a Watchman,982.441 LEE");
+    IBookDAO dao = mock(IBookDAO.class);
+    when(dao.addBook("Harper Lee", "To Kill a Mockingbird", "813.54 TOKI"))
+      .thenThrow(new IllegalStateException("Catalog is read only."));
+
+    ImportReport report = new BulkImporter().importBooks(file, dao);
+
+    assertThat(report.getImportedCount()).isEqualTo(2);
+    assertThat(report.getRejectedRows()).hasSize(1);
+    assertThat(report.getRejectedRows().get(0).getLineNumber()).isEqualTo(2);
+    assertThat(report.getRejectedRows().get(0).getReason())
+      .isEqualTo("Catalog is read only.");
+    verify(dao).addBook("Harper Lee", "Go Set a Watchman", "982.441 LEE");
+  }
+
+
+
+  @Test
+  public void importBooksReportsRejectedRowsWithLineNumbers()
+    throws IOException
+  {
+    Path file = write(".tsv",
+                      "author\ttitle\tcallNumber",
+                      "Charles Dickens\tGreat Expectations\t82.023 275",
+                      "\tNo Author\t1 NOA",
+                      "",
+                      "Harper Lee\tToo\tMany\tFields",
+                      "Harper Lee\tGo Set a Watchman\t982.441 LEE");
+    BookDAO dao = new BookDAO(new BookHelper());
+
+    ImportReport report = new BulkImporter().importBooks(file, dao);
+
+    assertThat(report.getImportedCount()).isEqualTo(2);
+    assertThat(report.getRejectedRows()).hasSize(2);
+    assertThat(report.getRejectedRows().get(0).getLineNumber()).isEqualTo(3);
+    assertThat(report.getRejectedRows().get(0).getReason())
+      .contains("author");
+    assertThat(report.getRejectedRows().get(1).getLineNumber()).isEqualTo(5);
+    assertThat(report.getRejectedRows().get(1).getLine())
+      .isEqualTo("Harper Lee\tToo\tMany\tFields");
+    // Rejected rows use no ids
+    assertThat(dao.getBookByID(2).getTitle()).isEqualTo("Go Set a Watchman");
+  }
+
+
+
+  @Test
+  public void importBooksAcrossManyChunksKeepsFileOrder()
+    throws IOException
+  {
+    String[] lines = new String[10000];
+    for (int i = 0; i < lines.length; i++) {
+      lines[i] = (i % 1000 == 999) ? "bad row"
+                                   : "author" + (i % 7) + ",title" + i +
+                                     ",callNo" + i;
+    }
+    Path file = write(".csv", lines);
+    BookDAO dao = new BookDAO(new BookHelper());
+
+    ImportReport report = new BulkImporter(4, 64).importBooks(file, dao);
+
+    assertThat(report.getImportedCount()).isEqualTo(9990);
+    assertThat(report.getRejectedRows()).hasSize(10);
+    assertThat(report.getRejectedRows().get(9).getLineNumber())
+      .isEqualTo(10000);
+    List<IBook> books = dao.listBooks();
+    for (int i = 1; i < books.size(); i++) {
+      int previous = Integer.parseInt(books.get(i - 1).getCallNumber()
+                                           .substring(6));
+      int next = Integer.parseInt(books.get(i).getCallNumber().substring(6));
+      assertThat(next).isGreaterThan(previous);
+    }
+  }
+
+  //===========================================================================
+  // Test importMembers
+  //===========================================================================
+
+  @Test
+  public void importMembersAddsValidRowsAndRejectsEmptyFields()
+    throws IOException
+  {
+    Path file = write(".csv",
+                      "firstName,lastName,contactPhone,emailAddress",
+                      "Joe,Bloggs,76543210,jbloggs@myemail.com",
+                      "Frank,,44332211,fblack@myemail.com",
+                      "Sam,Smith,11111111,ssmith@email.com");
+    MemberDAO dao = new MemberDAO(new MemberHelper());
+
+    ImportReport report = new BulkImporter().importMembers(file, dao);
+
+    assertThat(report.getImportedCount()).isEqualTo(2);
+    assertThat(report.getRejectedRows()).hasSize(1);
+    assertThat(report.getRejectedRows().get(0).getLineNumber()).isEqualTo(3);
+    assertThat(report.getRejectedRows().get(0).getReason())
+      .contains("lastName");
+    IMember second = dao.getMemberByID(2);
+    assertThat(second.getEmailAddress()).isEqualTo("ssmith@email.com");
+  }
+
+
+
+  @Test
+  public void importIntoNullDAOThrows()
+    throws IOException
+  {
+    Path file = write(".csv", "Joe,Bloggs,76543210,jbloggs@myemail.com");
+
+    try {
+      new BulkImporter().importMembers(file, null);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch (IllegalArgumentException exception) {
+      assertThat(exception.getMessage()).contains("null");
+    }
+  }
+}
@@ -0,0 +1,155 @@
+package test.unit;
+
+import junit.framework.TestCase;
+import library.daos.CallNumberIndex;
+
+/**
+ * TestCallNumberIndex class
+ *
+ * Isolated test class for the CallNumberIndex class
+ * Mock objects not necessary
+ *
+ */
+public class TestCallNumberIndex extends TestCase
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private CallNumberIndex index;
+
+
+
+  // ==========================================================================
+  // Per-test Set-Up and Tear Down
+  // ==========================================================================
+
+
+
+  @Override
+  protected void setUp()
+  {
+    index = new CallNumberIndex();
+    index.add(1, "813.54 TOKI");
+    index.add(2, "82.023 275 [2011]");
+    index.add(3, "813.5 LEE");
+    index.add(4, "813.54 toki");
+    index.add(5, "982.441 LEE");
+    index.add(6, "813.54  ABC");
+  }
+
+
+
+  // ==========================================================================
+  // Normalize Tests
+  // ==========================================================================
+
+
+
+  public void testNormalizeOrdersWholeNumbersByValue()
+  {
+    assertTrue(CallNumberIndex.normalize("82")
+               .compareTo(CallNumberIndex.normalize("813")) < 0);
+    assertTrue(CallNumberIndex.normalize("0099")
+               .compareTo(CallNumberIndex.normalize("100")) < 0);
+  }
+
+
+
+  public void testNormalizeOrdersFractionsByDigits()
+  {
+    assertTrue(CallNumberIndex.normalize("813.023")
+               .compareTo(CallNumberIndex.normalize("813.5")) < 0);
+    assertTrue(CallNumberIndex.normalize("813.5")
+               .compareTo(CallNumberIndex.normalize("813.54")) < 0);
+  }
+
+
+
+  public void testNormalizeIgnoresCaseAndRepeatedSpaces()
+  {
+    assertEquals(CallNumberIndex.normalize(" 813.54  toki"),
+                 CallNumberIndex.normalize("813.54 TOKI"));
+  }
+
+
+
+  // ==========================================================================
+  // Query Tests
+  // ==========================================================================
+
+
+
+  public void testRangeInShelfOrder()
+  {
+    int[] ids = index.range("813", "900");
+
+    assertEquals(4, ids.length);
+    assertEquals(3, ids[0]);
+    assertEquals(6, ids[1]);
+    // Same call number, so in id order
+    assertEquals(1, ids[2]);
+    assertEquals(4, ids[3]);
+  }
+
+
+
+  public void testRangeIncludesBothEnds()
+  {
+    int[] ids = index.range("82.023 275 [2011]", "813.5 lee");
+
+    assertEquals(2, ids.length);
+    assertEquals(2, ids[0]);
+    assertEquals(3, ids[1]);
+  }
+
+
+
+  public void testRangeBackwardsIsEmpty()
+  {
+    assertEquals(0, index.range("900", "813").length);
+  }
+
+
+
+  public void testNearestEitherSide()
+  {
+    int[] ids = index.nearest("813.54 B", 2);
+
+    assertEquals(4, ids.length);
+    assertEquals(3, ids[0]);
+    assertEquals(6, ids[1]);
+    assertEquals(1, ids[2]);
+    assertEquals(4, ids[3]);
+  }
+
+
+
+  public void testNearestAtEndsOfShelf()
+  {
+    int[] first = index.nearest("1", 2);
+    int[] last = index.nearest("999", 2);
+
+    assertEquals(2, first.length);
+    assertEquals(2, first[0]);
+    assertEquals(2, last.length);
+    assertEquals(4, last[0]);
+    assertEquals(5, last[1]);
+  }
+
+
+
+  public void testNearestNegativeCountThrows()
+  {
+    try {
+      index.nearest("813", -1);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch(IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("count"));
+    }
+  }
+
+}
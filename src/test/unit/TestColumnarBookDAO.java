@@ -0,0 +1,367 @@
+package test.unit;
+
+import junit.framework.TestCase;
+import library.daos.ColumnarBookDAO;
+import library.interfaces.entities.EBookState;
+import library.interfaces.entities.IBook;
+import library.interfaces.entities.IBookStateListener;
+import library.interfaces.entities.ILoan;
+
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+/**
+ * TestColumnarBookDAO class
+ *
+ * Isolated test class for the ColumnarBookDAO class and the book views it
+ * hands out. Mock ILoan objects used where necessary
+ *
+ */
+public class TestColumnarBookDAO extends TestCase
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private ColumnarBookDAO testBookDAO;
+
+
+
+  // ==========================================================================
+  // Per-test Set-Up and Tear Down
+  // ==========================================================================
+
+
+
+  @Override
+  protected void setUp()
+  {
+    testBookDAO = new ColumnarBookDAO();
+    testBookDAO.addBook("Charles Dickens", "Great Expectations",
+                        "82.023 275 [2011]");
+    testBookDAO.addBook("Harper Lee", "To Kill a Mockingbird", "813.54 TOKI");
+    testBookDAO.addBook("Harper Lee", "Go Set a Watchman", "982.441 LEE");
+    testBookDAO.addBook("Donald Duck", "Great Expectations", "124.41 DUCK");
+  }
+
+
+
+  // ==========================================================================
+  // Insertion and Retrieval Tests
+  // ==========================================================================
+
+
+
+  public void testAddBookReturnsBookWithNextId()
+  {
+    IBook book = testBookDAO.addBook("Frank Herbert", "Dune", "813.54 HER");
+
+    assertEquals(5, book.getID());
+    assertEquals("Frank Herbert", book.getAuthor());
+    assertEquals("Dune", book.getTitle());
+    assertEquals("813.54 HER", book.getCallNumber());
+    assertEquals(EBookState.AVAILABLE, book.getState());
+    assertNull(book.getLoan());
+  }
+
+
+
+  public void testAddBookEmptyTitleThrows()
+  {
+    try {
+      testBookDAO.addBook("Frank Herbert", "", "813.54 HER");
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch(IllegalArgumentException e) {
+      assertEquals(4, testBookDAO.listBooks().size());
+    }
+  }
+
+
+
+  public void testGetBookByIDReturnsEqualViews()
+  {
+    IBook book = testBookDAO.getBookByID(2);
+
+    assertEquals("To Kill a Mockingbird", book.getTitle());
+    assertEquals(book, testBookDAO.getBookByID(2));
+    assertEquals(book.hashCode(), testBookDAO.getBookByID(2).hashCode());
+    assertFalse(book.equals(testBookDAO.getBookByID(3)));
+    assertNull(testBookDAO.getBookByID(5));
+  }
+
+
+
+  public void testGetBookByIDZeroThrows()
+  {
+    try {
+      testBookDAO.getBookByID(0);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch(IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("bookID"));
+    }
+  }
+
+
+
+  public void testListBooksManyBooksInIdOrder()
+  {
+    // Enough books to grow every column several times
+    for(int i = 0; i < 1000; i++) {
+      testBookDAO.addBook("author" + (i % 7), "title" + i, "callNo" + i);
+    }
+
+    List<IBook> allBooks = testBookDAO.listBooks();
+
+    assertEquals(1004, allBooks.size());
+    assertEquals(1004, allBooks.get(1003).getID());
+    assertEquals("callNo999", allBooks.get(1003).getCallNumber());
+    assertEquals("82.023 275 [2011]", allBooks.get(0).getCallNumber());
+  }
+
+
+
+  public void testListBooksPaged()
+  {
+    List<IBook> firstPage = testBookDAO.listBooks(0, 3);
+    List<IBook> lastPage = testBookDAO.listBooks(3, 3);
+
+    assertEquals(3, firstPage.size());
+    assertEquals("Go Set a Watchman", firstPage.get(2).getTitle());
+    assertEquals(1, lastPage.size());
+    assertEquals(4, lastPage.get(0).getID());
+    assertTrue(testBookDAO.listBooks(4, 3).isEmpty());
+    assertTrue(testBookDAO.listBooks(Integer.MAX_VALUE - 1, 3).isEmpty());
+  }
+
+
+
+  public void testStreamBooks()
+  {
+    assertEquals(4, testBookDAO.streamBooks().count());
+    assertEquals(testBookDAO.getBookByID(4),
+                 testBookDAO.streamBooks().skip(3).findFirst().get());
+  }
+
+
+
+  // ==========================================================================
+  // Find Tests
+  // ==========================================================================
+
+
+
+  public void testFindBooksByAuthor()
+  {
+    List<IBook> booksByAuthor = testBookDAO.findBooksByAuthor("Harper Lee");
+
+    assertEquals(2, booksByAuthor.size());
+    assertEquals(2, booksByAuthor.get(0).getID());
+    assertEquals(3, booksByAuthor.get(1).getID());
+    assertTrue(testBookDAO.findBooksByAuthor("Nobody").isEmpty());
+  }
+
+
+
+  public void testFindBooksByTitle()
+  {
+    List<IBook> booksByTitle =
+        testBookDAO.findBooksByTitle("Great Expectations");
+
+    assertEquals(2, booksByTitle.size());
+    assertEquals(1, booksByTitle.get(0).getID());
+    assertEquals(4, booksByTitle.get(1).getID());
+  }
+
+
+
+  public void testFindBooksByAuthorTitleSingleMatchOnly()
+  {
+    List<IBook> booksByAuthorAndTitle = testBookDAO.findBooksByAuthorTitle(
+                                        "Harper Lee", "Go Set a Watchman");
+
+    assertEquals(1, booksByAuthorAndTitle.size());
+    assertEquals(3, booksByAuthorAndTitle.get(0).getID());
+    assertTrue(testBookDAO.findBooksByAuthorTitle("Harper Lee",
+                                        "Great Expectations").isEmpty());
+  }
+
+
+
+  public void testSearchBooks()
+  {
+    List<IBook> found = testBookDAO.searchBooks("great", 10);
+
+    // Title words rank above author words, ties in id order
+    assertEquals(2, found.size());
+    assertEquals(testBookDAO.getBookByID(1), found.get(0));
+    assertEquals(4, found.get(1).getID());
+    assertEquals(3, testBookDAO.searchBooks("harp* watch*", 10).get(0).getID());
+    assertTrue(testBookDAO.searchBooks("harper dickens", 10).isEmpty());
+  }
+
+
+
+  public void testFindBooksByAuthorFuzzy()
+  {
+    testBookDAO.addBook("Harpo Leigh", "Another Book", "1 LEI");
+
+    List<IBook> found = testBookDAO.findBooksByAuthorFuzzy("Haprer Lee", 0.2);
+
+    // Grouped by author, most similar first
+    assertEquals(3, found.size());
+    assertEquals(2, found.get(0).getID());
+    assertEquals(3, found.get(1).getID());
+    assertEquals(5, found.get(2).getID());
+    assertEquals(2, testBookDAO.findBooksByTitleFuzzy("Grate Expectashuns",
+                                                      0.3).size());
+  }
+
+
+
+  public void testFindBooksByCallNumberRangeAndNear()
+  {
+    List<IBook> range = testBookDAO.findBooksByCallNumberRange("100", "900");
+    List<IBook> near = testBookDAO.findBooksNearCallNumber("813", 1);
+
+    // Shelf order is 82.023, 124.41, 813.54, 982.441
+    assertEquals(2, range.size());
+    assertEquals(4, range.get(0).getID());
+    assertEquals(2, range.get(1).getID());
+    assertEquals(2, near.size());
+    assertEquals(4, near.get(0).getID());
+    assertEquals(2, near.get(1).getID());
+  }
+
+
+
+  // ==========================================================================
+  // State Tests
+  // ==========================================================================
+
+
+
+  public void testBorrowAndReturnThroughView()
+  {
+    ILoan mockedLoan = mock(ILoan.class);
+    IBook book = testBookDAO.getBookByID(1);
+
+    book.borrow(mockedLoan);
+
+    // Confirm a fresh view sees the change
+    IBook sameBook = testBookDAO.getBookByID(1);
+    assertEquals(EBookState.ON_LOAN, sameBook.getState());
+    assertSame(mockedLoan, sameBook.getLoan());
+
+    sameBook.returnBook(true);
+    assertEquals(EBookState.DAMAGED, book.getState());
+    assertNull(book.getLoan());
+
+    book.repair();
+    book.dispose();
+    assertEquals(EBookState.DISPOSED, book.getState());
+  }
+
+
+
+  public void testBorrowBookOnLoanThrows()
+  {
+    IBook book = testBookDAO.getBookByID(1);
+    book.borrow(mock(ILoan.class));
+
+    try {
+      book.borrow(mock(ILoan.class));
+      fail("Should have thrown RuntimeException");
+    }
+    catch(RuntimeException e) {
+      assertTrue(e.getMessage().contains("invalid state transition"));
+    }
+  }
+
+
+
+  public void testLoseThenReturnBook()
+  {
+    IBook book = testBookDAO.getBookByID(4);
+    book.borrow(mock(ILoan.class));
+
+    book.lose();
+    assertEquals(EBookState.LOST, book.getState());
+
+    book.returnBook(false);
+    assertEquals(EBookState.AVAILABLE, book.getState());
+  }
+
+
+
+  public void testBooksByStateFollowStateChanges()
+  {
+    testBookDAO.getBookByID(2).borrow(mock(ILoan.class));
+    testBookDAO.getBookByID(3).borrow(mock(ILoan.class));
+    testBookDAO.getBookByID(3).lose();
+
+    assertEquals(2, testBookDAO.countBooksByState(EBookState.AVAILABLE));
+    assertEquals(1, testBookDAO.countBooksByState(EBookState.ON_LOAN));
+    assertEquals(1, testBookDAO.countBooksByState(EBookState.LOST));
+
+    List<IBook> out = testBookDAO.listBooksByState(EBookState.ON_LOAN,
+                                                   EBookState.LOST);
+    assertEquals(2, out.size());
+    assertEquals(2, out.get(0).getID());
+    assertEquals(3, out.get(1).getID());
+
+    List<IBook> lost = testBookDAO.findBooksByAuthorAndState("Harper Lee",
+                                                             EBookState.LOST);
+    assertEquals(1, lost.size());
+    assertEquals("Go Set a Watchman", lost.get(0).getTitle());
+    assertTrue(testBookDAO.findBooksByAuthorAndState("Donald Duck",
+                                                     EBookState.LOST)
+                          .isEmpty());
+  }
+
+
+
+  public void testFindBooksByAuthorAndStateManyBooksInIdOrder()
+  {
+    for(int i = 0; i < 100; i++) {
+      testBookDAO.addBook("Harper Lee", "Title " + i, "CallNo " + i);
+      testBookDAO.addBook("Charles Dickens", "Title " + i, "CallNo D" + i);
+    }
+    for(int id = 5; id <= 204; id += 4) {
+      testBookDAO.getBookByID(id).borrow(mock(ILoan.class));
+    }
+
+    List<IBook> onLoan = testBookDAO.findBooksByAuthorAndState(
+        "Harper Lee", EBookState.ON_LOAN);
+    assertEquals(50, onLoan.size());
+    for(int i = 0; i < onLoan.size(); i++) {
+      assertEquals(5 + i * 4, onLoan.get(i).getID());
+    }
+    assertEquals(101, testBookDAO.findBooksByAuthorAndState(
+        "Charles Dickens", EBookState.AVAILABLE).size());
+    // A title is in the same string table, but is not an author
+    assertTrue(testBookDAO.findBooksByAuthorAndState(
+        "Great Expectations", EBookState.AVAILABLE).isEmpty());
+  }
+
+
+
+  public void testStateListenerOnView()
+  {
+    IBookStateListener mockedListener = mock(IBookStateListener.class);
+    testBookDAO.getBookByID(1).setStateListener(mockedListener);
+
+    // Any view of the book reports to the listener
+    testBookDAO.getBookByID(1).borrow(mock(ILoan.class));
+    verify(mockedListener).bookStateChanged(testBookDAO.getBookByID(1));
+
+    testBookDAO.getBookByID(1).setStateListener(null);
+    testBookDAO.getBookByID(1).returnBook(false);
+    verifyNoMoreInteractions(mockedListener);
+  }
+
+}
@@ -0,0 +1,232 @@
+package test.unit;
+
+import java.util.Iterator;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.*;
+
+import library.daos.EntityTable;
+
+/**
+ * Unit tests for EntityTable.
+ */
+public class TestEntityTable
+{
+  //===========================================================================
+  // Test get & put
+  //===========================================================================
+
+  @Test
+  public void getReturnsNullWhenEmpty()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    assertThat(table.get(1)).isNull();
+    assertThat(table.size()).isEqualTo(0);
+  }
+
+
+
+  @Test
+  public void getReturnsNullForZeroOrNegativeId()
+  {
+    EntityTable<String> table = new EntityTable<>();
+    table.put(1, "one");
+
+    assertThat(table.get(0)).isNull();
+    assertThat(table.get(-1)).isNull();
+  }
+
+
+
+  @Test
+  public void getReturnsEntityPutAgainstId()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    table.put(1, "one");
+    table.put(2, "two");
+
+    assertThat(table.get(1)).isEqualTo("one");
+    assertThat(table.get(2)).isEqualTo("two");
+    assertThat(table.contains(2)).isTrue();
+    assertThat(table.contains(3)).isFalse();
+    assertThat(table.size()).isEqualTo(2);
+  }
+
+
+
+  @Test
+  public void putGrowsTableForLargeId()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    table.put(100000, "large");
+
+    assertThat(table.get(100000)).isEqualTo("large");
+    assertThat(table.get(99999)).isNull();
+    assertThat(table.size()).isEqualTo(1);
+  }
+
+
+
+  @Test
+  public void putSparseIdsKeepsIdOrderAsDenseIdsFillBelowThem()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    table.put(Integer.MAX_VALUE, "max");
+    table.put(5000, "sparse");
+    for (int id = 1; id <= 100; id++) {
+      table.put(id, "dense");
+    }
+
+    assertThat(table.get(Integer.MAX_VALUE)).isEqualTo("max");
+    assertThat(table.get(5000)).isEqualTo("sparse");
+    assertThat(table.size()).isEqualTo(102);
+    assertThat(table.values()).hasSize(102).endsWith("sparse", "max");
+    assertThat(table.page(100, 5)).containsExactly("sparse", "max");
+    assertThat(table.page(Integer.MAX_VALUE, 5)).isEmpty();
+  }
+
+
+
+  @Test
+  public void putReplacingEntityDoesNotChangeSize()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    table.put(1, "one");
+    table.put(1, "uno");
+
+    assertThat(table.get(1)).isEqualTo("uno");
+    assertThat(table.size()).isEqualTo(1);
+  }
+
+
+
+  @Test
+  public void putIfAbsentKeepsEntityAlreadyStored()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    assertThat(table.putIfAbsent(1, "one")).isEqualTo("one");
+    assertThat(table.putIfAbsent(1, "uno")).isEqualTo("one");
+    assertThat(table.get(1)).isEqualTo("one");
+    assertThat(table.size()).isEqualTo(1);
+  }
+
+
+
+  @Test
+  public void putWithZeroIdThrows()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    try {
+      table.put(0, "zero");
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch (IllegalArgumentException exception) {
+      assertThat(table.size()).isEqualTo(0);
+    }
+  }
+
+
+
+  @Test
+  public void putWithNullEntityThrows()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    try {
+      table.put(1, null);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch (IllegalArgumentException exception) {
+      assertThat(table.size()).isEqualTo(0);
+    }
+  }
+
+  //===========================================================================
+  // Test values & iterator
+  //===========================================================================
+
+  @Test
+  public void valuesAreInIdOrderSkippingGaps()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    table.put(30, "thirty");
+    table.put(2, "two");
+    table.put(17, "seventeen");
+
+    assertThat(table.values()).containsExactly("two", "seventeen", "thirty");
+  }
+
+
+
+  @Test
+  public void iteratorIsEmptyWhenTableEmpty()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    Iterator<String> entities = table.iterator();
+
+    assertThat(entities.hasNext()).isFalse();
+  }
+
+  //===========================================================================
+  // Test page & stream
+  //===========================================================================
+
+  @Test
+  public void pagesFollowOnFromLastIdSkippingGaps()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    table.put(1, "one");
+    table.put(2, "two");
+    table.put(5, "five");
+    table.put(9, "nine");
+
+    assertThat(table.page(0, 2)).containsExactly("one", "two");
+    assertThat(table.page(2, 2)).containsExactly("five", "nine");
+    assertThat(table.page(9, 2)).isEmpty();
+    assertThat(table.page(1000, 2)).isEmpty();
+    assertThat(table.page(0, 0)).isEmpty();
+  }
+
+
+
+  @Test
+  public void pageWithNegativeLimitThrows()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    try {
+      table.page(0, -1);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch (IllegalArgumentException exception) {
+      assertThat(exception.getMessage()).contains("negative");
+    }
+  }
+
+
+
+  @Test
+  public void streamIsInIdOrder()
+  {
+    EntityTable<String> table = new EntityTable<>();
+
+    table.put(30, "thirty");
+    table.put(2, "two");
+    table.put(17, "seventeen");
+
+    assertThat(table.stream().collect(Collectors.toList()))
+      .containsExactly("two", "seventeen", "thirty");
+  }
+
+}
@@ -0,0 +1,420 @@
+package test.unit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.*;
+
+import static test.helper.DateBuilder.*;
+
+import library.interfaces.entities.IBook;
+import library.interfaces.entities.ILoan;
+import library.interfaces.entities.IMember;
+
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.daos.JournalledLoanDAO;
+import library.daos.LoanHelper;
+import library.daos.MemberDAO;
+import library.daos.MemberHelper;
+
+/**
+ * Unit tests for JournalledLoanDAO. Each test journals to its own temporary
+ * file and "restarts" by rebuilding the book and member DAOs and reopening
+ * the journal.
+ */
+public class TestJournalledLoanDAO
+{
+  //===========================================================================
+  // Test fixtures
+  //===========================================================================
+
+  private static final int BOOKS = 500;
+  private static final int MEMBERS = 125;
+
+  private Path journal_;
+  private BookDAO bookDao_;
+  private MemberDAO memberDao_;
+
+  @Before
+  public void setUp()
+    throws IOException
+  {
+    journal_ = Files.createTempFile("loans", ".journal");
+    Files.delete(journal_);
+    restartCatalog();
+  }
+
+
+
+  @After
+  public void tearDown()
+    throws IOException
+  {
+    Files.deleteIfExists(journal_);
+  }
+
+
+
+  // Rebuilds the same books and members, as a restarted library would
+  private void restartCatalog()
+  {
+    bookDao_ = new BookDAO(new BookHelper());
+    memberDao_ = new MemberDAO(new MemberHelper());
+    for (int i = 0; i < BOOKS; i++) {
+      bookDao_.addBook("Author", "Title " + i, "CallNo " + i);
+    }
+    for (int i = 0; i < MEMBERS; i++) {
+      memberDao_.addMember("First", "Last" + i, "12345678", "a@b.com");
+    }
+  }
+
+
+
+  private JournalledLoanDAO open()
+    throws IOException
+  {
+    return new JournalledLoanDAO(new LoanHelper(), bookDao_, memberDao_,
+                                 journal_);
+  }
+
+
+
+  private ILoan commit(JournalledLoanDAO dao, int memberID, int bookID)
+  {
+    ILoan loan = dao.createLoan(memberDao_.getMemberByID(memberID),
+                                bookDao_.getBookByID(bookID));
+    dao.commitLoan(loan);
+    return loan;
+  }
+
+  //===========================================================================
+  // Test constructor
+  //===========================================================================
+
+  @Test
+  public void createWithNullJournalThrows()
+  {
+    try {
+      new JournalledLoanDAO(new LoanHelper(), bookDao_, memberDao_, null);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch (IllegalArgumentException exception) {
+      assertThat(exception).hasMessageContaining("journal");
+    }
+    catch (IOException exception) {
+      fail("IOException should not occur");
+    }
+  }
+
+
+
+  @Test
+  public void createWithNewJournalHasNoLoans()
+    throws IOException
+  {
+    try (JournalledLoanDAO dao = open()) {
+      assertThat(dao.listLoans()).isEmpty();
+    }
+    assertThat(Files.size(journal_)).isEqualTo(8);
+  }
+
+
+
+  @Test
+  public void createWithFileThatIsNotAJournalThrows()
+    throws IOException
+  {
+    Files.write(journal_, "not a loan journal".getBytes());
+
+    try {
+      open();
+      fail("Should have thrown IOException");
+    }
+    catch (IOException exception) {
+      assertThat(exception).hasMessageContaining("Not a loan journal");
+    }
+  }
+
+  //===========================================================================
+  // Test replay
+  //===========================================================================
+
+  @Test
+  public void committedLoansAreRestoredOnReopen()
+    throws IOException
+  {
+    Date dueDate;
+    try (JournalledLoanDAO dao = open()) {
+      commit(dao, 1, 1);
+      commit(dao, 1, 2);
+      dueDate = commit(dao, 2, 3).getDueDate();
+    }
+
+    restartCatalog();
+    try (JournalledLoanDAO dao = open()) {
+      List<ILoan> loans = dao.listLoans();
+
+      assertThat(loans).hasSize(3);
+      assertThat(loans.get(2).getID()).isEqualTo(3);
+      assertThat(loans.get(2).getBook()).isSameAs(bookDao_.getBookByID(3));
+      assertThat(loans.get(2).getBorrower())
+        .isSameAs(memberDao_.getMemberByID(2));
+      assertThat(loans.get(2).getDueDate()).isEqualTo(dueDate);
+      assertThat(loans.get(2).isCurrent()).isTrue();
+      assertThat(dao.findLoansByBorrower(memberDao_.getMemberByID(1)))
+        .hasSize(2);
+      assertThat(memberDao_.getMemberByID(1).getLoans()).hasSize(2);
+    }
+  }
+
+
+
+  @Test
+  public void idsContinueFromLastRestoredLoan()
+    throws IOException
+  {
+    try (JournalledLoanDAO dao = open()) {
+      commit(dao, 1, 1);
+      commit(dao, 2, 2);
+    }
+
+    restartCatalog();
+    try (JournalledLoanDAO dao = open()) {
+      ILoan loan = commit(dao, 3, 3);
+
+      assertThat(loan.getID()).isEqualTo(3);
+    }
+  }
+
+
+
+  @Test
+  public void sweepsAndCompletionsAreRestoredOnReopen()
+    throws IOException
+  {
+    try (JournalledLoanDAO dao = open()) {
+      commit(dao, 1, 1);
+      ILoan completed = commit(dao, 2, 2);
+      dao.completeLoan(completed);
+      dao.updateOverDueStatus(dateBuilder(new Date(), ILoan.LOAN_PERIOD + 1));
+      assertThat(dao.countOverDueLoans()).isEqualTo(1);
+    }
+
+    restartCatalog();
+    try (JournalledLoanDAO dao = open()) {
+      assertThat(dao.getLoanByID(1).isOverDue()).isTrue();
+      assertThat(dao.getLoanByID(2).isCurrent()).isFalse();
+      assertThat(dao.getLoanByID(2).isOverDue()).isFalse();
+      assertThat(dao.findOverDueLoans()).containsExactly(dao.getLoanByID(1));
+      assertThat(memberDao_.getMemberByID(1).hasOverDueLoans()).isTrue();
+    }
+  }
+
+
+
+  @Test
+  public void bookLentAgainAfterCompletionIsRestoredOnReopen()
+    throws IOException
+  {
+    try (JournalledLoanDAO dao = open()) {
+      ILoan first = commit(dao, 1, 1);
+      // The book is returned and the loan taken off the borrower
+      bookDao_.getBookByID(1).returnBook(false);
+      memberDao_.getMemberByID(1).removeLoan(first);
+      dao.completeLoan(first);
+      commit(dao, 2, 1);
+    }
+
+    restartCatalog();
+    try (JournalledLoanDAO dao = open()) {
+      assertThat(dao.getLoanByID(1).isCurrent()).isFalse();
+      assertThat(dao.getLoanByID(2).isCurrent()).isTrue();
+      assertThat(bookDao_.getBookByID(1).getLoan())
+        .isSameAs(dao.getLoanByID(2));
+      assertThat(memberDao_.getMemberByID(1).getLoans()).isEmpty();
+      assertThat(memberDao_.getMemberByID(2).getLoans())
+        .containsExactly(dao.getLoanByID(2));
+    }
+  }
+
+
+
+  @Test
+  public void booksAndMembersAreAsBeforeAfterReopen()
+    throws IOException
+  {
+    List<String> before;
+    try (JournalledLoanDAO dao = open()) {
+      commit(dao, 1, 1);
+      // Returned damaged, then completed
+      ILoan damaged = commit(dao, 1, 2);
+      bookDao_.getBookByID(2).returnBook(true);
+      dao.completeLoan(damaged);
+      // Completed while the book is still out, and kept by the borrower
+      ILoan kept = commit(dao, 2, 3);
+      dao.completeLoan(kept);
+      // Lost, taken off the borrower, then completed
+      ILoan lost = commit(dao, 3, 4);
+      bookDao_.getBookByID(4).lose();
+      memberDao_.getMemberByID(3).removeLoan(lost);
+      dao.completeLoan(lost);
+      // Returned after completion, repaired and lent again
+      ILoan relent = commit(dao, 4, 5);
+      dao.completeLoan(relent);
+      bookDao_.getBookByID(5).returnBook(true);
+      bookDao_.getBookByID(5).repair();
+      commit(dao, 5, 5);
+      for (int member = 1; member <= 5; member++) {
+        commit(dao, member, 10 + member);
+      }
+      dao.updateOverDueStatus(dateBuilder(new Date(), ILoan.LOAN_PERIOD + 1));
+      before = describeCatalog();
+    }
+
+    restartCatalog();
+    try (JournalledLoanDAO dao = open()) {
+      assertThat(describeCatalog()).isEqualTo(before);
+    }
+  }
+
+
+
+  // The state of every book and member a test might have changed
+  private List<String> describeCatalog()
+  {
+    List<String> catalog = new ArrayList<>();
+    for (int id = 1; id <= 20; id++) {
+      IBook book = bookDao_.getBookByID(id);
+      catalog.add("Book " + id + ": " + book.getState() + " " +
+                  (book.getLoan() == null ? 0 : book.getLoan().getID()));
+    }
+    for (int id = 1; id <= 10; id++) {
+      IMember member = memberDao_.getMemberByID(id);
+      catalog.add("Member " + id + ": " + member.getLoans().size() +
+                  " loans, overdue " + member.hasOverDueLoans() +
+                  ", restricted " + member.isRestricted());
+    }
+    return catalog;
+  }
+
+
+
+  @Test
+  public void tornRecordAtEndOfJournalIsDiscarded()
+    throws IOException
+  {
+    try (JournalledLoanDAO dao = open()) {
+      commit(dao, 1, 1);
+    }
+    long size = Files.size(journal_);
+    try (FileChannel channel = FileChannel.open(journal_,
+                                                StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[] { 1, 0, 0, 0, 2, 0 }), size);
+    }
+
+    restartCatalog();
+    try (JournalledLoanDAO dao = open()) {
+      assertThat(Files.size(journal_)).isEqualTo(size);
+      assertThat(dao.listLoans()).hasSize(1);
+      assertThat(commit(dao, 2, 2).getID()).isEqualTo(2);
+    }
+
+    restartCatalog();
+    try (JournalledLoanDAO dao = open()) {
+      assertThat(dao.listLoans()).hasSize(2);
+    }
+  }
+
+
+
+  @Test
+  public void journalReferringToMissingBookThrows()
+    throws IOException
+  {
+    try (JournalledLoanDAO dao = open()) {
+      commit(dao, 1, BOOKS);
+    }
+
+    bookDao_ = new BookDAO(new BookHelper());
+    try {
+      open();
+      fail("Should have thrown IOException");
+    }
+    catch (IOException exception) {
+      assertThat(exception).hasMessageContaining("does not exist");
+    }
+  }
+
+  //===========================================================================
+  // Test group commit
+  //===========================================================================
+
+  @Test
+  public void concurrentCommitsAreAllJournalledWithSharedForces()
+    throws Exception
+  {
+    final int threads = 8;
+    final int membersPerThread = MEMBERS / threads;
+    final CountDownLatch start = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    List<Future<?>> results = new ArrayList<>();
+    int total = threads * membersPerThread * 4;
+
+    try (final JournalledLoanDAO dao = open()) {
+      for (int t = 0; t < threads; t++) {
+        final int firstMember = t * membersPerThread + 1;
+        results.add(pool.submit(new Callable<Void>()
+        {
+          @Override
+          public Void call() throws Exception
+          {
+            start.await();
+            for (int m = firstMember; m < firstMember + membersPerThread;
+                 m++) {
+              for (int l = 0; l < 4; l++) {
+                commit(dao, m, (m - 1) * 4 + l + 1);
+              }
+            }
+            return null;
+          }
+        }));
+      }
+      start.countDown();
+      for (Future<?> result : results) {
+        result.get();
+      }
+      pool.shutdown();
+
+      assertThat(dao.listLoans()).hasSize(total);
+      assertThat(dao.getForceCount()).isLessThanOrEqualTo(total);
+    }
+
+    restartCatalog();
+    try (JournalledLoanDAO dao = open()) {
+      assertThat(dao.listLoans()).hasSize(total);
+      for (int id = 1; id <= total; id++) {
+        ILoan loan = dao.getLoanByID(id);
+        IMember borrower = loan.getBorrower();
+        assertThat(loan.getBook().getID())
+          .isBetween((borrower.getId() - 1) * 4 + 1, borrower.getId() * 4);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,110 @@
+package test.unit;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.*;
+
+import library.daos.LibraryClock;
+
+/**
+ * Unit tests for LibraryClock.
+ */
+public class TestLibraryClock
+{
+  //===========================================================================
+  // Test constructor
+  //===========================================================================
+
+  @Test
+  public void createLibraryClockWithNullZoneThrows()
+  {
+    try {
+      LibraryClock clock = new LibraryClock(null);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch (Exception exception) {
+      assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  //===========================================================================
+  // Test getToday & advance
+  //===========================================================================
+
+  @Test
+  public void getTodayIsTodayInClockZone()
+  {
+    ZoneId zone = ZoneId.of("Australia/Sydney");
+    LibraryClock clock = new LibraryClock(zone);
+
+    long today = LocalDate.now(zone).toEpochDay();
+
+    // Allow for the test running across midnight
+    assertThat((long)clock.getToday()).isBetween(today, today + 1);
+  }
+
+
+
+  @Test
+  public void advanceMovesTodayForward()
+  {
+    LibraryClock clock = new LibraryClock();
+    int today = clock.getToday();
+
+    clock.advance(2);
+    clock.advance(12);
+
+    assertThat(clock.getToday()).isBetween(today + 14, today + 15);
+  }
+
+
+
+  @Test
+  public void advanceNegativeDaysThrows()
+  {
+    LibraryClock clock = new LibraryClock();
+
+    try {
+      clock.advance(-1);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch (Exception exception) {
+      assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+  //===========================================================================
+  // Test getStartOfDay
+  //===========================================================================
+
+  @Test
+  public void getStartOfDayIsMidnightInClockZone()
+  {
+    LibraryClock utc = new LibraryClock(ZoneOffset.UTC);
+    LibraryClock plusTen = new LibraryClock(ZoneOffset.ofHours(10));
+
+    assertThat(utc.getStartOfDay(0)).isEqualTo(0L);
+    assertThat(utc.getStartOfDay(1)).isEqualTo(86400000L);
+    assertThat(plusTen.getStartOfDay(1)).isEqualTo(86400000L - 36000000L);
+  }
+
+  //===========================================================================
+  // Test getDay
+  //===========================================================================
+
+  @Test
+  public void getDayIsDayInClockZone()
+  {
+    LibraryClock plusTen = new LibraryClock(ZoneOffset.ofHours(10));
+    long startOfDayOne = plusTen.getStartOfDay(1);
+
+    assertThat(plusTen.getDay(startOfDayOne - 1)).isEqualTo(0);
+    assertThat(plusTen.getDay(startOfDayOne)).isEqualTo(1);
+    assertThat(plusTen.getDay(plusTen.getStartOfDay(2) - 1)).isEqualTo(1);
+    assertThat(plusTen.getDay(-1L)).isEqualTo(0);
+  }
+
+}
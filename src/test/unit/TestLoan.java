@@ -44,7 +44,7 @@ public class TestLoan
     Date dueDate = new Date(2);
 
     // When create a valid loan
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // Then loan is instantiated and a valid Loan instance
     assertThat(loan).isInstanceOf(ILoan.class);
@@ -63,7 +63,7 @@ public class TestLoan
     Date dueDate = new Date(2);
 
     // When create a valid loan
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // Then loan is instantiated with pending state
     // (have to use reflection to access private variable)
@@ -86,7 +86,8 @@ public class TestLoan
 
     // When create a loan
     try {
-      ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+      ILoan loan = new Loan(book, borrower, borrowDate, dueDate,
+                            DEFAULT_CLOCK);
     }
 
     // Then exception should be thrown
@@ -109,7 +110,8 @@ public class TestLoan
 
     // When create a loan
     try {
-      ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+      ILoan loan = new Loan(book, borrower, borrowDate, dueDate,
+                            DEFAULT_CLOCK);
     }
 
     // Then exception should be thrown
@@ -132,7 +134,8 @@ public class TestLoan
 
     // When create a loan
     try {
-      ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+      ILoan loan = new Loan(book, borrower, borrowDate, dueDate,
+                            DEFAULT_CLOCK);
     }
 
     // Then exception should be thrown
@@ -155,7 +158,8 @@ public class TestLoan
 
     // When create a loan
     try {
-      ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+      ILoan loan = new Loan(book, borrower, borrowDate, dueDate,
+                            DEFAULT_CLOCK);
     }
 
     // Then exception should be thrown
@@ -178,7 +182,8 @@ public class TestLoan
 
     // When create a loan
     try {
-      ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+      ILoan loan = new Loan(book, borrower, borrowDate, dueDate,
+                            DEFAULT_CLOCK);
     }
 
     // Then exception should be thrown
@@ -190,6 +195,31 @@ public class TestLoan
 
 
 
+  @Test
+  public void createLoanWithNullClockThrowsWithCorrectMessage()
+  {
+    // Given stubs for book and member
+    IBook book = stubBook();
+    IMember borrower = stubMember();
+    // With valid, but very simple dates in millis
+    Date borrowDate = new Date(1);
+    Date dueDate = new Date(2);
+
+    // When create a loan without a clock
+    try {
+      ILoan loan = new Loan(book, borrower, borrowDate, dueDate, null);
+      fail("Should have thrown IllegalArgumentException");
+    }
+
+    // Then exception should be thrown
+    catch (Exception exception) {
+      assertThat(exception).hasMessage("Cannot create a new Loan with a " +
+                                           "null Library Clock.");
+    }
+  }
+
+
+
   @Test
   public void createLoanWithNicelyFormattedDates()
   {
@@ -211,7 +241,7 @@ public class TestLoan
     }
 
     // When create a loan
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // Then loan is instantiated, and a valid ILoan instance
     assertThat(loan).isInstanceOf(ILoan.class);
@@ -232,7 +262,7 @@ public class TestLoan
     Date dueDate = dateBuilder(18, 8, 2015);
 
     // When create a loan
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // Then loan is instantiated, and a valid ILoan instance
     assertThat(loan).isInstanceOf(ILoan.class);
@@ -253,7 +283,7 @@ public class TestLoan
 
     // When create a loan
 
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // Then loan is instantiated, and a valid ILoan instance
     assertThat(loan).isInstanceOf(ILoan.class);
@@ -274,7 +304,8 @@ public class TestLoan
 
     // When create a loan
     try {
-      ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+      ILoan loan = new Loan(book, borrower, borrowDate, dueDate,
+                            DEFAULT_CLOCK);
     }
 
     // Then exception should be thrown
@@ -298,7 +329,8 @@ public class TestLoan
 
     // When create a loan
     try {
-      ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+      ILoan loan = new Loan(book, borrower, borrowDate, dueDate,
+                            DEFAULT_CLOCK);
     }
 
     // Then exception should be thrown
@@ -325,7 +357,7 @@ public class TestLoan
     Date dueDate = new Date(2);
 
     // When create a loan
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // Then can return borrower and verify it is same Member as local instance
     IMember loanBorrower = loan.getBorrower();
@@ -348,7 +380,7 @@ public class TestLoan
     Date dueDate = new Date(2);
 
     // When create a loan
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // Then can return borrower and verify it is same Member as local instance
     IMember loanBorrower = loan.getBorrower();
@@ -373,7 +405,7 @@ public class TestLoan
     Date dueDate = new Date(2);
 
     // When create a loan
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // Then can return book and verify it is same Member as local instance
     IBook loanBook = loan.getBook();
@@ -395,7 +427,7 @@ public class TestLoan
     Date dueDate = new Date(2);
 
     // When create a loan
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // Then can return ID
     int loanID = loan.getID();
@@ -956,7 +988,7 @@ public class TestLoan
     IMember borrower = stubMember();
     Date borrowDate = dateBuilder(1, 1, 2015);
     Date dueDate = dateBuilder(15, 1, 2015);
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // when commit with an id of 0
     try {
@@ -979,7 +1011,7 @@ public class TestLoan
     IMember borrower = stubMember();
     Date borrowDate = dateBuilder(1, 1, 2015);
     Date dueDate = dateBuilder(15, 1, 2015);
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // when commit with a negative id
     try {
@@ -1003,7 +1035,7 @@ public class TestLoan
     IMember borrower = stubMember();
     Date borrowDate = dateBuilder(1, 1, 2015);
     Date dueDate = dateBuilder(15, 1, 2015);
-    ILoan loan = new Loan(book, borrower, borrowDate, dueDate);
+    ILoan loan = new Loan(book, borrower, borrowDate, dueDate, DEFAULT_CLOCK);
 
     // when commit with a negative id
     try {
@@ -1,7 +1,21 @@
 package test.unit;
 
+import java.time.ZoneOffset;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 import static org.mockito.Mockito.*;
@@ -18,7 +32,13 @@ import library.interfaces.entities.IBook;
 import library.interfaces.entities.ILoan;
 import library.interfaces.entities.IMember;
 
+import library.daos.BookDAO;
+import library.daos.BookHelper;
+import library.daos.LibraryClock;
 import library.daos.LoanDAO;
+import library.daos.LoanHelper;
+import library.daos.MemberDAO;
+import library.daos.MemberHelper;
 
 /**
  * Unit tests for LoanDAO.
@@ -54,6 +74,7 @@ public class TestLoanDAO
   {
     when(firstJimLoansCatch22_.getBook()).thenReturn(catch22_);
     when(firstJimLoansCatch22_.getBorrower()).thenReturn(jim_);
+    when(jim_.getId()).thenReturn(1);
     when(firstJimLoansCatch22_.getID()).thenReturn(1);
     when(firstJimLoansCatch22_.isCurrent()).thenReturn(false);
     when(firstJimLoansCatch22_.isOverDue()).thenReturn(false);
@@ -67,6 +88,7 @@ public class TestLoanDAO
   {
     when(secondSamLoansEmma_.getBook()).thenReturn(emma_);
     when(secondSamLoansEmma_.getBorrower()).thenReturn(sam_);
+    when(sam_.getId()).thenReturn(2);
     when(secondSamLoansEmma_.getID()).thenReturn(2);
     when(secondSamLoansEmma_.isCurrent()).thenReturn(false);
     when(secondSamLoansEmma_.isOverDue()).thenReturn(false);
@@ -79,6 +101,7 @@ public class TestLoanDAO
   {
     when(thirdJillLoansCatch22_.getBook()).thenReturn(catch22_);
     when(thirdJillLoansCatch22_.getBorrower()).thenReturn(jill_);
+    when(jill_.getId()).thenReturn(3);
     when(thirdJillLoansCatch22_.getID()).thenReturn(3);
     when(thirdJillLoansCatch22_.isCurrent()).thenReturn(false);
     when(thirdJillLoansCatch22_.isOverDue()).thenReturn(true);
@@ -91,6 +114,7 @@ public class TestLoanDAO
   {
     when(fourthJimLoansScoop_.getBook()).thenReturn(scoop_);
     when(fourthJimLoansScoop_.getBorrower()).thenReturn(jim_);
+    when(jim_.getId()).thenReturn(1);
     when(fourthJimLoansScoop_.getID()).thenReturn(4);
     when(fourthJimLoansScoop_.isCurrent()).thenReturn(false);
     when(fourthJimLoansScoop_.isOverDue()).thenReturn(true);
@@ -103,8 +127,10 @@ public class TestLoanDAO
   {
     when(fifthJillLoansDune_.getBook()).thenReturn(dune_);
     when(fifthJillLoansDune_.getBorrower()).thenReturn(jill_);
+    when(jill_.getId()).thenReturn(3);
     when(fifthJillLoansDune_.getID()).thenReturn(5);
     when(fifthJillLoansDune_.isCurrent()).thenReturn(true);
+    when(fifthJillLoansDune_.getDueDate()).thenReturn(dateBuilder(1, 2, 2015));
     when(fifthJillLoansDune_.checkOverDue(any())).thenReturn(true);
     when(fifthJillLoansDune_.isOverDue()).thenReturn(false);
     when(dune_.getTitle()).thenReturn("Dune");
@@ -116,8 +142,10 @@ public class TestLoanDAO
   {
     when(sixthSamLoansEmma_.getBook()).thenReturn(emma_);
     when(sixthSamLoansEmma_.getBorrower()).thenReturn(sam_);
+    when(sam_.getId()).thenReturn(2);
     when(sixthSamLoansEmma_.getID()).thenReturn(6);
     when(sixthSamLoansEmma_.isCurrent()).thenReturn(true);
+    when(sixthSamLoansEmma_.getDueDate()).thenReturn(dateBuilder(20, 2, 2015));
     when(sixthSamLoansEmma_.checkOverDue(any())).thenReturn(false);
     when(sixthSamLoansEmma_.isOverDue()).thenReturn(false);
     when(dune_.getTitle()).thenReturn("Emma");
@@ -208,6 +236,41 @@ public class TestLoanDAO
 
 
 
+  @Test
+  public void createLoanDatesLoanByClock()
+  {
+    LibraryClock clock = new LibraryClock();
+    clock.advance(3);
+    Date borrowed = ignoreTime(dateBuilder(new Date(), 3));
+    Date due = calculateDueDate(borrowed);
+    ILoanHelper loanHelper = mockHelper();
+    LoanDAO dao = new LoanDAO(loanHelper, clock);
+
+    dao.createLoan(jim_, catch22_);
+    clock.advance(1);
+    dao.createLoan(sam_, emma_);
+
+    verify(loanHelper).makeLoan(catch22_, jim_, borrowed, due);
+    verify(loanHelper).makeLoan(emma_, sam_, dateBuilder(borrowed, 1),
+                                calculateDueDate(dateBuilder(borrowed, 1)));
+  }
+
+
+
+  @Test
+  public void createLoanDaoWithNullClockThrows()
+  {
+    try {
+      LoanDAO dao = new LoanDAO(stubHelper(), null);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch (Exception exception) {
+      assertThat(exception).isInstanceOf(IllegalArgumentException.class);
+    }
+  }
+
+
+
   @Test
   public void createLoanWithNullBookThrows()
   {
@@ -431,6 +494,32 @@ public class TestLoanDAO
                                          sixthSamLoansEmma_);
   }
 
+
+
+  @Test
+  public void listLoansPagedFollowsOnFromLastId()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+    setUpFirstLoan();
+    dao.commitLoan(firstJimLoansCatch22_);
+    setUpSecondLoan();
+    dao.commitLoan(secondSamLoansEmma_);
+    setUpThirdLoan();
+    dao.commitLoan(thirdJillLoansCatch22_);
+
+    List<ILoan> firstPage = dao.listLoans(0, 2);
+    List<ILoan> secondPage = dao.listLoans(2, 2);
+
+    assertThat(firstPage).containsExactly(firstJimLoansCatch22_,
+                                          secondSamLoansEmma_);
+    assertThat(secondPage).containsExactly(thirdJillLoansCatch22_);
+    assertThat(dao.listLoans(3, 2)).isEmpty();
+    assertThat(dao.streamLoans().collect(Collectors.toList()))
+      .containsExactly(firstJimLoansCatch22_, secondSamLoansEmma_,
+                       thirdJillLoansCatch22_);
+  }
+
   //===========================================================================
   // Test getLoanByID - with LoanBuilder (for stubs), LoanReflection
   // (to create new LoanDAOs) & fixtures for loans
@@ -622,6 +711,61 @@ public class TestLoanDAO
                                       fourthJimLoansScoop_);
   }
 
+  //===========================================================================
+  // Test findActiveLoansByBorrower - with LoanBuilder (for stubs & mocks)
+  // & fixtures for loans & books
+  //===========================================================================
+
+  @Test
+  public void findActiveLoansByBorrowerEmptyIfNoLoans()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+
+    List<ILoan> loans = dao.findActiveLoansByBorrower(jim_);
+
+    assertThat(loans).isEmpty();
+  }
+
+
+
+  @Test
+  public void findActiveLoansByBorrowerExcludesCompleteLoans()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+    setUpFirstLoan();
+    dao.commitLoan(firstJimLoansCatch22_); // jim, complete
+    setUpSecondLoan();
+    dao.commitLoan(secondSamLoansEmma_);
+    setUpFourthLoan();
+    dao.commitLoan(fourthJimLoansScoop_); // jim, overdue
+
+    List<ILoan> loans = dao.findActiveLoansByBorrower(jim_);
+
+    assertThat(loans).containsExactly(fourthJimLoansScoop_);
+  }
+
+
+
+  @Test
+  public void findActiveLoansByBorrowerReturnsCurrentAndOverDueLoans()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+    setUpThirdLoan();
+    dao.commitLoan(thirdJillLoansCatch22_); // jill, overdue
+    setUpFourthLoan();
+    dao.commitLoan(fourthJimLoansScoop_);
+    setUpFifthLoan();
+    dao.commitLoan(fifthJillLoansDune_); // jill, current
+
+    List<ILoan> loans = dao.findActiveLoansByBorrower(jill_);
+
+    assertThat(loans).containsExactly(thirdJillLoansCatch22_,
+                                      fifthJillLoansDune_);
+  }
+
   //===========================================================================
   // Test findLoansByBookTitle - with LoanBuilder (for stubs & mocks)
   // & fixtures for loans & books
@@ -782,7 +926,7 @@ public class TestLoanDAO
 
 
   @Test
-  public void updateOverDueStatusOnMultipleLoansCallsOnlyOnCurrentLoans()
+  public void updateOverDueStatusOnMultipleLoansCallsOnlyOnCurrentPastDueLoans()
   {
     ILoanHelper loanHelper = stubHelper();
     LoanDAO dao = new LoanDAO(loanHelper);
@@ -807,7 +951,123 @@ public class TestLoanDAO
     verify(thirdJillLoansCatch22_, never()).checkOverDue(any());
     verify(fourthJimLoansScoop_, never()).checkOverDue(any());
     verify(fifthJillLoansDune_).checkOverDue(today);
-    verify(sixthSamLoansEmma_).checkOverDue(today);
+    verify(sixthSamLoansEmma_, never()).checkOverDue(any());
+  }
+
+
+
+  @Test
+  public void updateOverDueStatusDoesNotRecheckLoanAlreadyOverDue()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+    setUpFifthLoan();
+    dao.commitLoan(fifthJillLoansDune_);
+    Date today = dateBuilder(10, 2, 2015);
+    Date tomorrow = dateBuilder(11, 2, 2015);
+
+    dao.updateOverDueStatus(today);
+    dao.updateOverDueStatus(tomorrow);
+
+    verify(fifthJillLoansDune_).checkOverDue(today);
+    verify(fifthJillLoansDune_, never()).checkOverDue(tomorrow);
+  }
+
+
+
+  @Test
+  public void updateOverDueStatusChecksLoanOnceDueDateHasPassed()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+    setUpSixthLoan();
+    dao.commitLoan(sixthSamLoansEmma_);
+    Date dueDate = dateBuilder(20, 2, 2015);
+    Date dayAfterDueDate = dateBuilder(21, 2, 2015);
+
+    dao.updateOverDueStatus(dueDate);
+    dao.updateOverDueStatus(dayAfterDueDate);
+
+    verify(sixthSamLoansEmma_, never()).checkOverDue(dueDate);
+    verify(sixthSamLoansEmma_).checkOverDue(dayAfterDueDate);
+  }
+
+
+
+  @Test
+  public void updateOverDueStatusByClockInOtherZoneFindsLoanOnceDueDayPassed()
+  {
+    // A zone at least twelve hours from the default, so that the clock's
+    // days and the default zone's days begin at different instants
+    boolean isDefaultAhead = TimeZone.getDefault().getRawOffset() >= 0;
+    LibraryClock clock =
+      new LibraryClock(ZoneOffset.ofHours(isDefaultAhead ? -12 : 14));
+    LoanDAO dao = new LoanDAO(new LoanHelper(clock), clock);
+    IBook book = new BookDAO(new BookHelper()).addBook("Author", "Title", "1");
+    IMember borrower = new MemberDAO(new MemberHelper())
+      .addMember("First", "Last", "12345678", "a@b.com");
+    ILoan loan = dao.createLoan(borrower, book);
+    dao.commitLoan(loan);
+    int dueDay = clock.getDay(loan.getDueDate().getTime());
+
+    // The last moment of the due day, in the clock's zone
+    Date endOfDueDay = new Date(clock.getStartOfDay(dueDay + 1) - 1);
+    assertThat(dueDay).isEqualTo(clock.getToday() + ILoan.LOAN_PERIOD);
+    assertThat(loan.checkOverDue(endOfDueDay)).isFalse();
+
+    clock.advance(ILoan.LOAN_PERIOD);
+    dao.updateOverDueStatus();
+    assertThat(dao.countOverDueLoans()).isZero();
+
+    clock.advance(1);
+    dao.updateOverDueStatus();
+    assertThat(dao.findOverDueLoans()).containsExactly(loan);
+  }
+
+  @Test
+  public void completeLoanDuringSweepWaitsForSweepToFinish()
+    throws Exception
+  {
+    LoanDAO dao = new LoanDAO(new LoanHelper());
+    IBook book = new BookDAO(new BookHelper()).addBook("Author", "Title", "1");
+    IMember borrower = new MemberDAO(new MemberHelper())
+      .addMember("First", "Last", "12345678", "a@b.com");
+    final ILoan loan = spy(dao.createLoan(borrower, book));
+    dao.commitLoan(loan);
+
+    // Hold the sweep part way through checking the loan
+    final CountDownLatch sweepReached = new CountDownLatch(1);
+    final CountDownLatch releaseSweep = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      sweepReached.countDown();
+      releaseSweep.await(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      return invocation.callRealMethod();
+    }).when(loan).isCurrent();
+
+    ExecutorService pool = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> sweep = pool.submit(() -> dao.updateOverDueStatus(
+        dateBuilder(new Date(), ILoan.LOAN_PERIOD + 1)));
+      assertThat(sweepReached.await(TIMEOUT_SECONDS, TimeUnit.SECONDS))
+        .isTrue();
+      Future<?> completion = pool.submit(() -> dao.completeLoan(loan));
+
+      // The completion waits for the sweep rather than changing the loan
+      // under it
+      Thread.sleep(200);
+      assertThat(completion.isDone()).isFalse();
+      releaseSweep.countDown();
+      awaitWorker(sweep);
+      awaitWorker(completion);
+    }
+    finally {
+      releaseSweep.countDown();
+      pool.shutdownNow();
+    }
+
+    assertThat(loan.isOverDue()).isFalse();
+    assertThat(dao.findOverDueLoans()).isEmpty();
+    assertThat(dao.countOverDueLoans()).isZero();
   }
 
   //===========================================================================
@@ -927,4 +1187,280 @@ public class TestLoanDAO
                                              fourthJimLoansScoop_);
   }
 
+
+
+  @Test
+  public void findOverDueLoansReturnsLoanFoundOverDueByUpdate()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+    setUpFifthLoan();
+    dao.commitLoan(fifthJillLoansDune_);
+    Date today = dateBuilder(10, 2, 2015);
+
+    dao.updateOverDueStatus(today);
+    when(fifthJillLoansDune_.isOverDue()).thenReturn(true);
+    List<ILoan> overDueLoans = dao.findOverDueLoans();
+
+    assertThat(overDueLoans).containsExactly(fifthJillLoansDune_);
+  }
+
+
+
+  @Test
+  public void findOverDueLoansDoesNotCallLoanIsOverDue()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+    setUpThirdLoan();
+    dao.commitLoan(thirdJillLoansCatch22_);
+
+    dao.findOverDueLoans();
+    dao.countOverDueLoans();
+
+    // once only, when committed
+    verify(thirdJillLoansCatch22_).isOverDue();
+  }
+
+  //===========================================================================
+  // Test countOverDueLoans - with LoanBuilder (for stubs & mocks) & fixtures
+  // for loans & books
+  //===========================================================================
+
+  @Test
+  public void countOverDueLoansZeroIfNoLoans()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+
+    assertThat(dao.countOverDueLoans()).isEqualTo(0);
+  }
+
+
+
+  @Test
+  public void countOverDueLoansCountsOnlyOverDueLoans()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+    setUpFirstLoan();
+    dao.commitLoan(firstJimLoansCatch22_);
+    setUpSecondLoan();
+    dao.commitLoan(secondSamLoansEmma_);
+    setUpThirdLoan();
+    dao.commitLoan(thirdJillLoansCatch22_);
+    setUpFourthLoan();
+    dao.commitLoan(fourthJimLoansScoop_);
+    setUpFifthLoan();
+    dao.commitLoan(fifthJillLoansDune_);
+
+    assertThat(dao.countOverDueLoans()).isEqualTo(2);
+  }
+
+
+
+  @Test
+  public void countOverDueLoansExcludesLoanCompletedByDAO()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+    // using reflection so that the ids committed match the mocks' ids
+    setPrivateNextId(dao, 3);
+    setUpThirdLoan();
+    dao.commitLoan(thirdJillLoansCatch22_);
+    setUpFourthLoan();
+    dao.commitLoan(fourthJimLoansScoop_);
+
+    // the mock allows a second completion, which must not be counted again
+    dao.completeLoan(fourthJimLoansScoop_);
+    dao.completeLoan(fourthJimLoansScoop_);
+
+    assertThat(dao.countOverDueLoans()).isEqualTo(1);
+  }
+
+  //===========================================================================
+  // Test completeLoan - with LoanBuilder (for mocks)
+  //===========================================================================
+
+  @Test
+  public void completeLoanCompletesLoanAndRemovesItFromOverDueSet()
+  {
+    ILoanHelper loanHelper = stubHelper();
+    LoanDAO dao = new LoanDAO(loanHelper);
+    // using reflection so that the ids committed match the mocks' ids
+    setPrivateNextId(dao, 3);
+    setUpThirdLoan();
+    dao.commitLoan(thirdJillLoansCatch22_);
+    setUpFourthLoan();
+    dao.commitLoan(fourthJimLoansScoop_);
+
+    dao.completeLoan(thirdJillLoansCatch22_);
+
+    verify(thirdJillLoansCatch22_).complete();
+    assertThat(dao.findOverDueLoans()).containsExactly(fourthJimLoansScoop_);
+  }
+
+  //===========================================================================
+  // Test concurrent use - with real DAOs, helpers & entities
+  //===========================================================================
+
+  private static final int THREADS = 8;
+  private static final int MEMBERS_PER_THREAD = 250;
+  private static final int LOANS_PER_MEMBER = 4;
+  // Long enough for a slow build machine, short enough that a stuck worker
+  // fails the test instead of hanging the build
+  private static final long TIMEOUT_SECONDS = 60;
+
+
+
+  @Test
+  public void concurrentCommitLoanLosesNoIdsOrLookups()
+    throws Exception
+  {
+    final LoanDAO dao = new LoanDAO(new LoanHelper());
+    final BookDAO bookDao = new BookDAO(new BookHelper());
+    final MemberDAO memberDao = new MemberDAO(new MemberHelper());
+    int total = THREADS * MEMBERS_PER_THREAD * LOANS_PER_MEMBER;
+    for (int i = 0; i < total; i++) {
+      bookDao.addBook("Author", "Title " + i, "CallNo " + i);
+    }
+    for (int i = 0; i < THREADS * MEMBERS_PER_THREAD; i++) {
+      memberDao.addMember("First", "Last" + i, "12345678", "a@b.com");
+    }
+
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch writersDone = new CountDownLatch(THREADS);
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS + 2);
+    List<Future<?>> results = new ArrayList<>();
+
+    // Each writer borrows its own books for its own members, so only the
+    // DAO is shared between threads
+    for (int t = 0; t < THREADS; t++) {
+      final int firstMember = t * MEMBERS_PER_THREAD + 1;
+      results.add(pool.submit(new Callable<Void>()
+      {
+        @Override
+        public Void call() throws Exception
+        {
+          // Counted down even if a commit fails, so the readers still stop
+          try {
+            start.await();
+            for (int m = 0; m < MEMBERS_PER_THREAD; m++) {
+              int memberID = firstMember + m;
+              IMember borrower = memberDao.getMemberByID(memberID);
+              for (int l = 0; l < LOANS_PER_MEMBER; l++) {
+                IBook book =
+                  bookDao.getBookByID((memberID - 1) * LOANS_PER_MEMBER + l + 1);
+                dao.commitLoan(dao.createLoan(borrower, book));
+              }
+            }
+          }
+          finally {
+            writersDone.countDown();
+          }
+          return null;
+        }
+      }));
+    }
+
+    // A reader checks that every loan it can see is complete, and a sweeper
+    // runs the overdue sweep against the due day index the writers fill
+    results.add(pool.submit(new Callable<Void>()
+    {
+      @Override
+      public Void call() throws Exception
+      {
+        start.await();
+        IMember borrower = memberDao.getMemberByID(1);
+        long deadline = deadlineFromNow();
+        while (writersDone.getCount() > 0 && System.nanoTime() < deadline) {
+          for (ILoan loan : dao.findLoansByBorrower(borrower)) {
+            assertThat(dao.getLoanByID(loan.getID())).isSameAs(loan);
+          }
+          for (ILoan loan : dao.listLoans()) {
+            assertThat(loan.getID()).isPositive();
+          }
+        }
+        return null;
+      }
+    }));
+    results.add(pool.submit(new Callable<Void>()
+    {
+      @Override
+      public Void call() throws Exception
+      {
+        start.await();
+        long deadline = deadlineFromNow();
+        while (writersDone.getCount() > 0 && System.nanoTime() < deadline) {
+          dao.updateOverDueStatus(new Date());
+        }
+        return null;
+      }
+    }));
+
+    start.countDown();
+    try {
+      for (Future<?> result : results) {
+        awaitWorker(result);
+      }
+    }
+    finally {
+      pool.shutdownNow();
+    }
+
+    List<ILoan> allLoans = dao.listLoans();
+    assertThat(allLoans).hasSize(total);
+    Set<Integer> ids = new HashSet<>();
+    for (ILoan loan : allLoans) {
+      ids.add(loan.getID());
+    }
+    assertThat(ids).hasSize(total);
+    for (int id = 1; id <= total; id++) {
+      assertThat(dao.getLoanByID(id).getID()).isEqualTo(id);
+    }
+    for (IMember borrower : memberDao.listMembers()) {
+      assertThat(dao.findLoansByBorrower(borrower)).hasSize(LOANS_PER_MEMBER);
+    }
+    assertThat(dao.countOverDueLoans()).isEqualTo(0);
+
+    // No current loan was lost from the due day index
+    dao.updateOverDueStatus(dateBuilder(new Date(), ILoan.LOAN_PERIOD + 1));
+    assertThat(dao.countOverDueLoans()).isEqualTo(total);
+  }
+
+
+
+  private static long deadlineFromNow()
+  {
+    return System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+  }
+
+
+
+  /**
+   * Waits for a worker thread to finish, failing if it takes longer than
+   * TIMEOUT_SECONDS and rethrowing any assertion failure or exception the
+   * worker ended with.
+   */
+  private static void awaitWorker(Future<?> result)
+    throws Exception
+  {
+    try {
+      result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    catch (TimeoutException ex) {
+      fail("Worker thread did not finish within " + TIMEOUT_SECONDS + " seconds");
+    }
+    catch (ExecutionException ex) {
+      Throwable cause = ex.getCause();
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      if (cause instanceof Exception) {
+        throw (Exception) cause;
+      }
+      throw ex;
+    }
+  }
+
 }
@@ -0,0 +1,151 @@
+package test.unit;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+import static test.helper.DateBuilder.*;
+import static test.helper.DoubleBuilder.*;
+import static test.helper.LoanBuilder.*;
+
+import library.interfaces.entities.IBook;
+import library.interfaces.entities.ILoan;
+import library.interfaces.entities.IMember;
+
+import library.entities.LoanRenderer;
+
+import test.helper.LoanBuilder;
+
+/**
+ * Unit tests for LoanRenderer.
+ * Uses DoubleBuilder for creation of stubs & mocks and LoanBuilder for Loans.
+ */
+public class TestLoanRenderer
+{
+  //===========================================================================
+  // Test fixtures
+  //===========================================================================
+
+  private static final String DETAILS = "Author:   Charles Dickens\n" +
+                                        "Title:    Great Expectations\n" +
+                                        "Borrower: Neil Armstrong\n" +
+                                        "Borrowed: 20/12/2015\n" +
+                                        "Due Date: 31/12/2015";
+
+  private IBook book_ = stubBook();
+  private IMember borrower_ = stubMember();
+
+
+
+  @Before
+  public void setUp()
+  {
+    when(book_.getAuthor()).thenReturn("Charles Dickens");
+    when(book_.getTitle()).thenReturn("Great Expectations");
+    when(borrower_.getFirstName()).thenReturn("Neil");
+    when(borrower_.getLastName()).thenReturn("Armstrong");
+  }
+
+  //===========================================================================
+  // Test render & appendTo
+  //===========================================================================
+
+  @Test
+  public void renderLoanMatchesToString()
+  {
+    ILoan loan = loanWithID(99);
+
+    String loanString = LoanRenderer.render(loan);
+
+    assertThat(loanString).isEqualTo("Loan ID:  99\n" + DETAILS);
+    assertThat(loanString).isEqualTo(loan.toString());
+  }
+
+
+
+  @Test
+  public void renderShowsIdSetAfterFirstRender()
+  {
+    ILoan loan = loanWithID(0);
+    assertThat(LoanRenderer.render(loan)).startsWith("Loan ID:  0\n");
+
+    loan.commit(7);
+
+    assertThat(LoanRenderer.render(loan)).isEqualTo("Loan ID:  7\n" + DETAILS);
+  }
+
+
+
+  @Test
+  public void renderOtherILoanInFull()
+  {
+    ILoan loan = stubLoan();
+    when(loan.getID()).thenReturn(3);
+    when(loan.getBook()).thenReturn(book_);
+    when(loan.getBorrower()).thenReturn(borrower_);
+    when(loan.getBorrowDate()).thenReturn(dateBuilder(20, 11, 2015));
+    when(loan.getDueDate()).thenReturn(dateBuilder(31, 11, 2015));
+
+    assertThat(LoanRenderer.render(loan)).isEqualTo("Loan ID:  3\n" + DETAILS);
+  }
+
+
+
+  @Test
+  public void appendToKeepsExistingText()
+  {
+    StringBuilder text = new StringBuilder("Pending:\n");
+
+    LoanRenderer.appendTo(text, loanWithID(1));
+
+    assertThat(text.toString()).isEqualTo("Pending:\nLoan ID:  1\n" + DETAILS);
+  }
+
+  //===========================================================================
+  // Test appendAllTo
+  //===========================================================================
+
+  @Test
+  public void appendAllToSeparatesLoansWithBlankLine()
+  {
+    StringBuilder text = new StringBuilder();
+
+    LoanRenderer.appendAllTo(text, Arrays.asList(loanWithID(1),
+                                                 loanWithID(2)));
+
+    assertThat(text.toString()).isEqualTo("Loan ID:  1\n" + DETAILS + "\n\n" +
+                                          "Loan ID:  2\n" + DETAILS);
+  }
+
+
+
+  @Test
+  public void appendAllToNoLoansAppendsNothing()
+  {
+    StringBuilder text = new StringBuilder();
+
+    LoanRenderer.appendAllTo(text, Arrays.<ILoan>asList());
+
+    assertThat(text.length()).isZero();
+  }
+
+  //===========================================================================
+  // Helpers
+  //===========================================================================
+
+  private ILoan loanWithID(int id)
+  {
+    LoanBuilder loan = newLoan().withBook(book_)
+                                .withBorrower(borrower_)
+                                .withBorrowDate(20, 11, 2015)
+                                .withDueDate(31, 11, 2015);
+    if (id == 0) {
+      return loan.makePending().build();
+    }
+    return loan.withID(id).makeCurrent().build();
+  }
+
+}
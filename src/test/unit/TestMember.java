@@ -7,6 +7,7 @@ import java.util.Date;
 
 import junit.framework.TestCase;
 import library.daos.BookDAO;
+import library.daos.LibraryClock;
 import library.daos.LoanDAO;
 import library.entities.Loan;
 import library.entities.Book;
@@ -66,7 +67,8 @@ public class TestMember extends TestCase
     try {
       dueDate = dateFormat.parse("15/10/15");
       dateBorrowed = dateFormat.parse("01/10/15");
-      mockLoan = new Loan(mockBook, validMember, dateBorrowed, dueDate);
+      mockLoan = new Loan(mockBook, validMember, dateBorrowed, dueDate,
+                          new LibraryClock());
       mockLoanDAO.createLoan(validMember, mockBook);
       
     } catch (ParseException e) {
@@ -273,7 +275,7 @@ public class TestMember extends TestCase
     assertFalse(validMember.hasReachedLoanLimit());
     for (int n = 1; n <= 5; n++)
     {
-      validMember.addLoan(mockLoan);
+      validMember.addLoan(loanWithId(n));
     }
     assertTrue(validMember.hasReachedLoanLimit());
     assertEquals(validMember.getState(), EMemberState.BORROWING_DISALLOWED);
@@ -333,9 +335,12 @@ public class TestMember extends TestCase
     
     validMember.payFine(20.0f);
     assertFalse(validMember.isRestricted());
-    for (int n = 0; n < 5; n++)
+    
+    // An overdue loan restricts the member as soon as it is added, so use 
+    // current loans to reach the loan limit
+    for (int n = 1; n <= 5; n++)
     {
-      validMember.addLoan(mockLoan);
+      validMember.addLoan(loanWithId(n));
     }
     assertTrue(validMember.isRestricted());
   }
@@ -355,6 +360,125 @@ public class TestMember extends TestCase
     assertEquals(validMember.getState(), EMemberState.BORROWING_DISALLOWED);
   }
   
+  
+  
+  // Test that an overdue loan reported more than once is only counted once
+  public void testLoanHasBecomeOverdueTwice()
+  {
+    validMember.addLoan(mockLoan);
+    setState(ELoanState.OVERDUE);
+    
+    validMember.loanHasBecomeOverdue(mockLoan);
+    validMember.loanHasBecomeOverdue(mockLoan);
+    assertEquals(1, validMember.getOverDueLoanCount());
+    validMember.removeLoan(mockLoan);
+    
+    assertEquals(0, validMember.getOverDueLoanCount());
+    assertFalse(validMember.hasOverDueLoans());
+    assertFalse(validMember.isRestricted());
+    assertEquals(validMember.getState(), EMemberState.BORROWING_ALLOWED);
+  }
+  
+  
+  
+  // Test that completing an overdue loan lifts the restriction, although 
+  // the loan stays on the member's loan list
+  public void testLoanHasBeenCompleted()
+  {
+    validMember.addLoan(mockLoan);
+    setState(ELoanState.OVERDUE);
+    validMember.loanHasBecomeOverdue(mockLoan);
+    assertTrue(validMember.isRestricted());
+    
+    mockLoan.complete();
+    
+    assertFalse(validMember.hasOverDueLoans());
+    assertFalse(validMember.isRestricted());
+    assertEquals(validMember.getState(), EMemberState.BORROWING_ALLOWED);
+    assertEquals(1, validMember.getLoans().size());
+  }
+  
+  
+  
+  // Test that the restriction follows fines as they are added and paid
+  public void testIsRestrictedFollowsFines()
+  {
+    validMember.addFine(6.0f);
+    assertFalse(validMember.isRestricted());
+    
+    validMember.addFine(4.0f);
+    assertTrue(validMember.isRestricted());
+    assertEquals(validMember.getState(), EMemberState.BORROWING_DISALLOWED);
+    
+    validMember.payFine(0.5f);
+    assertFalse(validMember.isRestricted());
+    assertEquals(validMember.getState(), EMemberState.BORROWING_ALLOWED);
+  }
+  
+  
+  
+  // Test that a loan cannot be added twice, and that loans are listed in 
+  // the order they were added
+  public void testAddLoanTwice()
+  {
+    ILoan firstLoan = loanWithId(7);
+    ILoan secondLoan = loanWithId(3);
+    validMember.addLoan(firstLoan);
+    validMember.addLoan(secondLoan);
+    
+    try
+    {
+      validMember.addLoan(firstLoan);
+    }
+    catch (Throwable ex)
+    {
+      exception = ex;
+    }
+    assertTrue(exception instanceof IllegalArgumentException);
+    assertEquals(2, validMember.getLoans().size());
+    assertSame(firstLoan, validMember.getLoans().get(0));
+    assertSame(secondLoan, validMember.getLoans().get(1));
+  }
+  
+  
+  
+  // Test that removing a loan keeps the order of the others, and that a 
+  // different loan with the same id is not removed
+  public void testRemoveLoanKeepsOrder()
+  {
+    ILoan firstLoan = loanWithId(1);
+    ILoan secondLoan = loanWithId(2);
+    ILoan thirdLoan = loanWithId(3);
+    validMember.addLoan(firstLoan);
+    validMember.addLoan(secondLoan);
+    validMember.addLoan(thirdLoan);
+    
+    validMember.removeLoan(secondLoan);
+    assertEquals(2, validMember.getLoans().size());
+    assertSame(firstLoan, validMember.getLoans().get(0));
+    assertSame(thirdLoan, validMember.getLoans().get(1));
+    
+    try
+    {
+      validMember.removeLoan(loanWithId(1));
+    }
+    catch (Throwable ex)
+    {
+      exception = ex;
+    }
+    assertTrue(exception instanceof IllegalArgumentException);
+    assertEquals(2, validMember.getLoans().size());
+  }
+  
+  
+  
+  private ILoan loanWithId(int id)
+  {
+    ILoan loan = mock(ILoan.class);
+    when(loan.getID()).thenReturn(id);
+    return loan;
+  }
+  
 
   
   private void setState(ELoanState newState) 
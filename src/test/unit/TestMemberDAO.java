@@ -1,15 +1,31 @@
 package test.unit;
 
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import junit.framework.TestCase;
 
 import static org.mockito.Mockito.*;
 
 import library.daos.MemberDAO;
+import library.daos.MemberHelper;
 import library.interfaces.daos.IMemberHelper;
+import library.interfaces.entities.ILoan;
 import library.interfaces.entities.IMember;
+import library.interfaces.entities.IMemberSummary;
 
 
 /**
@@ -36,6 +52,10 @@ public class TestMemberDAO extends TestCase
   IMember mockInvalidMember;
   Throwable exception = null;
 
+  // Long enough for the slowest build machine, short enough that a stuck
+  // thread fails the test rather than hanging the build
+  private static final long TIMEOUT_SECONDS = 60;
+
 
 
   // ==========================================================================
@@ -188,6 +208,55 @@ public class TestMemberDAO extends TestCase
 
 
 
+  // Test that the summary returned for a member holds their details,
+  // loans, fines and restrictions
+  public void testGetMemberSummaryValid()
+  {
+    MemberDAO validMemberDAO = new MemberDAO(new MemberHelper());
+    validMemberDAO.addMember("Joe", "Bloggs", "76543210", "jbloggs@myemail.com");
+    IMember member = validMemberDAO.addMember("Sam", "Smith", "11111111", "ssmith@email.com");
+    ILoan mockLoan = mock(ILoan.class);
+    when(mockLoan.getID()).thenReturn(1);
+    when(mockLoan.isOverDue()).thenReturn(true);
+    member.addLoan(mockLoan);
+    member.loanHasBecomeOverdue(mockLoan);
+    member.addFine(12.0f);
+
+    // mockLoan no longer reports being overdue, so the overdue count must
+    // come from the member
+    when(mockLoan.isOverDue()).thenReturn(false);
+    IMemberSummary summary = validMemberDAO.getMemberSummary(2);
+    assertSame(member, summary.getMember());
+    assertEquals(2, summary.getId());
+    assertEquals("Sam", summary.getFirstName());
+    assertEquals("Smith", summary.getLastName());
+    assertEquals("11111111", summary.getContactPhone());
+    assertEquals(1, summary.getLoanCount());
+    assertSame(mockLoan, summary.getLoans().get(0));
+    assertEquals(1, summary.getOverDueLoanCount());
+    assertEquals(12.0f, summary.getTotalFines());
+    assertTrue(summary.isRestricted());
+    assertTrue(summary.hasFinesPayable());
+    assertTrue(summary.hasOverDueLoans());
+    assertTrue(summary.hasReachedFineLimit());
+    assertFalse(summary.hasReachedLoanLimit());
+  }
+
+
+
+  // Test that when the member ID does not exist in the member map,
+  // the getMemberSummary method returns null
+  public void testGetMemberSummaryInvalid()
+  {
+    createMocks();
+    MemberDAO validMemberDAO = new MemberDAO(mockHelper);
+    validMemberDAO.addMember("Joe", "Bloggs", "76543210", "jbloggs@myemail.com");
+    IMemberSummary returnedSummary = validMemberDAO.getMemberSummary(20);
+    assertEquals(null, returnedSummary);
+  }
+
+
+
   // Test that a list of members is returned accurately
   public void testListMembers()
   {
@@ -210,6 +279,29 @@ public class TestMemberDAO extends TestCase
 
 
 
+  // Test that members are listed a page at a time and as a stream, in id order
+  public void testListMembersPagedAndStreamed()
+  {
+    MemberDAO validMemberDAO = new MemberDAO(new MemberHelper());
+    for (int i = 0; i < 5; i++)
+    {
+      validMemberDAO.addMember("Joe", "Bloggs" + i, "76543210", "jbloggs@myemail.com");
+    }
+
+    List<IMember> firstPage = validMemberDAO.listMembers(0, 2);
+    List<IMember> lastPage = validMemberDAO.listMembers(4, 2);
+    assertEquals(2, firstPage.size());
+    assertEquals("Bloggs0", firstPage.get(0).getLastName());
+    assertEquals("Bloggs1", validMemberDAO.listMembers(1, 2).get(0).getLastName());
+    assertEquals(1, lastPage.size());
+    assertEquals(5, lastPage.get(0).getId());
+    assertTrue(validMemberDAO.listMembers(5, 2).isEmpty());
+    assertEquals(5, validMemberDAO.streamMembers().count());
+    assertEquals("Bloggs4", validMemberDAO.streamMembers().skip(4).findFirst().get().getLastName());
+  }
+
+
+
   // Test that the correct member is returned when searched for by last name
   public void testFindMembersByLastName()
   {
@@ -285,4 +377,213 @@ public class TestMemberDAO extends TestCase
     assertEquals("Grey", memberList.get(0).getLastName());
   }
 
+
+
+  // Test that members supplied through the map constructor can be
+  // found by last name, email address and names
+  public void testFindMembersSuppliedByMap()
+  {
+    createMocks();
+    Map<Integer, IMember> memberMap = new HashMap<Integer, IMember>();
+    memberMap.put(2, mockValidMemberTwo);
+    memberMap.put(4, mockValidMemberFour);
+    MemberDAO validMemberDAO = new MemberDAO(mockHelper, memberMap);
+
+    List<IMember> memberList = validMemberDAO.findMembersByLastName("Black");
+    assertEquals(1, memberList.size());
+    assertEquals("Frank", memberList.get(0).getFirstName());
+
+    memberList = validMemberDAO.findMembersByEmailAddress("juliagrey@mail.com");
+    assertEquals(1, memberList.size());
+    assertEquals("Grey", memberList.get(0).getLastName());
+
+    memberList = validMemberDAO.findMembersByNames("Julia", "Grey");
+    assertEquals(1, memberList.size());
+    assertEquals(4, memberList.get(0).getId());
+
+    memberList = validMemberDAO.findMembersByNames("Frank", "Grey");
+    assertEquals(0, memberList.size());
+  }
+
+
+
+  // Test that members supplied with sparse ids, up to the largest id,
+  // can all be found, listed in id order and paged
+  public void testFindMembersSuppliedByMapWithSparseIds()
+  {
+    createMocks();
+    when(mockValidMemberTwo.getId()).thenReturn(1000000);
+    when(mockValidMemberFour.getId()).thenReturn(Integer.MAX_VALUE);
+    Map<Integer, IMember> memberMap = new HashMap<Integer, IMember>();
+    memberMap.put(1, mockValidMemberOne);
+    memberMap.put(1000000, mockValidMemberTwo);
+    memberMap.put(Integer.MAX_VALUE, mockValidMemberFour);
+    MemberDAO validMemberDAO = new MemberDAO(mockHelper, memberMap);
+
+    assertSame(mockValidMemberTwo, validMemberDAO.getMemberByID(1000000));
+    assertSame(mockValidMemberFour, validMemberDAO.getMemberByID(Integer.MAX_VALUE));
+    assertEquals(null, validMemberDAO.getMemberByID(999999));
+
+    List<IMember> memberList = validMemberDAO.listMembers();
+    assertEquals(3, memberList.size());
+    assertSame(mockValidMemberOne, memberList.get(0));
+    assertSame(mockValidMemberTwo, memberList.get(1));
+    assertSame(mockValidMemberFour, memberList.get(2));
+
+    memberList = validMemberDAO.listMembers(1, 1);
+    assertEquals(1, memberList.size());
+    assertSame(mockValidMemberTwo, memberList.get(0));
+    assertEquals(0, validMemberDAO.listMembers(Integer.MAX_VALUE, 1).size());
+  }
+
+
+
+  // Test that once a member with the largest id has been supplied, adding
+  // a member fails with a clear message rather than a negative id
+  public void testAddMemberAfterLargestIdThrows()
+  {
+    createMocks();
+    when(mockValidMemberFour.getId()).thenReturn(Integer.MAX_VALUE);
+    Map<Integer, IMember> memberMap = new HashMap<Integer, IMember>();
+    memberMap.put(Integer.MAX_VALUE, mockValidMemberFour);
+    MemberDAO validMemberDAO = new MemberDAO(mockHelper, memberMap);
+
+    try
+    {
+      validMemberDAO.addMember("Joe", "Bloggs", "76543210", "jbloggs@myemail.com");
+    }
+    catch (Throwable ex)
+    {
+      exception = ex;
+    }
+    assertTrue(exception instanceof RuntimeException);
+    assertTrue(exception.getMessage().startsWith("MemberDAO: addMember:"));
+  }
+
+
+
+  // Test that members added from many threads at once all receive
+  // distinct ids and can all be found, while other threads read
+  public void testConcurrentAddMemberNoLostIdsOrCorruptedLookups() throws Exception
+  {
+    final int threads = 8;
+    final int membersPerThread = 2000;
+    final MemberDAO validMemberDAO = new MemberDAO(new MemberHelper());
+    final CountDownLatch start = new CountDownLatch(1);
+    final CountDownLatch writersDone = new CountDownLatch(threads);
+    ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+    List<Future<?>> results = new ArrayList<Future<?>>();
+
+    for (int t = 0; t < threads; t++)
+    {
+      final String lastName = "Family" + t;
+      results.add(pool.submit(new Callable<Void>()
+      {
+        @Override
+        public Void call() throws Exception
+        {
+          // Counted down even if adding fails, so the reader still stops
+          try
+          {
+            start.await();
+            for (int i = 0; i < membersPerThread; i++)
+            {
+              validMemberDAO.addMember("First" + i, lastName, "12345678",
+                                       "member" + i + "@" + lastName + ".com");
+            }
+          }
+          finally
+          {
+            writersDone.countDown();
+          }
+          return null;
+        }
+      }));
+    }
+
+    // Every member visible through an index must be visible by id too
+    results.add(pool.submit(new Callable<Void>()
+    {
+      @Override
+      public Void call() throws Exception
+      {
+        start.await();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SECONDS);
+        while (writersDone.getCount() > 0 && System.nanoTime() < deadline)
+        {
+          for (IMember member : validMemberDAO.findMembersByLastName("Family0"))
+          {
+            assertEquals("Family0", member.getLastName());
+            assertSame(member, validMemberDAO.getMemberByID(member.getId()));
+          }
+        }
+        return null;
+      }
+    }));
+
+    start.countDown();
+    try
+    {
+      for (Future<?> result : results)
+      {
+        awaitWorker(result);
+      }
+    }
+    finally
+    {
+      pool.shutdownNow();
+    }
+
+    int total = threads * membersPerThread;
+    List<IMember> memberList = validMemberDAO.listMembers();
+    assertEquals(total, memberList.size());
+
+    Set<Integer> ids = new HashSet<Integer>();
+    for (IMember member : memberList)
+    {
+      ids.add(member.getId());
+    }
+    assertEquals(total, ids.size());
+    for (int id = 1; id <= total; id++)
+    {
+      assertEquals(id, validMemberDAO.getMemberByID(id).getId());
+    }
+
+    for (int t = 0; t < threads; t++)
+    {
+      assertEquals(membersPerThread,
+                   validMemberDAO.findMembersByLastName("Family" + t).size());
+    }
+    assertEquals(1, validMemberDAO.findMembersByNames("First7", "Family3").size());
+  }
+
+
+
+  // Waits for a worker thread, rethrowing any assertion failure or
+  // exception it ended with, and fails if it does not finish in time
+  private void awaitWorker(Future<?> result) throws Exception
+  {
+    try
+    {
+      result.get(TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+    catch (TimeoutException ex)
+    {
+      fail("Worker thread did not finish within " + TIMEOUT_SECONDS + " seconds");
+    }
+    catch (ExecutionException ex)
+    {
+      Throwable cause = ex.getCause();
+      if (cause instanceof Error)
+      {
+        throw (Error) cause;
+      }
+      if (cause instanceof Exception)
+      {
+        throw (Exception) cause;
+      }
+      throw ex;
+    }
+  }
+
 }
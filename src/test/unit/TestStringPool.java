@@ -0,0 +1,50 @@
+package test.unit;
+
+import junit.framework.TestCase;
+import library.daos.StringPool;
+
+/**
+ * TestStringPool class
+ *
+ * Isolated test class for the StringPool class
+ * Mock objects not necessary
+ *
+ */
+public class TestStringPool extends TestCase
+{
+  public void testInternReturnsFirstInstance()
+  {
+    StringPool pool = new StringPool();
+    String first = new String("Great Expectations");
+    String second = new String("Great Expectations");
+
+    assertSame(first, pool.intern(first));
+    assertSame(first, pool.intern(second));
+    assertEquals(1, pool.size());
+  }
+
+
+
+  public void testInternDistinctValues()
+  {
+    StringPool pool = new StringPool();
+
+    String author = pool.intern("Charles Dickens");
+    String title = pool.intern("Great Expectations");
+
+    assertEquals("Charles Dickens", author);
+    assertEquals("Great Expectations", title);
+    assertEquals(2, pool.size());
+  }
+
+
+
+  public void testInternNullReturnsNull()
+  {
+    StringPool pool = new StringPool();
+
+    assertNull(pool.intern(null));
+    assertEquals(0, pool.size());
+  }
+
+}
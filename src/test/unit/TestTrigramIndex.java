@@ -0,0 +1,139 @@
+package test.unit;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+import library.daos.TrigramIndex;
+
+/**
+ * TestTrigramIndex class
+ *
+ * Isolated test class for the TrigramIndex class
+ * Mock objects not necessary
+ *
+ */
+public class TestTrigramIndex extends TestCase
+{
+  // ==========================================================================
+  // Variables
+  // ==========================================================================
+
+
+
+  private TrigramIndex index;
+
+
+
+  // ==========================================================================
+  // Per-test Set-Up and Tear Down
+  // ==========================================================================
+
+
+
+  @Override
+  protected void setUp()
+  {
+    index = new TrigramIndex();
+    index.add("Charles Dickens");
+    index.add("Harper Lee");
+    index.add("Donald Duck");
+    index.add("Charlotte Bronte");
+    index.add("Harper Lee");
+  }
+
+
+
+  // ==========================================================================
+  // Similarity Tests
+  // ==========================================================================
+
+
+
+  public void testSimilarityOfSameWordsIsOne()
+  {
+    assertEquals(1.0, TrigramIndex.similarity("Harper Lee", "harper, LEE"));
+  }
+
+
+
+  public void testSimilarityOfUnrelatedWordsIsZero()
+  {
+    assertEquals(0.0, TrigramIndex.similarity("Harper Lee", "Duck"));
+  }
+
+
+
+  public void testSimilarityOfMisspelling()
+  {
+    double similarity = TrigramIndex.similarity("Charles Dickens",
+                                                "Charles Dikens");
+
+    assertTrue(similarity > 0.5);
+    assertTrue(similarity < 1.0);
+  }
+
+
+
+  // ==========================================================================
+  // Lookup Tests
+  // ==========================================================================
+
+
+
+  public void testAddSameValueTwiceAddsOnce()
+  {
+    assertEquals(4, index.size());
+  }
+
+
+
+  public void testFindSimilarFindsMisspelling()
+  {
+    List<String> similar = index.findSimilar("Charls Dikens",
+                                             TrigramIndex.DEFAULT_THRESHOLD);
+
+    assertEquals(1, similar.size());
+    assertEquals("Charles Dickens", similar.get(0));
+  }
+
+
+
+  public void testFindSimilarRanksMostSimilarFirst()
+  {
+    List<String> similar = index.findSimilar("Charles", 0.1);
+
+    assertEquals(2, similar.size());
+    assertEquals("Charles Dickens", similar.get(0));
+    assertEquals("Charlotte Bronte", similar.get(1));
+  }
+
+
+
+  public void testFindSimilarThreshold()
+  {
+    assertEquals(1, index.findSimilar("Harper Lee", 1.0).size());
+    assertEquals(0, index.findSimilar("Harpo Lea", 0.9).size());
+    assertEquals(1, index.findSimilar("Harpo Lea", 0.2).size());
+  }
+
+
+
+  public void testFindSimilarNoWordsFindsNothing()
+  {
+    assertTrue(index.findSimilar("!!", 0.3).isEmpty());
+  }
+
+
+
+  public void testFindSimilarZeroThresholdThrows()
+  {
+    try {
+      index.findSimilar("Harper Lee", 0);
+      fail("Should have thrown IllegalArgumentException");
+    }
+    catch(IllegalArgumentException e) {
+      assertTrue(e.getMessage().contains("threshold"));
+    }
+  }
+
+}